@@ -0,0 +1,77 @@
+package com.example.payment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.context.annotation.Bean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean(name = "taskExecutor")
+    public Executor taskExecutor(
+        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+        @Value("${payment.async.core-pool-size:2}") int corePoolSize,
+        @Value("${payment.async.max-pool-size:4}") int maxPoolSize,
+        @Value("${payment.async.queue-capacity:100}") int queueCapacity,
+        @Value("${payment.async.virtual-concurrency-limit:-1}") int virtualConcurrencyLimit
+    ) {
+        if (virtualThreads) {
+            // One virtual thread per task; requires a Java 21 runtime
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("PaymentAsync-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualConcurrencyLimit);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("PaymentAsync-");
+        // A full queue slows the submitter down instead of failing it; rejects only after shutdown
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            task.run();
+        });
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the acquirer calls of batch payments, apart from taskExecutor:
+     * its few threads and caller-runs policy would cut a batch's
+     * authorization parallelism down to that pool's size. Each batch still
+     * caps its own calls at payment.batch.authorization-parallelism; a full
+     * queue rejects, which fails the item rather than the batch.
+     */
+    @Bean(name = "batchAuthorizationExecutor")
+    public Executor batchAuthorizationExecutor(
+        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+        @Value("${payment.batch.authorization-threads:128}") int threads,
+        @Value("${payment.batch.authorization-queue-capacity:10000}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("BatchAuthorization-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(threads);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("BatchAuthorization-");
+        executor.initialize();
+        return executor;
+    }
+}
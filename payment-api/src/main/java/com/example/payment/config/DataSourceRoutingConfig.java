@@ -0,0 +1,90 @@
+package com.example.payment.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write splitting, active when replica URLs are configured: read-only
+ * transactions are served by the replicas, everything else by the primary.
+ * Replicas use the primary's credentials and spring.datasource.hikari
+ * settings. Each pool reports the hikaricp.* metrics under its own pool
+ * name (primary, replica-1, replica-2, ...).
+ */
+@Configuration
+@ConditionalOnExpression("!'${payment.datasource.replicas:}'.isBlank()")
+public class DataSourceRoutingConfig {
+    private final DataSourceProperties properties;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    public DataSourceRoutingConfig(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource primaryPool() {
+        return pool("primary", properties.determineUrl());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSource replicaDataSource(
+        HikariDataSource primaryPool,
+        @Value("${payment.datasource.replicas}") List<String> replicaUrls,
+        @Value("${payment.datasource.replica-connection-timeout:2s}") Duration connectionTimeout,
+        @Value("${payment.datasource.replica-max-lag:5s}") Duration maxLag
+    ) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource pool = pool("replica-" + (i + 1), replicaUrls.get(i).trim());
+            // Fail over to the next replica quickly instead of holding up the read
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            // Start even when a replica is down; the health check brings it back later
+            pool.setInitializationFailTimeout(-1);
+            pools.add(pool);
+        }
+        return new ReplicaDataSource(pools, primaryPool, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryPool, ReplicaDataSource replicaDataSource) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+            ReadWriteRoutingDataSource.Route.PRIMARY, primaryPool,
+            ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource
+        ));
+        routing.setDefaultTargetDataSource(primaryPool);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private HikariDataSource pool(String name, String url) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .url(url)
+            .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
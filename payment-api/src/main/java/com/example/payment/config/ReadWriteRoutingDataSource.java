@@ -0,0 +1,24 @@
+package com.example.payment.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replicas and everything else to the
+ * primary. The decision is taken when a connection is requested, so it
+ * must sit behind a LazyConnectionDataSourceProxy: transaction managers
+ * ask for the connection before the read-only flag is bound.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !DataSourceRouting.isPrimaryForced()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
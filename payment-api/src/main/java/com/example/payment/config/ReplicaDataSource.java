@@ -0,0 +1,136 @@
+package com.example.payment.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Round-robin over the replica pools. A replica that fails to hand out a
+ * connection or a health check is skipped until it passes a health check
+ * again; with no healthy replica, connections come from the primary.
+ *
+ * <p>The health check also measures each replica's replay lag, and a
+ * replica more than {@code payment.datasource.replica-max-lag} behind is
+ * skipped the same way. That bound is what lets
+ * {@link com.example.payment.service.RecentPaymentWrites} send only the
+ * payments written within it to the primary. Lag is sampled once per
+ * health check, so a replica falling behind between two checks keeps
+ * serving reads until the next one.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // The replay timestamp stands still while the primary is idle, so a replica that replayed all it received is not behind
+    private static final String LAG_QUERY = """
+        SELECT CASE
+            WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+            ELSE coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()), 0)
+        END
+        """;
+
+    private final List<Replica> replicas;
+    private final javax.sql.DataSource fallback;
+    private final Duration maxLag;
+    private final Counter fallbacks;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReplicaDataSource(
+        List<HikariDataSource> pools,
+        javax.sql.DataSource fallback,
+        Duration maxLag,
+        MeterRegistry meterRegistry
+    ) {
+        this.replicas = pools.stream().map(Replica::new).toList();
+        this.fallback = fallback;
+        this.maxLag = maxLag;
+        this.fallbacks = meterRegistry.counter("payment.datasource.replica.fallbacks");
+        for (Replica replica : replicas) {
+            Gauge.builder("payment.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                .description("Whether the replica pool is taking reads")
+                .tag("pool", replica.pool.getPoolName())
+                .register(meterRegistry);
+            Gauge.builder("payment.datasource.replica.lag", replica, r -> r.lagSeconds)
+                .description("Replay lag of the replica at its last health check")
+                .baseUnit("seconds")
+                .tag("pool", replica.pool.getPoolName())
+                .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                replica.healthy = false;
+                log.warn("Replica {} failed to provide a connection, taking it out of rotation", replica.pool.getPoolName(), e);
+            }
+        }
+        fallbacks.increment();
+        return fallback.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Replica connections use the configured credentials");
+    }
+
+    @Scheduled(fixedDelayString = "${payment.datasource.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+                try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    replica.lagSeconds = rs.getDouble(1);
+                }
+                healthy = replica.lagSeconds * 1000 <= maxLag.toMillis();
+                if (!healthy && replica.healthy) {
+                    log.warn("Replica {} is {} s behind, over the {} bound", replica.pool.getPoolName(),
+                        replica.lagSeconds, maxLag);
+                }
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.info("Replica {} is now {}", replica.pool.getPoolName(), healthy ? "healthy" : "unhealthy");
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private volatile boolean healthy = true;
+        private volatile double lagSeconds;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.payment.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Switched off where background jobs would distort measurements, e.g. in benchmarks
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "payment.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,24 @@
+package com.example.payment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+public class TomcatConfig {
+
+    // Each open connection holds a read and a write buffer of this size, idle event streams included
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> socketBufferCustomizer(
+        @Value("${payment.server.socket-buffer-size:8KB}") DataSize socketBufferSize
+    ) {
+        String bytes = String.valueOf(socketBufferSize.toBytes());
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            connector.setProperty("socket.appReadBufSize", bytes);
+            connector.setProperty("socket.appWriteBufSize", bytes);
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.payment.controller;
+
+import com.example.payment.service.CardVault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cards")
+public class CardTokenController {
+    private final CardVault cardVault;
+
+    public CardTokenController(CardVault cardVault) {
+        this.cardVault = cardVault;
+    }
+
+    @DeleteMapping("/{token}")
+    public ResponseEntity<Void> revoke(@PathVariable String token) {
+        cardVault.revoke(token);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.payment.controller;
+
+import com.example.payment.dto.BatchPaymentRequest;
+import com.example.payment.dto.BatchPaymentResponse;
+import com.example.payment.service.PaymentBatchService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/payments/batch")
+public class PaymentBatchController {
+    private final PaymentBatchService batchService;
+
+    public PaymentBatchController(PaymentBatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    @PostMapping
+    public ResponseEntity<BatchPaymentResponse> processPayments(@Valid @RequestBody BatchPaymentRequest request) {
+        return ResponseEntity.ok(batchService.processPayments(request.getPayments()));
+    }
+}
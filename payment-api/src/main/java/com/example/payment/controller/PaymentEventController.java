@@ -0,0 +1,33 @@
+package com.example.payment.controller;
+
+import com.example.payment.service.PaymentEventStreams;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/payments")
+public class PaymentEventController {
+    private final PaymentEventStreams eventStreams;
+
+    public PaymentEventController(PaymentEventStreams eventStreams) {
+        this.eventStreams = eventStreams;
+    }
+
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter paymentEvents(@PathVariable String id) {
+        return eventStreams.subscribe(List.of(id));
+    }
+
+    // e.g. all the open charges of a merchant: /api/payments/events?ids=a,b,c
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam List<String> ids) {
+        return eventStreams.subscribe(ids);
+    }
+}
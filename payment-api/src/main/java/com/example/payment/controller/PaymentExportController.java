@@ -0,0 +1,63 @@
+package com.example.payment.controller;
+
+import com.example.payment.domain.enums.ExportFormat;
+import com.example.payment.service.PaymentExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/payments/export")
+public class PaymentExportController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final PaymentExportService exportService;
+
+    public PaymentExportController(PaymentExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+        @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        exportService.reserveSlot();
+        String fileName = "payments." + format.name().toLowerCase() + (gzip ? ".gz" : "");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format == ExportFormat.NDJSON ? NDJSON : CSV)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString());
+
+        if (gzip) {
+            return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024)) {
+                        exportService.export(from, to, format, gzipOut);
+                    } finally {
+                        exportService.releaseSlot();
+                    }
+                });
+        }
+        return response.body(out -> {
+            try {
+                exportService.export(from, to, format, out);
+            } finally {
+                exportService.releaseSlot();
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.payment.controller;
+
+import com.example.payment.dto.PaymentStatisticsResponse;
+import com.example.payment.service.PaymentStatisticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/payments/statistics")
+public class PaymentStatisticsController {
+    private final PaymentStatisticsService statisticsService;
+
+    public PaymentStatisticsController(PaymentStatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    @GetMapping
+    public ResponseEntity<PaymentStatisticsResponse> getStatistics() {
+        return ResponseEntity.ok(statisticsService.getStatistics());
+    }
+}
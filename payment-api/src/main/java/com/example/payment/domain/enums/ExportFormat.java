@@ -0,0 +1,6 @@
+package com.example.payment.domain.enums;
+
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,8 @@
+package com.example.payment.domain.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED,
+    // The request failed after its payment was created; retries resume from the payment
+    FAILED
+}
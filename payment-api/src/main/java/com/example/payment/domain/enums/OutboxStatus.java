@@ -0,0 +1,5 @@
+package com.example.payment.domain.enums;
+
+public enum OutboxStatus {
+    PENDING, IN_FLIGHT, SENT, FAILED
+}
@@ -0,0 +1,7 @@
+package com.example.payment.domain.enums;
+
+public enum PaymentStatus {
+    PENDING, PROCESSING, COMPLETED, FAILED, REFUNDED, EXPIRED,
+    // Refund requested from the acquirer, outcome not yet recorded
+    REFUND_PENDING
+}
\ No newline at end of file
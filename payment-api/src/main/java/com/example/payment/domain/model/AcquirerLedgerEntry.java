@@ -0,0 +1,36 @@
+package com.example.payment.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The simulated acquirer's own record of a payment, keyed by our payment id
+ * as the order reference. Written and read by AcquirerService only; mapped
+ * so that Hibernate maintains the table.
+ */
+@Data
+@Entity
+@Table(
+    name = "acquirer_ledger",
+    indexes = {
+        @Index(name = "idx_acquirer_ledger_authorized_at", columnList = "authorized_at"),
+        @Index(name = "idx_acquirer_ledger_refunded_at", columnList = "refunded_at")
+    }
+)
+public class AcquirerLedgerEntry {
+    @Id
+    @Column(name = "payment_id")
+    private String paymentId;
+
+    private BigDecimal amount;
+    private String authorizationCode;
+    private String transactionId;
+
+    @Column(name = "authorized_at")
+    private LocalDateTime authorizedAt;
+
+    @Column(name = "refunded_at")
+    private LocalDateTime refundedAt;
+}
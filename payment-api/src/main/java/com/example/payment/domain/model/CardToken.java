@@ -0,0 +1,40 @@
+package com.example.payment.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * A saved card. Written and read by CardVault; mapped so that Hibernate
+ * maintains the table.
+ */
+@Data
+@Entity
+@Table(
+    name = "card_tokens",
+    // One token per card; also the conflict target of CardVault's upsert
+    indexes = @Index(name = "idx_card_tokens_card_number_hash", columnList = "card_number_hash", unique = true)
+)
+public class CardToken {
+    @Id
+    private String token;
+
+    @Column(name = "card_number_hash", nullable = false)
+    private String cardNumberHash;
+
+    // AES-GCM: 12-byte IV followed by the ciphertext and tag
+    @Column(name = "encrypted_pan", nullable = false)
+    private byte[] encryptedPan;
+
+    private String cardHolderName;
+    private String lastFourDigits;
+
+    // MM/yy
+    private String expirationDate;
+    private String cardBrand;
+    private String cardIssuer;
+    private String cardCountry;
+    private String cardFunding;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.example.payment.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "cluster_nodes")
+public class ClusterNode {
+    @Id
+    private String nodeId;
+
+    private LocalDateTime heartbeatAt;
+}
@@ -12,7 +12,10 @@ public class CreditCardPayment {
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
     
+    // No foreign key: the primary key of the partitioned payments table also
+    // covers its partition columns, so payments.id alone cannot be referenced
     @OneToOne
+    @JoinColumn(foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Payment payment;
     
     private String cardNumberHash;
@@ -20,9 +23,17 @@ public class CreditCardPayment {
     private Integer installments;
     private String lastFourDigits;
     private String cardBrand;
+    
+    // Resolved from the BIN table; null when the table does not know them
+    private String cardIssuer;
+    private String cardCountry;
+    private String cardFunding;
     private String authorizationCode;
     private String transactionId;
     
     @Column(name = "processed_at")
     private LocalDateTime processedAt;
+
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default false")
+    private boolean archived;
 }
\ No newline at end of file
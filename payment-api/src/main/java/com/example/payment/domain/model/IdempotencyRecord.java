@@ -0,0 +1,39 @@
+package com.example.payment.domain.model;
+
+import com.example.payment.domain.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(
+    name = "idempotency_keys",
+    indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+)
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, to reject a key reused for another request
+    @Column(name = "request_hash", nullable = false)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+
+    // Set in the transaction that creates the payment, so that a retry resumes it instead of creating another
+    @Column(name = "payment_id")
+    private String paymentId;
+
+    // The response once COMPLETED, the error message once FAILED
+    @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
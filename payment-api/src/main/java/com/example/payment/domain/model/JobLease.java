@@ -0,0 +1,28 @@
+package com.example.payment.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(
+    name = "job_leases",
+    indexes = @Index(name = "idx_job_leases_job_owner", columnList = "job_name, lease_owner")
+)
+public class JobLease {
+    // "<job name>#<partition number>"
+    @Id
+    private String id;
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    private LocalDateTime leaseUntil;
+}
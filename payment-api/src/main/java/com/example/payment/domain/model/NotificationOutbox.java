@@ -0,0 +1,51 @@
+package com.example.payment.domain.model;
+
+import com.example.payment.domain.enums.NotificationType;
+import com.example.payment.domain.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(
+    name = "notification_outbox",
+    indexes = @Index(name = "idx_notification_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+)
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    // Plain id rather than an association: rows are delivered outside the writing transaction
+    @Column(name = "payment_id", nullable = false)
+    private String paymentId;
+
+    @Enumerated(EnumType.STRING)
+    private NotificationType type;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status;
+
+    private String message;
+    private String webhookUrl;
+
+    @Column(length = 4000)
+    private String payload;
+
+    private Integer attempts;
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime claimedAt;
+    private LocalDateTime sentAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
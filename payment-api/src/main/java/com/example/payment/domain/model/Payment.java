@@ -9,7 +9,11 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payments_search", columnList = "status, payment_method, created_at, id"),
+    @Index(name = "idx_payments_status", columnList = "status, created_at, id"),
+    @Index(name = "idx_payments_created_at", columnList = "created_at, id")
+})
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -24,8 +28,16 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     private PaymentStatus status;
     
+    private Boolean emailNotification;
+    private Boolean smsNotification;
+    private String webhookUrl;
+    
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    // Set by PaymentArchiveService when the row moves to the archive partitions
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default false")
+    private boolean archived;
     
     @PrePersist
     protected void onCreate() {
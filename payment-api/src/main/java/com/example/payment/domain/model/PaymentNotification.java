@@ -14,6 +14,7 @@ public class PaymentNotification {
     private String id;
     
     @ManyToOne
+    @JoinColumn(foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Payment payment;
     
     @Enumerated(EnumType.STRING)
@@ -24,4 +25,7 @@ public class PaymentNotification {
     private Boolean successful;
     private String errorDetails;
     private String webhookUrl;
+
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default false")
+    private boolean archived;
 }
\ No newline at end of file
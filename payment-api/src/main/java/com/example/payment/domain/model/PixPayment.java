@@ -0,0 +1,42 @@
+package com.example.payment.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(
+    name = "pix_payments",
+    // Partial, over open charges only (paid = false AND expired = false); schema.sql creates it
+    indexes = @Index(name = "idx_pix_payments_partition_expires_at", columnList = "expiry_partition, expires_at")
+)
+public class PixPayment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+    
+    @OneToOne
+    @JoinColumn(foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Payment payment;
+    
+    private String pixKey;
+    private String qrCodeData;
+    private LocalDateTime expiresAt;
+    private String transactionId;
+    private Boolean paid;
+
+    // Set with the payment's EXPIRED status, in the same statement
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean expired;
+    
+    // Partition of the pix-expiry job that owns this charge, see JobCoordinator
+    @Column(name = "expiry_partition")
+    private Integer expiryPartition;
+    
+    @Column(name = "paid_at")
+    private LocalDateTime paidAt;
+
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default false")
+    private boolean archived;
+}
\ No newline at end of file
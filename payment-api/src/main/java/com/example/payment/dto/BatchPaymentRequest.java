@@ -0,0 +1,12 @@
+package com.example.payment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchPaymentRequest {
+    // Items are validated one by one so that an invalid item does not reject the batch
+    @NotEmpty(message = "At least one payment is required")
+    private List<PaymentRequest> payments;
+}
@@ -0,0 +1,13 @@
+package com.example.payment.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@Builder
+public class BatchPaymentResponse {
+    private int accepted;
+    private int rejected;
+    private List<BatchPaymentResult> results;
+}
@@ -0,0 +1,13 @@
+package com.example.payment.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchPaymentResult {
+    // Position of the item in the submitted batch
+    private int index;
+    private PaymentResponse payment;
+    private ErrorResponse error;
+}
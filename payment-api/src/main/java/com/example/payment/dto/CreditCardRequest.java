@@ -0,0 +1,39 @@
+package com.example.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class CreditCardRequest implements PaymentDetails {
+    @Pattern(regexp = "^[0-9]{16}$", message = "Invalid card number format")
+    private String cardNumber;
+    
+    private String cardHolderName;
+    
+    @Pattern(regexp = "^(0[1-9]|1[0-2])/([0-9]{2})$", message = "Invalid expiration date format (MM/YY)")
+    private String expirationDate;
+    
+    @Pattern(regexp = "^[0-9]{3,4}$", message = "Invalid CVV format")
+    private String cvv;
+    
+    // Token of a saved card, sent instead of the card data; the CVV stays optional
+    private String cardToken;
+    
+    private Integer installments = 1;
+    private Boolean saveCard = false;
+
+    @JsonIgnore
+    @AssertTrue(message = "Card number, card holder name, expiration date and CVV are required unless a card token is given")
+    public boolean isCardIdentified() {
+        if (cardToken != null) {
+            return !cardToken.isBlank() && cardNumber == null;
+        }
+        return isPresent(cardNumber) && isPresent(cardHolderName) && isPresent(expirationDate) && isPresent(cvv);
+    }
+
+    private static boolean isPresent(String value) {
+        return value != null && !value.isBlank();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.example.payment.dto;
+
+/**
+ * The method-specific part of a {@link PaymentRequest}. The concrete type is
+ * chosen from the request's paymentMethod while the body is deserialized.
+ */
+public interface PaymentDetails {
+}
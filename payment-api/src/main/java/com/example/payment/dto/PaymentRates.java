@@ -0,0 +1,12 @@
+package com.example.payment.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PaymentRates {
+    // Payments that entered the status during the window
+    private long lastMinute;
+    private long lastHour;
+}
@@ -1,13 +1,15 @@
 package com.example.payment.dto;
 
 import com.example.payment.domain.enums.PaymentMethod;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 import java.math.BigDecimal;
-import java.util.Map;
 
 @Data
 public class PaymentRequest {
@@ -16,14 +18,23 @@ public class PaymentRequest {
     private BigDecimal amount;
     
     @NotBlank(message = "Currency is required")
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Currency must be an ISO 4217 code")
     private String currency;
     
     @NotNull(message = "Payment method is required")
     private PaymentMethod paymentMethod;
     
+    // Deserialized straight into the typed details for the payment method
     @Valid
     @NotNull(message = "Payment details are required")
-    private Map<String, Object> paymentDetails;
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXTERNAL_PROPERTY, property = "paymentMethod", visible = true)
+    @JsonSubTypes({
+        @JsonSubTypes.Type(value = CreditCardRequest.class, name = "CREDIT_CARD"),
+        @JsonSubTypes.Type(value = PixRequest.class, name = "PIX"),
+        // Paid like a PIX charge, through the merchant's reusable QR code
+        @JsonSubTypes.Type(value = PixRequest.class, name = "QR_CODE")
+    })
+    private PaymentDetails paymentDetails;
     
     @Valid
     private NotificationPreferences notificationPreferences;
@@ -0,0 +1,12 @@
+package com.example.payment.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@Builder
+public class PaymentSearchResponse {
+    private List<PaymentResponse> payments;
+    private String nextCursor;
+}
@@ -0,0 +1,14 @@
+package com.example.payment.dto;
+
+import com.example.payment.domain.enums.PaymentStatus;
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class PaymentStatisticsResponse {
+    private List<PaymentTotals> totals;
+    private Map<PaymentStatus, PaymentRates> rates;
+}
@@ -0,0 +1,19 @@
+package com.example.payment.dto;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class PaymentStatusEvent {
+    private String paymentId;
+    private PaymentMethod paymentMethod;
+    private PaymentStatus status;
+    // Null in the first event of a stream, which carries the status at subscription time
+    private PaymentStatus previousStatus;
+    private LocalDateTime occurredAt;
+}
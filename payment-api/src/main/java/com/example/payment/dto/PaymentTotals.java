@@ -0,0 +1,17 @@
+package com.example.payment.dto;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import lombok.Builder;
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class PaymentTotals {
+    private PaymentStatus status;
+    private PaymentMethod paymentMethod;
+    private String currency;
+    private long count;
+    private BigDecimal amount;
+}
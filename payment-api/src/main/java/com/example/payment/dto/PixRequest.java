@@ -5,7 +5,7 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Data
-public class PixRequest {
+public class PixRequest implements PaymentDetails {
     @NotBlank(message = "PIX key is required")
     private String pixKey;
     private LocalDateTime expiresAt;
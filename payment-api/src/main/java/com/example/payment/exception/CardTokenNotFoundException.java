@@ -0,0 +1,7 @@
+package com.example.payment.exception;
+
+public class CardTokenNotFoundException extends PaymentException {
+    public CardTokenNotFoundException(String token) {
+        super("Card token not found: " + token);
+    }
+}
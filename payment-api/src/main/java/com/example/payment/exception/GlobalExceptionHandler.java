@@ -1,8 +1,11 @@
 package com.example.payment.exception;
 
 import com.example.payment.dto.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,6 +14,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.util.HashMap;
 import java.util.Map;
 
+// Content type set explicitly, so errors still reach clients that only accept text/event-stream
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
@@ -18,6 +22,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleValidationException(PaymentValidationException ex) {
         return ResponseEntity
             .badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
             .body(new ErrorResponse(ex.getMessage(), "VALIDATION_ERROR"));
     }
 
@@ -25,6 +30,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleProcessingException(PaymentProcessingException ex) {
         return ResponseEntity
             .status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .contentType(MediaType.APPLICATION_JSON)
             .body(new ErrorResponse(ex.getMessage(), "PROCESSING_ERROR"));
     }
 
@@ -32,6 +38,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleInvalidCreditCardException(InvalidCreditCardException ex) {
         return ResponseEntity
             .badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
             .body(new ErrorResponse(ex.getMessage(), "INVALID_CREDIT_CARD"));
     }
 
@@ -39,16 +46,44 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handlePaymentNotFoundException(PaymentNotFoundException ex) {
         return ResponseEntity
             .status(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_JSON)
             .body(new ErrorResponse(ex.getMessage(), "PAYMENT_NOT_FOUND"));
     }
 
+    @ExceptionHandler(CardTokenNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleCardTokenNotFoundException(CardTokenNotFoundException ex) {
+        return ResponseEntity
+            .status(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(new ErrorResponse(ex.getMessage(), "CARD_TOKEN_NOT_FOUND"));
+    }
+
     @ExceptionHandler(InvalidPaymentStatusException.class)
     public ResponseEntity<ErrorResponse> handleInvalidPaymentStatusException(InvalidPaymentStatusException ex) {
         return ResponseEntity
             .badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
             .body(new ErrorResponse(ex.getMessage(), "INVALID_PAYMENT_STATUS"));
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        return ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(new ErrorResponse(ex.getMessage(), "IDEMPOTENCY_CONFLICT"));
+    }
+
+    @ExceptionHandler(PaymentOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleOverloadedException(PaymentOverloadedException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity
+            .status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(new ErrorResponse(ex.getMessage(), "OVERLOADED"));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -60,13 +95,24 @@ public class GlobalExceptionHandler {
         
         return ResponseEntity
             .badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
             .body(new ErrorResponse("Validation failed", "VALIDATION_ERROR"));
     }
 
+    // Also raised when paymentDetails is missing or paymentMethod has no details type
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleUnreadableMessage(HttpMessageNotReadableException ex) {
+        return ResponseEntity
+            .badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(new ErrorResponse("Malformed request body", "VALIDATION_ERROR"));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         return ResponseEntity
             .status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .contentType(MediaType.APPLICATION_JSON)
             .body(new ErrorResponse("An unexpected error occurred", "INTERNAL_SERVER_ERROR"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.payment.exception;
+
+public class IdempotencyConflictException extends PaymentException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
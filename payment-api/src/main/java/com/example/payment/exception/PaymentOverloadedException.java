@@ -0,0 +1,16 @@
+package com.example.payment.exception;
+
+import java.time.Duration;
+
+public class PaymentOverloadedException extends PaymentException {
+    private final Duration retryAfter;
+
+    public PaymentOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -3,8 +3,12 @@ package com.example.payment.repository;
 import com.example.payment.domain.model.CreditCardPayment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface CreditCardPaymentRepository extends JpaRepository<CreditCardPayment, String> {
     CreditCardPayment findByPaymentId(String paymentId);
+
+    List<CreditCardPayment> findByPaymentIdIn(Collection<String> paymentIds);
 }
\ No newline at end of file
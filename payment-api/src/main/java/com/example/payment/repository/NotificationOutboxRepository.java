@@ -0,0 +1,57 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.model.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, String> {
+
+    /**
+     * Claims due rows, plus rows whose claim lease expired, skipping rows
+     * already locked by another dispatcher.
+     */
+    @Query(value = """
+        UPDATE notification_outbox
+        SET status = 'IN_FLIGHT', claimed_at = :now, attempts = attempts + 1
+        WHERE id IN (
+            SELECT id FROM notification_outbox
+            WHERE (status = 'PENDING' AND next_attempt_at <= :now)
+               OR (status = 'IN_FLIGHT' AND claimed_at < :staleBefore)
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING *
+        """, nativeQuery = true)
+    List<NotificationOutbox> claimBatch(
+        @Param("now") LocalDateTime now,
+        @Param("staleBefore") LocalDateTime staleBefore,
+        @Param("limit") int limit
+    );
+
+    /**
+     * Deletes rows delivered before {@code sentBefore} and rows that used up
+     * their attempts before {@code failedBefore}, dated by their last claim.
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM notification_outbox
+        WHERE id IN (
+            SELECT id FROM notification_outbox
+            WHERE (status = 'SENT' AND sent_at < :sentBefore)
+               OR (status = 'FAILED' AND claimed_at < :failedBefore)
+            LIMIT :limit
+        )
+        """, nativeQuery = true)
+    int purgeFinished(
+        @Param("sentBefore") LocalDateTime sentBefore,
+        @Param("failedBefore") LocalDateTime failedBefore,
+        @Param("limit") int limit
+    );
+}
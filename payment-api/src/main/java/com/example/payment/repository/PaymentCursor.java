@@ -0,0 +1,32 @@
+package com.example.payment.repository;
+
+import com.example.payment.exception.PaymentValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the (created_at, id) ordering of a payment search, exchanged
+ * with clients as an opaque token.
+ */
+public record PaymentCursor(LocalDateTime createdAt, String id) {
+    public static PaymentCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                throw new PaymentValidationException("Invalid search cursor");
+            }
+            return new PaymentCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new PaymentValidationException("Invalid search cursor");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.payment.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface PaymentExportRepository {
+    /**
+     * Streams every payment created in {@code [from, to)}, oldest first,
+     * through a forward-only cursor. Must be consumed and closed inside the
+     * caller's transaction.
+     */
+    Stream<PaymentExportRow> streamForExport(LocalDateTime from, LocalDateTime to, int fetchSize);
+
+    /**
+     * Has PostgreSQL end the session if the caller's transaction sits idle,
+     * between two fetches, for longer than {@code timeout}. Applies until
+     * the transaction ends.
+     */
+    void limitIdleTime(Duration timeout);
+}
@@ -0,0 +1,95 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.model.CreditCardPayment;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.domain.model.PixPayment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Export query. Rows are read as a constructor projection, so nothing is
+ * added to the persistence context and memory stays flat however many rows
+ * are streamed; card and PIX details come from the same statement through
+ * left joins instead of per-row lookups.
+ *
+ * <p>Only the bounds that are given become predicates, as plain comparisons
+ * on created_at, so PostgreSQL can prune the monthly partitions and range
+ * scan created_at under a generic plan too.
+ */
+class PaymentExportRepositoryImpl implements PaymentExportRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<PaymentExportRow> streamForExport(LocalDateTime from, LocalDateTime to, int fetchSize) {
+        HibernateCriteriaBuilder cb = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCriteriaBuilder();
+        JpaCriteriaQuery<PaymentExportRow> query = cb.createQuery(PaymentExportRow.class);
+        JpaRoot<Payment> payment = query.from(Payment.class);
+        JpaEntityJoin<CreditCardPayment> card = payment.join(CreditCardPayment.class, SqmJoinType.LEFT);
+        card.on(cb.equal(card.get("payment"), payment));
+        JpaEntityJoin<PixPayment> pix = payment.join(PixPayment.class, SqmJoinType.LEFT);
+        pix.on(cb.equal(pix.get("payment"), payment));
+        Path<LocalDateTime> createdAt = payment.get("createdAt");
+
+        query.select(cb.construct(
+            PaymentExportRow.class,
+            payment.get("id"),
+            payment.get("paymentMethod"),
+            payment.get("status"),
+            payment.get("amount"),
+            payment.get("currency"),
+            createdAt,
+            payment.get("updatedAt"),
+            card.get("cardBrand"),
+            card.get("cardIssuer"),
+            card.get("cardCountry"),
+            card.get("cardFunding"),
+            card.get("lastFourDigits"),
+            card.get("installments"),
+            card.get("authorizationCode"),
+            pix.get("pixKey"),
+            pix.get("transactionId"),
+            pix.get("expiresAt"),
+            pix.get("paid"),
+            pix.get("paidAt")
+        ));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(createdAt, to));
+        }
+        query.where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.asc(createdAt), cb.asc(payment.get("id")));
+
+        return entityManager.createQuery(query)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    @Override
+    public void limitIdleTime(Duration timeout) {
+        // set_config rather than SET LOCAL, which takes no bind parameters
+        entityManager.createNativeQuery("SELECT set_config('idle_in_transaction_session_timeout', ?1, true)")
+            .setParameter(1, timeout.toMillis() + "ms")
+            .getSingleResult();
+    }
+}
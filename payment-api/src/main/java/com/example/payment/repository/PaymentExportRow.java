@@ -0,0 +1,34 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat export projection of a payment and its card or PIX details. Card and
+ * PIX columns are null for payments of the other method.
+ */
+public record PaymentExportRow(
+    String id,
+    PaymentMethod paymentMethod,
+    PaymentStatus status,
+    BigDecimal amount,
+    String currency,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    String cardBrand,
+    String cardIssuer,
+    String cardCountry,
+    String cardFunding,
+    String lastFourDigits,
+    Integer installments,
+    String authorizationCode,
+    String pixKey,
+    String pixTransactionId,
+    LocalDateTime pixExpiresAt,
+    Boolean pixPaid,
+    LocalDateTime pixPaidAt
+) {
+}
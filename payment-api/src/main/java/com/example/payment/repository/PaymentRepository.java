@@ -0,0 +1,139 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.Payment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, String>, PaymentViewRepository,
+    PaymentExportRepository {
+    /**
+     * Payments in the given status and method that have not been archived.
+     * The archived condition restricts the scan to the live partitions.
+     */
+    @Query("select p from Payment p where p.status = :status and p.paymentMethod = :method and p.archived = false")
+    List<Payment> findByStatusAndPaymentMethod(@Param("status") PaymentStatus status, @Param("method") PaymentMethod method);
+
+    List<Payment> findTop100ByStatusAndArchivedFalseAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+        PaymentStatus status,
+        LocalDateTime updatedBefore
+    );
+
+    List<Payment> findTop100ByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+        PaymentStatus status,
+        LocalDateTime updatedBefore
+    );
+
+    /**
+     * Expires up to {@code limit} PENDING PIX payments of the given expiry
+     * partitions whose deadline has passed, oldest deadline first, in one
+     * set-based statement. Rows created before partitioning have no partition
+     * and are handled by the owner of partition 0. Pending payments are never
+     * archived, so only the live table partitions are scanned. The charges
+     * are closed in the same statement, which takes them out of the partial
+     * index the sweep reads.
+     */
+    @Query(value = """
+        WITH expired AS (
+            UPDATE payments SET status = 'EXPIRED', updated_at = :now
+            WHERE status = 'PENDING' AND id IN (
+                SELECT p.id FROM pix_payments x
+                JOIN payments p ON p.id = x.payment_id
+                WHERE x.expires_at <= :now AND x.paid = false AND x.expired = false AND p.status = 'PENDING'
+                  AND x.archived = false AND p.archived = false
+                  AND (x.expiry_partition IN (:partitions)
+                       OR (x.expiry_partition IS NULL AND :includeUnassigned))
+                ORDER BY x.expires_at
+                LIMIT :limit
+                FOR UPDATE OF p SKIP LOCKED
+            )
+            RETURNING *
+        ), closed AS (
+            UPDATE pix_payments SET expired = true
+            WHERE payment_id IN (SELECT id FROM expired) AND archived = false
+        )
+        SELECT * FROM expired
+        """, nativeQuery = true)
+    List<Payment> expireDuePixPayments(
+        @Param("now") LocalDateTime now,
+        @Param("limit") int limit,
+        @Param("partitions") Collection<Integer> partitions,
+        @Param("includeUnassigned") boolean includeUnassigned
+    );
+
+    @Query(value = """
+        WITH expired AS (
+            UPDATE payments SET status = 'EXPIRED', updated_at = :now
+            WHERE id IN (:ids) AND status = 'PENDING' AND archived = false
+              AND EXISTS (
+                  SELECT 1 FROM pix_payments x
+                  WHERE x.payment_id = payments.id AND x.expires_at <= :now AND x.archived = false
+              )
+            RETURNING *
+        ), closed AS (
+            UPDATE pix_payments SET expired = true
+            WHERE payment_id IN (SELECT id FROM expired) AND archived = false
+        )
+        SELECT * FROM expired
+        """, nativeQuery = true)
+    List<Payment> expirePixPayments(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Moves a payment from {@code from} to {@code to} only if it is still in
+     * {@code from}; returns the updated row, or empty when the condition did
+     * not hold.
+     */
+    @Query(value = """
+        UPDATE payments SET status = :to, updated_at = :now
+        WHERE id = :id AND status = :from
+        RETURNING *
+        """, nativeQuery = true)
+    Optional<Payment> compareAndSetStatus(
+        @Param("id") String id,
+        @Param("from") String from,
+        @Param("to") String to,
+        @Param("now") LocalDateTime now
+    );
+
+    @Query(value = """
+        UPDATE payments SET status = :to, updated_at = :now
+        WHERE id IN (:ids) AND status = :from
+        RETURNING *
+        """, nativeQuery = true)
+    List<Payment> compareAndSetStatuses(
+        @Param("ids") Collection<String> ids,
+        @Param("from") String from,
+        @Param("to") String to,
+        @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Completes a PENDING PIX payment and marks its charge as paid in one
+     * statement; the charge is only touched when the status change wins.
+     */
+    @Query(value = """
+        WITH completed AS (
+            UPDATE payments SET status = 'COMPLETED', updated_at = :now
+            WHERE id = :id AND status = 'PENDING' AND archived = false
+              AND EXISTS (SELECT 1 FROM pix_payments x WHERE x.payment_id = payments.id AND x.archived = false)
+            RETURNING *
+        ), paid AS (
+            UPDATE pix_payments SET paid = true, paid_at = :paidAt
+            WHERE payment_id IN (SELECT id FROM completed) AND archived = false
+        )
+        SELECT * FROM completed
+        """, nativeQuery = true)
+    Optional<Payment> completePixPayment(
+        @Param("id") String id,
+        @Param("paidAt") LocalDateTime paidAt,
+        @Param("now") LocalDateTime now
+    );
+}
@@ -0,0 +1,18 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional payment search filters; null fields are not applied. The date
+ * range is half-open: {@code createdFrom <= created_at < createdTo}.
+ */
+public record PaymentSearchFilter(
+    PaymentStatus status,
+    PaymentMethod method,
+    LocalDateTime createdFrom,
+    LocalDateTime createdTo
+) {
+}
@@ -0,0 +1,29 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read projection of a payment and its card or PIX details, loaded in a
+ * single statement. Card and PIX columns are null for payments of the
+ * other method.
+ */
+public record PaymentView(
+    String id,
+    PaymentMethod paymentMethod,
+    PaymentStatus status,
+    LocalDateTime createdAt,
+    String cardBrand,
+    String lastFourDigits,
+    Integer installments,
+    String authorizationCode,
+    String cardTransactionId,
+    String pixKey,
+    String qrCodeData,
+    String pixTransactionId,
+    LocalDateTime pixExpiresAt,
+    LocalDateTime pixPaidAt
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.payment.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentViewRepository {
+    Optional<PaymentView> findViewById(String id);
+
+    /**
+     * Returns up to {@code limit} payments matching the filter, newest first,
+     * strictly after {@code after} in (created_at, id) order, or from the
+     * start when it is null.
+     */
+    List<PaymentView> search(PaymentSearchFilter filter, PaymentCursor after, int limit);
+}
@@ -0,0 +1,122 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.model.CreditCardPayment;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.domain.model.PixPayment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Payment reads as {@link PaymentView} projections. The card and PIX
+ * details are left joined into the same statement, so a lookup or a whole
+ * search page costs one query, and nothing is added to the persistence
+ * context.
+ *
+ * <p>Search is keyset based, and no count query is issued. Seeking past the
+ * cursor keeps every page as cheap as the first one, since an index serves
+ * the order of each combination of filters: idx_payments_search (status,
+ * payment_method, created_at, id), idx_payments_status (status, created_at,
+ * id) and, with no filter, a date range or the method alone,
+ * idx_payments_created_at (created_at, id).
+ */
+class PaymentViewRepositoryImpl implements PaymentViewRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<PaymentView> findViewById(String id) {
+        HibernateCriteriaBuilder cb = criteriaBuilder();
+        JpaCriteriaQuery<PaymentView> query = cb.createQuery(PaymentView.class);
+        JpaRoot<Payment> payment = select(cb, query);
+        query.where(cb.equal(payment.get("id"), id));
+
+        // A list, since outside a transaction the EntityManager is closed before a stream is read
+        return entityManager.createQuery(query)
+            .getResultList()
+            .stream()
+            .findFirst();
+    }
+
+    @Override
+    public List<PaymentView> search(PaymentSearchFilter filter, PaymentCursor after, int limit) {
+        HibernateCriteriaBuilder cb = criteriaBuilder();
+        JpaCriteriaQuery<PaymentView> query = cb.createQuery(PaymentView.class);
+        JpaRoot<Payment> payment = select(cb, query);
+        Path<LocalDateTime> createdAt = payment.get("createdAt");
+        Path<String> id = payment.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.status() != null) {
+            predicates.add(cb.equal(payment.get("status"), filter.status()));
+        }
+        if (filter.method() != null) {
+            predicates.add(cb.equal(payment.get("paymentMethod"), filter.method()));
+        }
+        if (filter.createdFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            predicates.add(cb.lessThan(createdAt, filter.createdTo()));
+        }
+        if (after != null) {
+            // Implied by the condition below, but only a plain bound lets PostgreSQL skip newer monthly partitions
+            predicates.add(cb.lessThanOrEqualTo(createdAt, after.createdAt()));
+            predicates.add(cb.or(
+                cb.lessThan(createdAt, after.createdAt()),
+                cb.and(cb.equal(createdAt, after.createdAt()), cb.lessThan(id, after.id()))
+            ));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    // From the factory: outside a transaction the shared EntityManager unwraps to an already closed session
+    private HibernateCriteriaBuilder criteriaBuilder() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCriteriaBuilder();
+    }
+
+    private JpaRoot<Payment> select(HibernateCriteriaBuilder cb, JpaCriteriaQuery<PaymentView> query) {
+        JpaRoot<Payment> payment = query.from(Payment.class);
+        JpaEntityJoin<CreditCardPayment> card = payment.join(CreditCardPayment.class, SqmJoinType.LEFT);
+        card.on(cb.equal(card.get("payment"), payment));
+        JpaEntityJoin<PixPayment> pix = payment.join(PixPayment.class, SqmJoinType.LEFT);
+        pix.on(cb.equal(pix.get("payment"), payment));
+
+        query.select(cb.construct(
+            PaymentView.class,
+            payment.get("id"),
+            payment.get("paymentMethod"),
+            payment.get("status"),
+            payment.get("createdAt"),
+            card.get("cardBrand"),
+            card.get("lastFourDigits"),
+            card.get("installments"),
+            card.get("authorizationCode"),
+            card.get("transactionId"),
+            pix.get("pixKey"),
+            pix.get("qrCodeData"),
+            pix.get("transactionId"),
+            pix.get("expiresAt"),
+            pix.get("paidAt")
+        ));
+        return payment;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.payment.repository;
+
+import java.time.LocalDateTime;
+
+public record PixExpiryEntry(String paymentId, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,33 @@
+package com.example.payment.repository;
+
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.PixPayment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PixPaymentRepository extends JpaRepository<PixPayment, String> {
+    Optional<PixPayment> findByPaymentId(String paymentId);
+
+    @Query("""
+        select new com.example.payment.repository.PixExpiryEntry(x.payment.id, x.expiresAt)
+        from PixPayment x
+        where x.payment.status = :status and x.payment.id > :afterPaymentId
+          and x.archived = false and x.payment.archived = false
+          and (x.expiryPartition in :partitions or (x.expiryPartition is null and :includeUnassigned = true))
+        order by x.payment.id
+        """)
+    List<PixExpiryEntry> findExpiryEntries(
+        @Param("status") PaymentStatus status,
+        @Param("afterPaymentId") String afterPaymentId,
+        @Param("partitions") Collection<Integer> partitions,
+        @Param("includeUnassigned") boolean includeUnassigned,
+        Pageable pageable
+    );
+}
\ No newline at end of file
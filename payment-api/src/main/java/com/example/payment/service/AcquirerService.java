@@ -0,0 +1,158 @@
+package com.example.payment.service;
+
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.exception.PaymentProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated acquirer. Calls made here are slow and must never run inside a
+ * database transaction.
+ *
+ * <p>Like a real acquirer it keeps its own record of what it authorized,
+ * keyed by our payment id as the order reference, in acquirer_ledger.
+ * Authorizing the same payment again returns the original authorization
+ * instead of charging twice, and any node can look an authorization up,
+ * including after the node that asked for it crashed. Refunds are recorded
+ * and deduplicated the same way.
+ */
+@Slf4j
+@Service
+public class AcquirerService {
+    // Committed on its own: the acquirer's record does not roll back with ours
+    private static final String AUTHORIZE_SQL = """
+        INSERT INTO acquirer_ledger (payment_id, amount, authorization_code, transaction_id, authorized_at)
+        VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT (payment_id) DO UPDATE SET payment_id = EXCLUDED.payment_id
+        RETURNING authorization_code, transaction_id, authorized_at
+        """;
+    private static final String FIND_SQL = """
+        SELECT authorization_code, transaction_id, authorized_at FROM acquirer_ledger
+        WHERE payment_id = ? AND authorization_code IS NOT NULL
+        """;
+    // PIX payments are refunded through the acquirer without having been authorized by it
+    private static final String REFUND_SQL = """
+        INSERT INTO acquirer_ledger (payment_id, amount, refunded_at)
+        VALUES (?, ?, ?)
+        ON CONFLICT (payment_id) DO UPDATE SET refunded_at = coalesce(acquirer_ledger.refunded_at, EXCLUDED.refunded_at)
+        """;
+    private static final String FIND_REFUND_SQL = """
+        SELECT count(*) FROM acquirer_ledger WHERE payment_id = ? AND refunded_at IS NOT NULL
+        """;
+    // An entry stays while either its authorization or its refund is recent: recovery reads both
+    private static final String PURGE_SQL = """
+        DELETE FROM acquirer_ledger WHERE payment_id IN (
+            SELECT payment_id FROM acquirer_ledger
+            WHERE authorized_at < ? AND (refunded_at IS NULL OR refunded_at < ?)
+               OR authorized_at IS NULL AND refunded_at < ?
+            LIMIT ?
+        )
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCoordinator jobCoordinator;
+    private final boolean simulatedDelay;
+    private final Duration retention;
+
+    public AcquirerService(
+        JdbcTemplate jdbcTemplate,
+        JobCoordinator jobCoordinator,
+        @Value("${payment.acquirer.simulated-delay:true}") boolean simulatedDelay,
+        @Value("${payment.acquirer.ledger-retention:30d}") Duration retention
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobCoordinator = jobCoordinator;
+        this.simulatedDelay = simulatedDelay;
+        this.retention = retention;
+    }
+
+    public AuthorizationResult authorize(String paymentId, BigDecimal amount, CreditCardRequest cardDetails) {
+        simulateProcessingDelay();
+
+        return jdbcTemplate.queryForObject(AUTHORIZE_SQL, AcquirerService::authorization,
+            paymentId,
+            amount,
+            generateAuthorizationCode(),
+            UUID.randomUUID().toString(),
+            Timestamp.valueOf(LocalDateTime.now())
+        );
+    }
+
+    /**
+     * Refunds a payment. Refunding it again is accepted without refunding
+     * twice.
+     */
+    public void refund(String paymentId, BigDecimal amount) {
+        simulateProcessingDelay();
+
+        jdbcTemplate.update(REFUND_SQL, paymentId, amount, Timestamp.valueOf(LocalDateTime.now()));
+        log.debug("Refund of {} accepted for payment {}", amount, paymentId);
+    }
+
+    /**
+     * Whether the acquirer refunded a payment.
+     */
+    public boolean isRefunded(String paymentId) {
+        return jdbcTemplate.queryForObject(FIND_REFUND_SQL, Integer.class, paymentId) > 0;
+    }
+
+    /**
+     * The authorization the acquirer holds for a payment, if it authorized
+     * it at all.
+     */
+    public Optional<AuthorizationResult> findAuthorization(String paymentId) {
+        List<AuthorizationResult> authorizations = jdbcTemplate.query(FIND_SQL, AcquirerService::authorization, paymentId);
+        return authorizations.stream().findFirst();
+    }
+
+    // Stands in for the acquirer's own retention; the recovery job only needs recent entries
+    @Scheduled(fixedDelayString = "${payment.recovery.interval-ms:60000}")
+    public void purgeLedger() {
+        if (!jobCoordinator.isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int purged;
+        do {
+            purged = jdbcTemplate.update(PURGE_SQL, cutoff, cutoff, cutoff, 1000);
+        } while (purged > 0);
+    }
+
+    private static AuthorizationResult authorization(ResultSet rs, int rowNum) throws SQLException {
+        return new AuthorizationResult(
+            rs.getString("authorization_code"),
+            rs.getString("transaction_id"),
+            rs.getTimestamp("authorized_at").toLocalDateTime()
+        );
+    }
+
+    private void simulateProcessingDelay() {
+        if (!simulatedDelay) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(100, 1000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentProcessingException("Payment processing interrupted");
+        }
+    }
+
+    private String generateAuthorizationCode() {
+        return UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.payment.service;
+
+import java.time.LocalDateTime;
+
+public record AuthorizationResult(
+    String authorizationCode,
+    String transactionId,
+    LocalDateTime authorizedAt
+) {
+}
@@ -0,0 +1,9 @@
+package com.example.payment.service;
+
+/**
+ * Card attributes resolved from the BIN table. Issuer, country and funding
+ * are null when the table does not provide them.
+ */
+public record BinInfo(String brand, String issuer, String country, String funding) {
+    public static final BinInfo UNKNOWN = new BinInfo("UNKNOWN", null, null, null);
+}
@@ -0,0 +1,83 @@
+package com.example.payment.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Resolves card brand, issuer, country and funding from a {@link BinTable}.
+ * The table is read from {@code payment.bin.table-path} when set, otherwise
+ * from the brand-level table bundled with the application. A changed file is
+ * loaded in the background and swapped in atomically, so lookups never wait
+ * for a reload; a file that fails to parse leaves the current table in place.
+ */
+@Slf4j
+@Service
+public class BinLookupService {
+    private static final String BUNDLED_TABLE = "bins/default-bins.csv";
+
+    private final Path tablePath;
+    private volatile BinTable table;
+    private volatile FileTime loadedModifiedTime;
+
+    public BinLookupService(
+        MeterRegistry meterRegistry,
+        @Value("${payment.bin.table-path:}") String tablePath
+    ) throws IOException {
+        this.tablePath = tablePath.isBlank() ? null : Path.of(tablePath);
+        if (this.tablePath == null) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(BUNDLED_TABLE).getInputStream(), StandardCharsets.UTF_8
+            ))) {
+                table = BinTable.parse(reader);
+            }
+        } else {
+            loadFile();
+        }
+        log.info("Loaded BIN table with {} ranges from {}", table.size(), this.tablePath != null ? this.tablePath : BUNDLED_TABLE);
+
+        Gauge.builder("payment.bin.ranges", this, service -> service.table.size())
+            .description("Ranges in the active BIN table")
+            .register(meterRegistry);
+    }
+
+    // The table's shared instance; nothing is allocated per lookup
+    public BinInfo lookup(String cardNumber) {
+        return table.lookup(cardNumber);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.bin.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (tablePath == null) {
+            return;
+        }
+        try {
+            if (!Files.getLastModifiedTime(tablePath).equals(loadedModifiedTime)) {
+                loadFile();
+                log.info("Reloaded BIN table with {} ranges from {}", table.size(), tablePath);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to reload BIN table from {}, keeping the current one", tablePath, e);
+        }
+    }
+
+    private void loadFile() throws IOException {
+        FileTime modifiedTime = Files.getLastModifiedTime(tablePath);
+        try (BufferedReader reader = Files.newBufferedReader(tablePath, StandardCharsets.UTF_8)) {
+            table = BinTable.parse(reader);
+        }
+        loadedModifiedTime = modifiedTime;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.payment.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Immutable BIN/IIN range table. Ranges are flattened at load time into
+ * disjoint segments over the first {@value #KEY_DIGITS} card digits, where
+ * the narrowest source range wins wherever ranges overlap, and stored as
+ * fixed-size records in an off-heap buffer sorted by their lower bound.
+ * Each record points at a {@link BinInfo} built once at load time and
+ * shared by every segment with the same attributes. {@link #lookup} is a
+ * binary search over that buffer that returns the shared instance, so it
+ * allocates nothing.
+ *
+ * <p>Input lines are {@code low,high,brand,issuer,country,funding}. Bounds
+ * are digit prefixes of up to eight digits ({@code 4} to {@code 4} covers
+ * every card starting with 4); the other columns may be empty. Blank lines
+ * and lines starting with {@code #} are ignored.
+ */
+public final class BinTable {
+    static final int KEY_DIGITS = 8;
+
+    // low:int, high:int, info:int
+    private static final int RECORD_SIZE = 12;
+    private static final int HIGH_OFFSET = 4;
+    private static final int INFO_OFFSET = 8;
+
+    private final ByteBuffer records;
+    private final int size;
+    private final BinInfo[] infos;
+
+    private BinTable(ByteBuffer records, int size, BinInfo[] infos) {
+        this.records = records;
+        this.size = size;
+        this.infos = infos;
+    }
+
+    public static BinTable empty() {
+        return new BinTable(ByteBuffer.allocateDirect(0), 0, new BinInfo[0]);
+    }
+
+    /**
+     * Attributes of the card number's BIN, or {@link BinInfo#UNKNOWN} when
+     * no range matches or the number is too short.
+     */
+    public BinInfo lookup(CharSequence cardNumber) {
+        int record = find(cardNumber);
+        return record < 0 ? BinInfo.UNKNOWN : infos[records.getInt(record * RECORD_SIZE + INFO_OFFSET)];
+    }
+
+    /**
+     * Record index of the segment containing the card number's BIN, or -1
+     * when no range matches or the number is too short.
+     */
+    int find(CharSequence cardNumber) {
+        int key = keyOf(cardNumber);
+        if (key < 0) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int base = mid * RECORD_SIZE;
+            if (records.getInt(base) > key) {
+                high = mid - 1;
+            } else if (records.getInt(base + HIGH_OFFSET) < key) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static BinTable parse(BufferedReader reader) throws IOException {
+        Dictionary brands = new Dictionary();
+        Dictionary issuers = new Dictionary();
+        Dictionary countries = new Dictionary();
+        Dictionary fundings = new Dictionary();
+
+        List<Range> ranges = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split(",", -1);
+            if (columns.length != 6) {
+                throw new IOException("Line " + lineNumber + ": expected 6 columns but found " + columns.length);
+            }
+            int low = bound(columns[0], '0', lineNumber);
+            int high = bound(columns[1], '9', lineNumber);
+            if (low > high) {
+                throw new IOException("Line " + lineNumber + ": range start is after its end");
+            }
+            ranges.add(new Range(
+                low,
+                high,
+                ranges.size(),
+                brands.id(columns[2]),
+                issuers.id(columns[3]),
+                countries.id(columns[4]),
+                fundings.id(columns[5])
+            ));
+        }
+
+        List<Range> segments = flatten(ranges);
+        String[] brandValues = brands.values();
+        String[] issuerValues = issuers.values();
+        String[] countryValues = countries.values();
+        String[] fundingValues = fundings.values();
+        Map<BinInfo, Integer> infoIds = new HashMap<>();
+        List<BinInfo> infos = new ArrayList<>();
+        ByteBuffer records = ByteBuffer.allocateDirect(segments.size() * RECORD_SIZE);
+        for (Range segment : segments) {
+            BinInfo info = new BinInfo(
+                brandValues[segment.brand()],
+                issuerValues[segment.issuer()],
+                countryValues[segment.country()],
+                fundingValues[segment.funding()]
+            );
+            Integer infoId = infoIds.get(info);
+            if (infoId == null) {
+                infoId = infos.size();
+                infoIds.put(info, infoId);
+                infos.add(info);
+            }
+            records.putInt(segment.low());
+            records.putInt(segment.high());
+            records.putInt(infoId);
+        }
+        return new BinTable(records.asReadOnlyBuffer(), segments.size(), infos.toArray(new BinInfo[0]));
+    }
+
+    /**
+     * Splits overlapping ranges into disjoint segments, each taken from the
+     * narrowest range that covers it (the later one on a tie).
+     */
+    private static List<Range> flatten(List<Range> ranges) {
+        TreeSet<Long> boundaries = new TreeSet<>();
+        for (Range range : ranges) {
+            boundaries.add((long) range.low());
+            boundaries.add((long) range.high() + 1);
+        }
+
+        List<Range> byLow = new ArrayList<>(ranges);
+        byLow.sort(Comparator.comparingInt(Range::low));
+        PriorityQueue<Range> active = new PriorityQueue<>(
+            Comparator.comparingLong(Range::width).thenComparing(Comparator.comparingInt(Range::order).reversed())
+        );
+
+        List<Range> segments = new ArrayList<>();
+        int next = 0;
+        Long start = boundaries.isEmpty() ? null : boundaries.first();
+        while (start != null) {
+            Long end = boundaries.higher(start);
+            if (end == null) {
+                break;
+            }
+            while (next < byLow.size() && byLow.get(next).low() <= start) {
+                active.add(byLow.get(next++));
+            }
+            while (!active.isEmpty() && active.peek().high() < start) {
+                active.poll();
+            }
+            if (!active.isEmpty()) {
+                Range winner = active.peek();
+                Range last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (last != null && last.order() == winner.order() && last.high() + 1 == start) {
+                    segments.set(segments.size() - 1, last.withHigh((int) (end - 1)));
+                } else {
+                    segments.add(winner.segment(start.intValue(), (int) (end - 1)));
+                }
+            }
+            start = end;
+        }
+        return segments;
+    }
+
+    private static int bound(String prefix, char fill, int lineNumber) throws IOException {
+        String digits = prefix.strip();
+        if (digits.isEmpty() || digits.length() > KEY_DIGITS || !digits.chars().allMatch(Character::isDigit)) {
+            throw new IOException("Line " + lineNumber + ": invalid BIN prefix '" + prefix + "'");
+        }
+        return Integer.parseInt(digits + String.valueOf(fill).repeat(KEY_DIGITS - digits.length()));
+    }
+
+    private static int keyOf(CharSequence cardNumber) {
+        if (cardNumber == null || cardNumber.length() < KEY_DIGITS) {
+            return -1;
+        }
+        int key = 0;
+        for (int i = 0; i < KEY_DIGITS; i++) {
+            int digit = cardNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            key = key * 10 + digit;
+        }
+        return key;
+    }
+
+    private record Range(int low, int high, int order, int brand, int issuer, int country, int funding) {
+        long width() {
+            return (long) high - low;
+        }
+
+        Range segment(int low, int high) {
+            return new Range(low, high, order, brand, issuer, country, funding);
+        }
+
+        Range withHigh(int high) {
+            return segment(low, high);
+        }
+    }
+
+    // Id 0 is reserved for a missing value
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new LinkedHashMap<>();
+
+        private Dictionary() {
+            ids.put("", 0);
+        }
+
+        int id(String value) {
+            Integer id = ids.get(value.strip());
+            if (id == null) {
+                id = ids.size();
+                ids.put(value.strip(), id);
+            }
+            return id;
+        }
+
+        String[] values() {
+            String[] values = ids.keySet().toArray(new String[0]);
+            values[0] = null;
+            return values;
+        }
+    }
+}
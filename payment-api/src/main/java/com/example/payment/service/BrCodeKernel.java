@@ -0,0 +1,263 @@
+package com.example.payment.service;
+
+import com.example.payment.exception.PaymentValidationException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+
+/**
+ * EMV BR Code payloads of PIX charges (the "copia e cola" text behind the
+ * QR code), as laid out in the Banco Central do Brasil's BR Code manual.
+ * Fields are TLV encoded (two-digit id, two-digit length, value) straight
+ * into a pooled buffer, and the payload is closed by a table-driven
+ * CRC16-CCITT of everything before it, so for ASCII input the resulting
+ * string is the only allocation. The CRC is taken four bytes at a time
+ * (slicing-by-4), since one table lookup per byte leaves it bound by the
+ * latency of the lookup chain.
+ *
+ * <p>Text is reduced to printable ASCII (accents are dropped) and cut to the
+ * length each field allows; the description gets whatever room the PIX key
+ * leaves in the merchant account template.
+ */
+public final class BrCodeKernel {
+    public static final int MAX_PIX_KEY_LENGTH = 77;
+    private static final String PIX_GUI = "br.gov.bcb.pix";
+    private static final String NO_TXID = "***";
+    private static final int MAX_TEMPLATE_LENGTH = 99;
+    private static final int MAX_AMOUNT_LENGTH = 13;
+    private static final int MAX_MERCHANT_NAME_LENGTH = 25;
+    private static final int MAX_MERCHANT_CITY_LENGTH = 15;
+    private static final int MAX_TXID_LENGTH = 25;
+    private static final int MAX_PAYLOAD_LENGTH = 256;
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    // CRC_TABLES[k][b]: the CRC register after byte b followed by k zero bytes
+    private static final char[][] CRC_TABLES = crcTables();
+
+    private static final ScratchPool<byte[]> SCRATCH = new ScratchPool<>(() -> new byte[MAX_PAYLOAD_LENGTH]);
+
+    private BrCodeKernel() {
+    }
+
+    /**
+     * {@code value} as payloads carry it: São Paulo becomes Sao Paulo, and
+     * anything else outside printable ASCII is dropped.
+     */
+    public static String ascii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7E) {
+                return toAscii(value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Payload paying {@code amount} to {@code pixKey}. A null amount lets the
+     * payer choose it, and a null or empty txid encodes none. Reusable codes
+     * (e.g. printed at a counter) omit the point of initiation; the others
+     * are marked for a single payment.
+     */
+    public static String encode(
+        String merchantName,
+        String merchantCity,
+        String pixKey,
+        String description,
+        BigDecimal amount,
+        String txid,
+        boolean reusable
+    ) {
+        byte[] buf = SCRATCH.acquire();
+        try {
+            return encode(buf, merchantName, merchantCity, pixKey, description, amount, txid, reusable);
+        } finally {
+            SCRATCH.release(buf);
+        }
+    }
+
+    private static String encode(
+        byte[] buf,
+        String merchantName,
+        String merchantCity,
+        String pixKey,
+        String description,
+        BigDecimal amount,
+        String txid,
+        boolean reusable
+    ) {
+        int pos = field(buf, 0, 0, "01");
+        if (!reusable) {
+            pos = field(buf, pos, 1, "12");
+        }
+
+        int merchantAccount = pos;
+        pos += 4;
+        pos = field(buf, pos, 0, PIX_GUI);
+        pos = textField(buf, pos, 1, pixKey, MAX_PIX_KEY_LENGTH);
+        if (description != null) {
+            int room = MAX_TEMPLATE_LENGTH - (pos - merchantAccount - 4) - 4;
+            if (room > 0) {
+                pos = textField(buf, pos, 2, description, room);
+            }
+        }
+        pos = closeTemplate(buf, merchantAccount, 26, pos);
+
+        pos = field(buf, pos, 52, "0000");
+        pos = field(buf, pos, 53, "986");
+        if (amount != null) {
+            pos = amountField(buf, pos, amount);
+        }
+        pos = field(buf, pos, 58, "BR");
+        pos = textField(buf, pos, 59, merchantName, MAX_MERCHANT_NAME_LENGTH);
+        pos = textField(buf, pos, 60, merchantCity, MAX_MERCHANT_CITY_LENGTH);
+
+        int additionalData = pos;
+        pos += 4;
+        int txidStart = pos;
+        if (txid != null) {
+            pos = txidField(buf, pos, txid);
+        }
+        if (pos == txidStart) {
+            pos = field(buf, pos, 5, NO_TXID);
+        }
+        pos = closeTemplate(buf, additionalData, 62, pos);
+
+        // The CRC covers its own id and length
+        pos = header(buf, pos, 63, 4);
+        int crc = crc16(buf, pos);
+        buf[pos++] = HEX_DIGITS[(crc >>> 12) & 0x0F];
+        buf[pos++] = HEX_DIGITS[(crc >>> 8) & 0x0F];
+        buf[pos++] = HEX_DIGITS[(crc >>> 4) & 0x0F];
+        buf[pos++] = HEX_DIGITS[crc & 0x0F];
+        return new String(buf, 0, pos, StandardCharsets.US_ASCII);
+    }
+
+    // Callers pass constants, which are ASCII and within length
+    private static int field(byte[] buf, int pos, int id, String value) {
+        pos = header(buf, pos, id, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buf[pos++] = (byte) value.charAt(i);
+        }
+        return pos;
+    }
+
+    // Writes nothing when no character survives
+    private static int textField(byte[] buf, int pos, int id, String value, int maxLength) {
+        String ascii = ascii(value);
+        int length = Math.min(ascii.length(), maxLength);
+        if (length == 0) {
+            return pos;
+        }
+        pos = header(buf, pos, id, length);
+        for (int i = 0; i < length; i++) {
+            buf[pos++] = (byte) ascii.charAt(i);
+        }
+        return pos;
+    }
+
+    // The txid only admits letters and digits; others are skipped
+    private static int txidField(byte[] buf, int pos, String txid) {
+        int start = pos;
+        pos += 4;
+        for (int i = 0; i < txid.length() && pos - start - 4 < MAX_TXID_LENGTH; i++) {
+            char c = txid.charAt(i);
+            if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                buf[pos++] = (byte) c;
+            }
+        }
+        if (pos == start + 4) {
+            return start;
+        }
+        header(buf, start, 5, pos - start - 4);
+        return pos;
+    }
+
+    private static int amountField(byte[] buf, int pos, BigDecimal amount) {
+        long cents = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        long units = cents / 100;
+        int digits = 1;
+        for (long n = units; n >= 10; n /= 10) {
+            digits++;
+        }
+        int length = digits + 3;
+        if (length > MAX_AMOUNT_LENGTH) {
+            throw new PaymentValidationException("Amount is too large for a PIX charge");
+        }
+
+        pos = header(buf, pos, 54, length);
+        for (int i = digits - 1; i >= 0; i--) {
+            buf[pos + i] = (byte) ('0' + units % 10);
+            units /= 10;
+        }
+        pos += digits;
+        int fraction = (int) (cents % 100);
+        buf[pos++] = '.';
+        buf[pos++] = (byte) ('0' + fraction / 10);
+        buf[pos++] = (byte) ('0' + fraction % 10);
+        return pos;
+    }
+
+    private static int closeTemplate(byte[] buf, int start, int id, int end) {
+        header(buf, start, id, end - start - 4);
+        return end;
+    }
+
+    private static int header(byte[] buf, int pos, int id, int length) {
+        buf[pos++] = (byte) ('0' + id / 10);
+        buf[pos++] = (byte) ('0' + id % 10);
+        buf[pos++] = (byte) ('0' + length / 10);
+        buf[pos++] = (byte) ('0' + length % 10);
+        return pos;
+    }
+
+    // CRC16-CCITT-FALSE: polynomial 0x1021, initial value 0xFFFF, no reflection or final XOR
+    private static int crc16(byte[] data, int length) {
+        char[] t0 = CRC_TABLES[0];
+        char[] t1 = CRC_TABLES[1];
+        char[] t2 = CRC_TABLES[2];
+        char[] t3 = CRC_TABLES[3];
+        int crc = 0xFFFF;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            // The register only overlaps the first two bytes; the other two index their tables directly
+            int x = crc ^ ((data[i] & 0xFF) << 8 | (data[i + 1] & 0xFF));
+            crc = t3[x >>> 8] ^ t2[x & 0xFF] ^ t1[data[i + 2] & 0xFF] ^ t0[data[i + 3] & 0xFF];
+        }
+        for (; i < length; i++) {
+            crc = ((crc << 8) ^ t0[((crc >>> 8) ^ data[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    private static char[][] crcTables() {
+        char[][] tables = new char[4][256];
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            tables[0][i] = (char) crc;
+        }
+        for (int k = 1; k < tables.length; k++) {
+            for (int i = 0; i < 256; i++) {
+                int crc = tables[k - 1][i];
+                tables[k][i] = (char) ((crc << 8) ^ tables[0][crc >>> 8]);
+            }
+        }
+        return tables;
+    }
+
+    private static String toAscii(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder ascii = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c >= 0x20 && c <= 0x7E) {
+                ascii.append(c);
+            }
+        }
+        return ascii.toString();
+    }
+}
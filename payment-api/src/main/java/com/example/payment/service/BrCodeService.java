@@ -0,0 +1,39 @@
+package com.example.payment.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * BR Codes of the merchant configured in {@code payment.pix.merchant-*}.
+ * PIX charges get a single-use code and QR code payments a static
+ * (reusable) one. Both carry the payment's txid, which the payer's bank
+ * reports with the transfer, so every transfer can be matched to the one
+ * payment it pays even when several open payments share key and amount.
+ *
+ * <p>The txid is the payment id without its dashes, cut to the 25
+ * characters a txid may have.
+ */
+@Component
+public class BrCodeService {
+    private final String merchantName;
+    private final String merchantCity;
+
+    public BrCodeService(
+        @Value("${payment.pix.merchant-name:Payment API}") String merchantName,
+        @Value("${payment.pix.merchant-city:Sao Paulo}") String merchantCity
+    ) {
+        // Reduced once here rather than on every payload
+        this.merchantName = BrCodeKernel.ascii(merchantName);
+        this.merchantCity = BrCodeKernel.ascii(merchantCity);
+    }
+
+    public String chargeCode(String paymentId, String pixKey, BigDecimal amount, String description) {
+        return BrCodeKernel.encode(merchantName, merchantCity, pixKey, description, amount, paymentId, false);
+    }
+
+    public String staticCode(String paymentId, String pixKey, BigDecimal amount, String description) {
+        return BrCodeKernel.encode(merchantName, merchantCity, pixKey, description, amount, paymentId, true);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.payment.service;
+
+import com.example.payment.exception.PaymentProcessingException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Card number and expiry routines for the payment hot path. They work on the
+ * characters directly: validation allocates nothing, and hashing reuses
+ * pooled digests and buffers so that the resulting string is its only
+ * allocation, on platform and virtual threads alike.
+ */
+public final class CardDataKernel {
+    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final int SHA_256_LENGTH = 32;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ScratchPool<HashScratch> SCRATCH = new ScratchPool<>(HashScratch::new);
+
+    private CardDataKernel() {
+    }
+
+    /**
+     * True for a 16-digit number that passes the Luhn check.
+     */
+    public static boolean isValidCardNumber(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() != CARD_NUMBER_LENGTH) {
+            return false;
+        }
+
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = cardNumber.length() - 1; i >= 0; i--) {
+            int n = cardNumber.charAt(i) - '0';
+            if (n < 0 || n > 9) {
+                return false;
+            }
+            if (alternate) {
+                n *= 2;
+                if (n > 9) {
+                    n -= 9;
+                }
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * True when an {@code MM/yy} expiry is well formed and not before the
+     * given month (years are taken as 20yy).
+     */
+    public static boolean isValidExpiry(String expirationDate, int currentYear, int currentMonth) {
+        if (expirationDate == null || expirationDate.length() != 5 || expirationDate.charAt(2) != '/') {
+            return false;
+        }
+        int month = twoDigits(expirationDate, 0);
+        int year = twoDigits(expirationDate, 3);
+        if (month < 1 || month > 12 || year < 0) {
+            return false;
+        }
+        year += 2000;
+        return year > currentYear || (year == currentYear && month >= currentMonth);
+    }
+
+    /**
+     * Lower-case hex SHA-256 of the UTF-8 bytes of {@code value}.
+     */
+    public static String sha256Hex(String value) {
+        HashScratch scratch = SCRATCH.acquire();
+        try {
+            return sha256Hex(value, scratch);
+        } finally {
+            SCRATCH.release(scratch);
+        }
+    }
+
+    private static String sha256Hex(String value, HashScratch scratch) {
+        MessageDigest digest = scratch.digest;
+        digest.reset();
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0x7F) {
+                // Not a card number; take the general path
+                digest.reset();
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+            digest.update((byte) c);
+        }
+
+        try {
+            digest.digest(scratch.hash, 0, SHA_256_LENGTH);
+        } catch (DigestException e) {
+            throw new PaymentProcessingException("Failed to hash card number", e);
+        }
+
+        char[] hex = scratch.hex;
+        for (int i = 0; i < SHA_256_LENGTH; i++) {
+            int b = scratch.hash[i] & 0xFF;
+            hex[i * 2] = HEX_DIGITS[b >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
+        }
+        return new String(hex);
+    }
+
+    private static int twoDigits(String value, int offset) {
+        int tens = value.charAt(offset) - '0';
+        int units = value.charAt(offset + 1) - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+            return -1;
+        }
+        return tens * 10 + units;
+    }
+
+    private static final class HashScratch {
+        private final MessageDigest digest;
+        private final byte[] hash = new byte[SHA_256_LENGTH];
+        private final char[] hex = new char[SHA_256_LENGTH * 2];
+
+        private HashScratch() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.payment.service;
+
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.exception.CardTokenNotFoundException;
+import com.example.payment.exception.InvalidCreditCardException;
+import com.example.payment.exception.PaymentProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Saved cards (card on file). A card paid with {@code saveCard} gets a
+ * token, one per card number hash, and its number is stored encrypted with
+ * AES-GCM under {@code payment.vault.encryption-key}. Later payments send
+ * the token instead of the card: brand, last four digits and expiry come
+ * from an in-memory index of the tokens, so the card number is never
+ * parsed, Luhn checked or hashed again. It is only decrypted for the
+ * acquirer.
+ *
+ * <p>Index entries are dropped when a token is updated or revoked on this
+ * node or, through {@link PaymentStatusBroadcaster}, on any other node.
+ */
+@Service
+public class CardVault {
+    static final String CHANNEL = "card_tokens";
+
+    private static final String SAVE_SQL = """
+        INSERT INTO card_tokens (token, card_number_hash, encrypted_pan, card_holder_name, last_four_digits,
+            expiration_date, card_brand, card_issuer, card_country, card_funding, created_at, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (card_number_hash) DO UPDATE SET
+            encrypted_pan = EXCLUDED.encrypted_pan,
+            card_holder_name = EXCLUDED.card_holder_name,
+            expiration_date = EXCLUDED.expiration_date,
+            updated_at = EXCLUDED.updated_at
+        RETURNING token
+        """;
+    private static final String FIND_SQL = """
+        SELECT token, card_number_hash, encrypted_pan, card_holder_name, last_four_digits, expiration_date,
+            card_brand, card_issuer, card_country, card_funding
+        FROM card_tokens WHERE token = ?
+        """;
+    private static final String REVOKE_SQL = """
+        DELETE FROM card_tokens WHERE token = ?
+        """;
+    // Delivered to the other nodes when the transaction commits
+    private static final String NOTIFY_SQL = """
+        SELECT pg_notify(?, ?)
+        """;
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final String HMAC = "HmacSHA256";
+    private static final byte[] FINGERPRINT_KEY_LABEL = "payment fingerprint".getBytes(StandardCharsets.US_ASCII);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BinLookupService binLookupService;
+    private final SecretKeySpec key;
+    private final SecretKeySpec fingerprintKey;
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, PaymentCard> index;
+
+    public CardVault(
+        JdbcTemplate jdbcTemplate,
+        BinLookupService binLookupService,
+        MeterRegistry meterRegistry,
+        @Value("${payment.vault.encryption-key:}") String encryptionKey,
+        @Value("${payment.vault.index-max-size:1000000}") long indexMaxSize,
+        @Value("${payment.vault.index-ttl:24h}") Duration indexTtl
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.binLookupService = binLookupService;
+
+        // There is deliberately no default key: a node without one must not start
+        if (encryptionKey.isBlank()) {
+            throw new IllegalStateException("payment.vault.encryption-key is not set; provide it through PAYMENT_VAULT_KEY or the secrets directory");
+        }
+        byte[] keyBytes = Base64.getDecoder().decode(encryptionKey);
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalArgumentException("payment.vault.encryption-key must be a Base64 AES key of 128, 192 or 256 bits");
+        }
+        this.key = new SecretKeySpec(keyBytes, "AES");
+        // Derived rather than configured, so there is no second secret to manage
+        this.fingerprintKey = new SecretKeySpec(hmac(new SecretKeySpec(keyBytes, HMAC), FINGERPRINT_KEY_LABEL), HMAC);
+
+        this.index = Caffeine.newBuilder()
+            .maximumSize(indexMaxSize)
+            .expireAfterWrite(indexTtl)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "card-tokens");
+    }
+
+    /**
+     * Keyed fingerprint of data that may carry card details, HMAC-SHA256
+     * under a key derived from the vault key. Unlike a plain digest it
+     * cannot be matched against guessed card numbers without that key.
+     */
+    public String fingerprint(byte[] data) {
+        return HexFormat.of().formatHex(hmac(fingerprintKey, data));
+    }
+
+    /**
+     * The card of a payment request: the saved card of its token, or the
+     * card number hashed and looked up in the BIN table. Fails with
+     * {@link InvalidCreditCardException} for an unknown or revoked token,
+     * or a saved card that has expired.
+     */
+    public PaymentCard resolve(CreditCardRequest cardDetails) {
+        String token = cardDetails.getCardToken();
+        if (token == null) {
+            String cardNumber = cardDetails.getCardNumber();
+            return new PaymentCard(
+                null,
+                CardDataKernel.sha256Hex(cardNumber),
+                cardDetails.getCardHolderName(),
+                cardNumber.substring(cardNumber.length() - 4),
+                cardDetails.getExpirationDate(),
+                binLookupService.lookup(cardNumber),
+                null
+            );
+        }
+
+        // A null from the loader is not cached, so a token saved on another node is found on first use
+        PaymentCard card = index.get(token, this::load);
+        if (card == null) {
+            throw new InvalidCreditCardException("Unknown or revoked card token");
+        }
+        YearMonth now = YearMonth.now();
+        if (!CardDataKernel.isValidExpiry(card.expirationDate(), now.getYear(), now.getMonthValue())) {
+            throw new InvalidCreditCardException("Card has expired");
+        }
+        return card;
+    }
+
+    /**
+     * The card details to authorize with. For a saved card that is the
+     * decrypted card number with the holder and expiry on file, plus the
+     * installments and CVV (if any) of the request.
+     */
+    public CreditCardRequest acquirerDetails(PaymentCard card, CreditCardRequest cardDetails) {
+        if (card.token() == null) {
+            return cardDetails;
+        }
+        CreditCardRequest details = new CreditCardRequest();
+        details.setCardNumber(decrypt(card.encryptedPan(), card.cardNumberHash()));
+        details.setCardHolderName(card.cardHolderName());
+        details.setExpirationDate(card.expirationDate());
+        details.setCvv(cardDetails.getCvv());
+        details.setInstallments(cardDetails.getInstallments());
+        return details;
+    }
+
+    /**
+     * Saves the card of a paid request and returns its token. Saving a card
+     * that already has one keeps the token and updates the holder, expiry
+     * and encrypted number.
+     */
+    @Transactional
+    public String save(CreditCardRequest cardDetails, PaymentCard card) {
+        LocalDateTime now = LocalDateTime.now();
+        String token = jdbcTemplate.queryForObject(SAVE_SQL, String.class,
+            UUID.randomUUID().toString(),
+            card.cardNumberHash(),
+            encrypt(cardDetails.getCardNumber(), card.cardNumberHash()),
+            card.cardHolderName(),
+            card.lastFourDigits(),
+            card.expirationDate(),
+            card.bin().brand(),
+            card.bin().issuer(),
+            card.bin().country(),
+            card.bin().funding(),
+            Timestamp.valueOf(now),
+            Timestamp.valueOf(now)
+        );
+        notifyChanged(token);
+        index.invalidate(token);
+        return token;
+    }
+
+    /**
+     * Deletes a saved card, number included. Payments with its token fail
+     * from then on, on this node at once and on the others as soon as the
+     * notification arrives.
+     */
+    @Transactional
+    public void revoke(String token) {
+        if (jdbcTemplate.update(REVOKE_SQL, token) == 0) {
+            throw new CardTokenNotFoundException(token);
+        }
+        notifyChanged(token);
+        index.invalidate(token);
+    }
+
+    @EventListener
+    public void onRemoteCardTokenChanged(RemoteCardTokenChangedEvent event) {
+        index.invalidate(event.token());
+    }
+
+    @EventListener
+    public void onRemoteStatusChanged(RemotePaymentStatusChangedEvent event) {
+        // Revocations may have been missed as well
+        if (event.isMissedChanges()) {
+            index.invalidateAll();
+        }
+    }
+
+    private PaymentCard load(String token) {
+        List<PaymentCard> cards = jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new PaymentCard(
+            rs.getString("token"),
+            rs.getString("card_number_hash"),
+            rs.getString("card_holder_name"),
+            rs.getString("last_four_digits"),
+            rs.getString("expiration_date"),
+            new BinInfo(
+                rs.getString("card_brand"),
+                rs.getString("card_issuer"),
+                rs.getString("card_country"),
+                rs.getString("card_funding")
+            ),
+            rs.getBytes("encrypted_pan")
+        ), token);
+        return cards.isEmpty() ? null : cards.get(0);
+    }
+
+    private void notifyChanged(String token) {
+        jdbcTemplate.query(NOTIFY_SQL, rs -> { }, CHANNEL, token);
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new PaymentProcessingException("Failed to fingerprint data", e);
+        }
+    }
+
+    // The card number hash is authenticated with the ciphertext, which ties it to its row
+    private byte[] encrypt(String cardNumber, String cardNumberHash) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(cardNumberHash.getBytes(StandardCharsets.US_ASCII));
+            byte[] ciphertext = cipher.doFinal(cardNumber.getBytes(StandardCharsets.US_ASCII));
+            return ByteBuffer.allocate(IV_LENGTH + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new PaymentProcessingException("Failed to encrypt card number", e);
+        }
+    }
+
+    private String decrypt(byte[] encryptedPan, String cardNumberHash) {
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, encryptedPan, 0, IV_LENGTH));
+            cipher.updateAAD(cardNumberHash.getBytes(StandardCharsets.US_ASCII));
+            byte[] cardNumber = cipher.doFinal(encryptedPan, IV_LENGTH, encryptedPan.length - IV_LENGTH);
+            return new String(cardNumber, StandardCharsets.US_ASCII);
+        } catch (GeneralSecurityException e) {
+            // Wrong key, or a row that was tampered with
+            throw new PaymentProcessingException("Failed to decrypt saved card", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.payment.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the latency of the calls it admits, in
+ * the style of the gradient limiter of Netflix's concurrency-limits. Call
+ * times are averaged over short windows, and the fastest window seen stands
+ * for the latency without queueing. While the latest window is slower than
+ * that (beyond a tolerance), the limit shrinks in proportion; otherwise it
+ * grows by a queue allowance of sqrt(limit). The limit only moves when at
+ * least half of it was in use during the window, so that a lightly loaded
+ * service does not drift up to the maximum.
+ *
+ * <p>The no-load latency is forgotten every {@code PROBE_WINDOWS} windows,
+ * and the limit halved, so that it is measured again after the latency of a
+ * dependency has permanently changed.
+ */
+class GradientConcurrencyLimiter {
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int PROBE_WINDOWS = 600;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final long MIN_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private double noLoadRtt = Double.MAX_VALUE;
+    private long windows;
+
+    GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        sample(rttNanos, inFlightBefore, System.nanoTime());
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightBefore, long now) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+        if (windowSamples < MIN_WINDOW_SAMPLES || now - windowStart < MIN_WINDOW_NANOS) {
+            return;
+        }
+
+        double shortRtt = (double) windowRttSum / windowSamples;
+        boolean saturated = windowMaxInFlight >= limit / 2;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        if (++windows % PROBE_WINDOWS == 0) {
+            noLoadRtt = shortRtt;
+            limit = Math.max(minLimit, limit / 2);
+            return;
+        }
+        noLoadRtt = Math.min(noLoadRtt, shortRtt);
+        if (!saturated) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * noLoadRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.payment.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical timing wheel of keys with millisecond deadlines. Level 0 has
+ * {@code wheelSize} slots of one tick each; every level above it is
+ * {@code wheelSize} times coarser and cascades its slot into the lower levels
+ * when that slot's interval starts. Scheduling and cancelling are O(1), and
+ * keys fire at most one tick after their deadline. Deadlines beyond the top
+ * level are parked in its furthest slot and re-placed when it cascades.
+ */
+public class HierarchicalTimingWheel {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] widths;
+    private final List<String>[][] buckets;
+    private final Map<String, Long> deadlines = new HashMap<>();
+    private final List<String> overdue = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTime;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.widths = new long[levels];
+        this.buckets = new List[levels][wheelSize];
+        this.currentTime = startMillis - (startMillis % tickMillis);
+
+        long width = tickMillis;
+        for (int level = 0; level < levels; level++) {
+            widths[level] = width;
+            width *= wheelSize;
+        }
+    }
+
+    public void schedule(String key, long deadlineMillis) {
+        lock.lock();
+        try {
+            deadlines.put(key, deadlineMillis);
+            place(key, deadlineMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(String key) {
+        lock.lock();
+        try {
+            // Bucket entries are dropped lazily when their slot is processed
+            deadlines.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns the keys whose
+     * deadline has passed. Returned keys are no longer tracked.
+     */
+    public List<String> advance(long nowMillis) {
+        lock.lock();
+        try {
+            List<String> due = new ArrayList<>();
+            while (currentTime + tickMillis <= nowMillis) {
+                currentTime += tickMillis;
+                for (int level = widths.length - 1; level > 0; level--) {
+                    if (currentTime % widths[level] == 0) {
+                        cascade(level, currentTime / widths[level]);
+                    }
+                }
+                fire(currentTime / tickMillis - 1, due);
+            }
+            for (String key : overdue) {
+                if (deadlines.remove(key) != null) {
+                    due.add(key);
+                }
+            }
+            overdue.clear();
+            return due;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return deadlines.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void place(String key, long deadline) {
+        if (deadline < currentTime) {
+            overdue.add(key);
+            return;
+        }
+        for (int level = 0; level < widths.length; level++) {
+            long slot = deadline / widths[level];
+            long current = currentTime / widths[level];
+            // Above level 0 the current slot has already cascaded, so it must go lower
+            if (slot - current < wheelSize && (level == 0 || slot > current)) {
+                bucket(level, slot).add(key);
+                return;
+            }
+        }
+        int top = widths.length - 1;
+        bucket(top, currentTime / widths[top] + wheelSize - 1).add(key);
+    }
+
+    private void cascade(int level, long slot) {
+        for (String key : take(level, slot)) {
+            Long deadline = deadlines.get(key);
+            if (deadline != null) {
+                place(key, deadline);
+            }
+        }
+    }
+
+    private void fire(long slot, List<String> due) {
+        for (String key : take(0, slot)) {
+            Long deadline = deadlines.get(key);
+            if (deadline == null) {
+                continue;
+            }
+            if (deadline < currentTime) {
+                deadlines.remove(key);
+                due.add(key);
+            } else {
+                // Rescheduled to a later deadline after it was placed here
+                place(key, deadline);
+            }
+        }
+    }
+
+    private List<String> bucket(int level, long slot) {
+        int index = (int) (slot % wheelSize);
+        List<String> bucket = buckets[level][index];
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets[level][index] = bucket;
+        }
+        return bucket;
+    }
+
+    private List<String> take(int level, long slot) {
+        int index = (int) (slot % wheelSize);
+        List<String> bucket = buckets[level][index];
+        buckets[level][index] = null;
+        return bucket != null ? bucket : List.of();
+    }
+}
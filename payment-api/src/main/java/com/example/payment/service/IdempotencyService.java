@@ -0,0 +1,310 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.IdempotencyStatus;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.exception.IdempotencyConflictException;
+import com.example.payment.exception.PaymentProcessingException;
+import com.example.payment.exception.PaymentValidationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Makes payment creation safe to retry under a client-supplied key. A
+ * duplicate arriving on the same node while the first request is running
+ * waits for its result; the idempotency_keys row claims the key across nodes
+ * and keeps the response for replays until it expires.
+ *
+ * <p>The transaction that creates the payment also binds the key to it
+ * ({@link #bind}). From then on the key is never released: a request that
+ * fails is recorded as FAILED, and a retry, or a node taking over a claim
+ * left behind by a crash, resumes the bound payment from its status
+ * instead of creating and charging another one. Only a request that failed
+ * before creating its payment releases the key, since nothing was done.
+ *
+ * <p>A key is tied to its request by a fingerprint kept in the row. It
+ * leaves out the CVV, takes the card number's hash in place of the number
+ * and is keyed by {@link CardVault#fingerprint}, so the table holds nothing
+ * that card data could be recovered or confirmed from.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String CLAIM_SQL = """
+        INSERT INTO idempotency_keys (idempotency_key, request_hash, status, created_at, expires_at)
+        VALUES (?, ?, 'IN_PROGRESS', ?, ?)
+        ON CONFLICT (idempotency_key) DO NOTHING
+        """;
+    // A stale claim, or a failed request that bound its payment
+    private static final String TAKE_OVER_SQL = """
+        UPDATE idempotency_keys SET status = 'IN_PROGRESS', created_at = ?, expires_at = ?
+        WHERE idempotency_key = ? AND request_hash = ?
+          AND (status = 'IN_PROGRESS' AND created_at < ? OR status = 'FAILED')
+        RETURNING payment_id
+        """;
+    private static final String BIND_SQL = """
+        UPDATE idempotency_keys SET payment_id = ?
+        WHERE idempotency_key = ? AND status = 'IN_PROGRESS' AND payment_id IS NULL
+        """;
+    private static final String COMPLETE_SQL = """
+        UPDATE idempotency_keys SET status = 'COMPLETED', response_body = ?
+        WHERE idempotency_key = ?
+        """;
+    private static final String FAIL_SQL = """
+        UPDATE idempotency_keys SET status = 'FAILED', response_body = ?
+        WHERE idempotency_key = ? AND status = 'IN_PROGRESS' AND payment_id IS NOT NULL
+        """;
+    private static final String RELEASE_SQL = """
+        DELETE FROM idempotency_keys WHERE idempotency_key = ? AND status = 'IN_PROGRESS' AND payment_id IS NULL
+        """;
+    private static final String FIND_SQL = """
+        SELECT request_hash, status, response_body FROM idempotency_keys WHERE idempotency_key = ?
+        """;
+    private static final String PURGE_SQL = """
+        DELETE FROM idempotency_keys WHERE idempotency_key IN (
+            SELECT idempotency_key FROM idempotency_keys WHERE expires_at < ? LIMIT ?
+        )
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final JobCoordinator jobCoordinator;
+    private final CardVault cardVault;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final Duration waitTimeout;
+
+    public IdempotencyService(
+        JdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper,
+        JobCoordinator jobCoordinator,
+        CardVault cardVault,
+        @Value("${payment.idempotency.ttl:24h}") Duration ttl,
+        @Value("${payment.idempotency.in-progress-timeout:5m}") Duration inProgressTimeout,
+        @Value("${payment.idempotency.wait-timeout:30s}") Duration waitTimeout
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.jobCoordinator = jobCoordinator;
+        this.cardVault = cardVault;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * Runs {@code action} at most once per key: returns the stored response
+     * of a completed request, waits for a concurrent one on this node, or
+     * claims the key and runs the action. The action must {@link #bind} the
+     * key when it creates its payment; a later attempt at the same key then
+     * calls {@code resume} with that payment's id instead.
+     */
+    public PaymentResponse execute(
+        String key,
+        PaymentRequest request,
+        Supplier<PaymentResponse> action,
+        Function<String, PaymentResponse> resume
+    ) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new PaymentValidationException("Idempotency key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request);
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            return await(running.result());
+        }
+
+        try {
+            PaymentResponse response = claimAndRun(key, requestHash, action, resume);
+            mine.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Binds a claimed key to the payment created for it. Must run in the
+     * transaction that inserts the payment, so that the payment exists if
+     * and only if the key points to it. Fails, rolling the payment back, if
+     * another attempt at the key bound its own payment first.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bind(String key, String paymentId) {
+        if (jdbcTemplate.update(BIND_SQL, paymentId, key) == 0) {
+            throw new IdempotencyConflictException("A request with this idempotency key is still being processed");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!jobCoordinator.isLeader(JobCoordinator.IDEMPOTENCY_CLEANUP_JOB)) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int purged;
+        do {
+            purged = jdbcTemplate.update(PURGE_SQL, now, 1000);
+        } while (purged > 0);
+    }
+
+    private PaymentResponse claimAndRun(
+        String key,
+        String requestHash,
+        Supplier<PaymentResponse> action,
+        Function<String, PaymentResponse> resume
+    ) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean claimed = jdbcTemplate.update(
+            CLAIM_SQL, key, requestHash, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl))
+        ) == 1;
+        if (claimed) {
+            return run(key, action);
+        }
+
+        StoredKey stored = find(key);
+        if (stored == null) {
+            // Released or purged between the insert and the lookup
+            return claimAndRun(key, requestHash, action, resume);
+        }
+        checkSameRequest(stored.requestHash(), requestHash);
+        if (stored.status() == IdempotencyStatus.COMPLETED) {
+            return read(stored.responseBody());
+        }
+        // A failed request, or a claim a crashed node left behind once it times out
+        List<String> taken = jdbcTemplate.queryForList(
+            TAKE_OVER_SQL, String.class,
+            Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)),
+            key, requestHash, Timestamp.valueOf(now.minus(inProgressTimeout))
+        );
+        if (taken.isEmpty()) {
+            throw new IdempotencyConflictException("A request with this idempotency key is still being processed");
+        }
+        String paymentId = taken.get(0);
+        if (paymentId == null) {
+            log.warn("Took over stale idempotency key {}", key);
+            return run(key, action);
+        }
+        log.info("Resuming payment {} of idempotency key {}", paymentId, key);
+        return run(key, () -> resume.apply(paymentId));
+    }
+
+    private PaymentResponse run(String key, Supplier<PaymentResponse> action) {
+        PaymentResponse response;
+        try {
+            response = action.get();
+        } catch (IdempotencyConflictException e) {
+            // Another attempt bound the key first and owns it now
+            throw e;
+        } catch (RuntimeException e) {
+            // Recorded if the payment was created, released if not
+            if (jdbcTemplate.update(FAIL_SQL, String.valueOf(e.getMessage()), key) == 0) {
+                jdbcTemplate.update(RELEASE_SQL, key);
+            }
+            throw e;
+        }
+        jdbcTemplate.update(COMPLETE_SQL, write(response), key);
+        return response;
+    }
+
+    private StoredKey find(String key) {
+        List<StoredKey> rows = jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new StoredKey(
+            rs.getString("request_hash"),
+            IdempotencyStatus.valueOf(rs.getString("status")),
+            rs.getString("response_body")
+        ), key);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private PaymentResponse await(CompletableFuture<PaymentResponse> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new PaymentProcessingException("Payment processing failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this idempotency key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentProcessingException("Interrupted while waiting for a concurrent request", e);
+        }
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency key was already used for a different request");
+        }
+    }
+
+    private String hash(PaymentRequest request) {
+        ObjectNode canonical = objectMapper.valueToTree(request);
+        if (canonical.get("paymentDetails") instanceof ObjectNode details) {
+            details.remove("cvv");
+            JsonNode cardNumber = details.remove("cardNumber");
+            if (cardNumber != null && cardNumber.isTextual()) {
+                details.put("cardNumberHash", CardDataKernel.sha256Hex(cardNumber.asText()));
+            }
+        }
+        try {
+            return cardVault.fingerprint(objectMapper.writeValueAsBytes(canonical));
+        } catch (JsonProcessingException e) {
+            throw new PaymentProcessingException("Could not fingerprint payment request", e);
+        }
+    }
+
+    private String write(PaymentResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new PaymentProcessingException("Could not store idempotent response", e);
+        }
+    }
+
+    private PaymentResponse read(String responseBody) {
+        try {
+            return objectMapper.readValue(responseBody, PaymentResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new PaymentProcessingException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<PaymentResponse> result) {
+    }
+
+    private record StoredKey(String requestHash, IdempotencyStatus status, String responseBody) {
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.payment.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Splits scheduled work between the running instances. Every job has a fixed
+ * number of partitions backed by rows in job_leases; each node heartbeats in
+ * cluster_nodes, keeps renewing the leases it holds and claims or releases
+ * partitions until it owns its fair share. Leases of a dead node expire and
+ * are claimed by the survivors.
+ */
+@Slf4j
+@Service
+public class JobCoordinator {
+    public static final String PIX_EXPIRY_JOB = "pix-expiry";
+    public static final String PAYMENT_RECOVERY_JOB = "payment-recovery";
+    public static final String OUTBOX_MAINTENANCE_JOB = "outbox-maintenance";
+    public static final String IDEMPOTENCY_CLEANUP_JOB = "idempotency-cleanup";
+    public static final String PAYMENT_ARCHIVE_JOB = "payment-archive";
+
+    private static final String UPSERT_NODE_SQL = """
+        INSERT INTO cluster_nodes (node_id, heartbeat_at) VALUES (?, localtimestamp)
+        ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = localtimestamp
+        """;
+    private static final String DELETE_DEAD_NODES_SQL = """
+        DELETE FROM cluster_nodes WHERE heartbeat_at < localtimestamp - (? * interval '1 millisecond')
+        """;
+    private static final String COUNT_LIVE_NODES_SQL = """
+        SELECT count(*) FROM cluster_nodes WHERE heartbeat_at > localtimestamp - (? * interval '1 millisecond')
+        """;
+    private static final String ENSURE_PARTITIONS_SQL = """
+        INSERT INTO job_leases (id, job_name, partition_no)
+        SELECT CAST(? AS text) || '#' || n, ?, n FROM generate_series(0, ? - 1) AS n
+        ON CONFLICT (id) DO NOTHING
+        """;
+    private static final String RENEW_SQL = """
+        UPDATE job_leases SET lease_until = localtimestamp + (? * interval '1 millisecond')
+        WHERE job_name = ? AND lease_owner = ?
+        RETURNING partition_no
+        """;
+    private static final String CLAIM_SQL = """
+        UPDATE job_leases SET lease_owner = ?, lease_until = localtimestamp + (? * interval '1 millisecond')
+        WHERE id IN (
+            SELECT id FROM job_leases
+            WHERE job_name = ? AND (lease_owner IS NULL OR lease_until < localtimestamp)
+            ORDER BY partition_no
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING partition_no
+        """;
+    private static final String RELEASE_SQL = """
+        UPDATE job_leases SET lease_owner = NULL, lease_until = NULL
+        WHERE job_name = ? AND partition_no = ? AND lease_owner = ?
+        """;
+    private static final String RELEASE_ALL_SQL = """
+        UPDATE job_leases SET lease_owner = NULL, lease_until = NULL WHERE lease_owner = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, Integer> jobs = new LinkedHashMap<>();
+    private final Map<String, Set<Integer>> owned = new ConcurrentHashMap<>();
+    private final String nodeId;
+    private final Duration leaseTtl;
+    private volatile long leaseValidUntilNanos;
+
+    public JobCoordinator(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${payment.cluster.lease-ttl:30s}") Duration leaseTtl,
+        @Value("${payment.cluster.pix-expiry-partitions:16}") int pixExpiryPartitions
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.leaseTtl = leaseTtl;
+        this.nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        jobs.put(PIX_EXPIRY_JOB, pixExpiryPartitions);
+        jobs.put(PAYMENT_RECOVERY_JOB, 1);
+        jobs.put(OUTBOX_MAINTENANCE_JOB, 1);
+        jobs.put(IDEMPOTENCY_CLEANUP_JOB, 1);
+        jobs.put(PAYMENT_ARCHIVE_JOB, 1);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int partitionCount(String jobName) {
+        return jobs.get(jobName);
+    }
+
+    public int partitionOf(String jobName, String key) {
+        return Math.floorMod(key.hashCode(), partitionCount(jobName));
+    }
+
+    /**
+     * Partitions this node may work on right now. Empty once the last
+     * successful renewal is older than the lease TTL, since another node may
+     * have taken them over by then.
+     */
+    public Set<Integer> ownedPartitions(String jobName) {
+        if (System.nanoTime() - leaseValidUntilNanos >= 0) {
+            return Set.of();
+        }
+        return owned.getOrDefault(jobName, Set.of());
+    }
+
+    public boolean isLeader(String jobName) {
+        return ownedPartitions(jobName).contains(0);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        long startedAt = System.nanoTime();
+        try {
+            Map<String, Set<Integer>> assignment = transactionTemplate.execute(status -> rebalance());
+            leaseValidUntilNanos = startedAt + leaseTtl.toNanos();
+            assignment.forEach(this::applyAssignment);
+        } catch (RuntimeException e) {
+            log.error("Cluster heartbeat failed for node {}", nodeId, e);
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        try {
+            jdbcTemplate.update(RELEASE_ALL_SQL, nodeId);
+            jdbcTemplate.update("DELETE FROM cluster_nodes WHERE node_id = ?", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release job leases of node {}", nodeId, e);
+        }
+    }
+
+    private Map<String, Set<Integer>> rebalance() {
+        long ttlMillis = leaseTtl.toMillis();
+        jdbcTemplate.update(UPSERT_NODE_SQL, nodeId);
+        jdbcTemplate.update(DELETE_DEAD_NODES_SQL, ttlMillis * 10);
+        Integer liveNodes = jdbcTemplate.queryForObject(COUNT_LIVE_NODES_SQL, Integer.class, ttlMillis);
+
+        Map<String, Set<Integer>> assignment = new HashMap<>();
+        jobs.forEach((jobName, partitions) -> {
+            jdbcTemplate.update(ENSURE_PARTITIONS_SQL, jobName, jobName, partitions);
+
+            Set<Integer> mine = new TreeSet<>(jdbcTemplate.queryForList(RENEW_SQL, Integer.class, ttlMillis, jobName, nodeId));
+            int target = (partitions + Math.max(1, liveNodes) - 1) / Math.max(1, liveNodes);
+
+            if (mine.size() > target) {
+                // Hand the surplus back so that newly joined nodes can claim it
+                List<Integer> surplus = List.copyOf(mine).subList(target, mine.size());
+                for (Integer partition : surplus) {
+                    jdbcTemplate.update(RELEASE_SQL, jobName, partition, nodeId);
+                }
+                mine.removeAll(surplus);
+            } else if (mine.size() < target) {
+                mine.addAll(jdbcTemplate.queryForList(
+                    CLAIM_SQL, Integer.class, nodeId, ttlMillis, jobName, target - mine.size()
+                ));
+            }
+            assignment.put(jobName, Set.copyOf(mine));
+        });
+        return assignment;
+    }
+
+    private void applyAssignment(String jobName, Set<Integer> current) {
+        Set<Integer> previous = owned.getOrDefault(jobName, Set.of());
+        if (previous.equals(current)) {
+            return;
+        }
+        owned.put(jobName, current);
+
+        Set<Integer> assigned = new HashSet<>(current);
+        assigned.removeAll(previous);
+        Set<Integer> revoked = new HashSet<>(previous);
+        revoked.removeAll(current);
+
+        log.info("Node {} now owns partitions {} of job {}", nodeId, new TreeSet<>(current), jobName);
+        eventPublisher.publishEvent(new JobPartitionsChangedEvent(jobName, Set.copyOf(assigned), Set.copyOf(revoked)));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
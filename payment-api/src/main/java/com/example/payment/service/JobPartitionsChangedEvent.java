@@ -0,0 +1,6 @@
+package com.example.payment.service;
+
+import java.util.Set;
+
+public record JobPartitionsChangedEvent(String jobName, Set<Integer> assigned, Set<Integer> revoked) {
+}
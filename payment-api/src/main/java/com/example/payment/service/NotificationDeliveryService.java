@@ -0,0 +1,51 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.model.NotificationOutbox;
+import com.example.payment.exception.PaymentProcessingException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Channel senders used by {@link NotificationDispatcher}. Each method either
+ * returns the delivery message or throws.
+ */
+@Service
+public class NotificationDeliveryService {
+    private final WebhookDeliveryService webhookDeliveryService;
+
+    public NotificationDeliveryService(WebhookDeliveryService webhookDeliveryService) {
+        this.webhookDeliveryService = webhookDeliveryService;
+    }
+
+    public String deliver(NotificationOutbox notification) {
+        return switch (notification.getType()) {
+            case EMAIL -> sendEmail(notification);
+            case SMS -> sendSms(notification);
+            case WEBHOOK -> sendWebhook(notification);
+        };
+    }
+
+    private String sendEmail(NotificationOutbox notification) {
+        // Simulate email sending
+        simulateDelivery();
+        return "Email notification sent successfully";
+    }
+
+    private String sendSms(NotificationOutbox notification) {
+        // Simulate SMS sending
+        simulateDelivery();
+        return "SMS notification sent successfully";
+    }
+
+    private String sendWebhook(NotificationOutbox notification) {
+        return webhookDeliveryService.deliver(notification.getWebhookUrl(), notification.getPayload());
+    }
+
+    private void simulateDelivery() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentProcessingException("Notification delivery interrupted");
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.OutboxStatus;
+import com.example.payment.domain.model.NotificationOutbox;
+import com.example.payment.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers outbox rows. Rows are claimed in batches with FOR UPDATE SKIP
+ * LOCKED so several nodes can dispatch concurrently, delivered with bounded
+ * parallelism outside any transaction, and their results written back in a
+ * single batched transaction.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+    private static final String UPDATE_RESULT_SQL = """
+        UPDATE notification_outbox
+        SET status = ?, next_attempt_at = ?, sent_at = ?, last_error = ?
+        WHERE id = ? AND status = 'IN_FLIGHT'
+        """;
+    private static final String INSERT_HISTORY_SQL = """
+        INSERT INTO payment_notifications
+            (id, payment_id, type, message, sent_at, successful, error_details, webhook_url)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    private static final String BACKLOG_SQL = """
+        SELECT count(*) AS depth, min(created_at) AS oldest
+        FROM notification_outbox
+        WHERE status IN ('PENDING', 'IN_FLIGHT')
+        """;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationDeliveryService deliveryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final JobCoordinator jobCoordinator;
+    private final Semaphore permits;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration leaseTimeout;
+    private final Duration retention;
+    private final Duration failedRetention;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public NotificationDispatcher(
+        NotificationOutboxRepository outboxRepository,
+        NotificationDeliveryService deliveryService,
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        @Qualifier("taskExecutor") Executor executor,
+        MeterRegistry meterRegistry,
+        JobCoordinator jobCoordinator,
+        @Value("${payment.outbox.batch-size:100}") int batchSize,
+        @Value("${payment.outbox.parallelism:8}") int parallelism,
+        @Value("${payment.outbox.max-attempts:8}") int maxAttempts,
+        @Value("${payment.outbox.base-backoff:5s}") Duration baseBackoff,
+        @Value("${payment.outbox.max-backoff:1h}") Duration maxBackoff,
+        @Value("${payment.outbox.lease-timeout:5m}") Duration leaseTimeout,
+        @Value("${payment.outbox.retention:7d}") Duration retention,
+        @Value("${payment.outbox.failed-retention:30d}") Duration failedRetention
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.deliveryService = deliveryService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.jobCoordinator = jobCoordinator;
+        this.permits = new Semaphore(parallelism);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.leaseTimeout = leaseTimeout;
+        this.retention = retention;
+        this.failedRetention = failedRetention;
+
+        Gauge.builder("payment.outbox.depth", queueDepth, AtomicLong::get)
+            .description("Notifications waiting for delivery")
+            .register(meterRegistry);
+        Gauge.builder("payment.outbox.lag", lagSeconds, AtomicLong::get)
+            .description("Age of the oldest undelivered notification")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        List<NotificationOutbox> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                recordResults(deliverAll(batch));
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.metrics-interval-ms:15000}")
+    public void refreshMetrics() {
+        jdbcTemplate.query(BACKLOG_SQL, rs -> {
+            queueDepth.set(rs.getLong("depth"));
+            Timestamp oldest = rs.getTimestamp("oldest");
+            lagSeconds.set(oldest == null
+                ? 0
+                : Math.max(0, Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toSeconds()));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.purge-interval-ms:3600000}")
+    public void purgeFinished() {
+        if (!jobCoordinator.isLeader(JobCoordinator.OUTBOX_MAINTENANCE_JOB)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime sentBefore = now.minus(retention);
+        LocalDateTime failedBefore = now.minus(failedRetention);
+        int purged;
+        do {
+            purged = transactionTemplate.execute(status ->
+                outboxRepository.purgeFinished(sentBefore, failedBefore, batchSize * 10)
+            );
+        } while (purged > 0);
+    }
+
+    private List<NotificationOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status ->
+            outboxRepository.claimBatch(now, now.minus(leaseTimeout), batchSize)
+        );
+    }
+
+    private List<DeliveryResult> deliverAll(List<NotificationOutbox> batch) {
+        List<CompletableFuture<DeliveryResult>> futures = new ArrayList<>(batch.size());
+        for (NotificationOutbox notification : batch) {
+            permits.acquireUninterruptibly();
+            try {
+                futures.add(CompletableFuture
+                    .supplyAsync(() -> deliver(notification), executor)
+                    .whenComplete((result, error) -> permits.release()));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                futures.add(CompletableFuture.completedFuture(DeliveryResult.failure(notification, e)));
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private DeliveryResult deliver(NotificationOutbox notification) {
+        try {
+            return DeliveryResult.success(notification, deliveryService.deliver(notification));
+        } catch (RuntimeException e) {
+            log.warn("Failed to deliver {} notification {} for payment {}: {}",
+                notification.getType(), notification.getId(), notification.getPaymentId(), e.getMessage());
+            return DeliveryResult.failure(notification, e);
+        }
+    }
+
+    private void recordResults(List<DeliveryResult> results) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_RESULT_SQL, results, results.size(), (ps, result) -> {
+                OutboxStatus outcome = outcomeOf(result);
+                ps.setString(1, outcome.name());
+                ps.setTimestamp(2, outcome == OutboxStatus.PENDING
+                    ? Timestamp.valueOf(now.plus(backoff(result.notification().getAttempts())))
+                    : null);
+                ps.setTimestamp(3, result.successful() ? Timestamp.valueOf(result.completedAt()) : null);
+                ps.setString(4, result.error());
+                ps.setString(5, result.notification().getId());
+            });
+            jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, results, results.size(), (ps, result) -> {
+                NotificationOutbox notification = result.notification();
+                ps.setString(1, UUID.randomUUID().toString());
+                ps.setString(2, notification.getPaymentId());
+                ps.setString(3, notification.getType().name());
+                ps.setString(4, result.successful() ? result.message() : notification.getMessage());
+                ps.setTimestamp(5, Timestamp.valueOf(result.completedAt()));
+                ps.setBoolean(6, result.successful());
+                ps.setString(7, result.error());
+                ps.setString(8, notification.getWebhookUrl());
+            });
+        });
+
+        for (DeliveryResult result : results) {
+            meterRegistry.counter("payment.outbox.deliveries",
+                "type", result.notification().getType().name(),
+                "outcome", outcomeOf(result).name()
+            ).increment();
+        }
+    }
+
+    private OutboxStatus outcomeOf(DeliveryResult result) {
+        if (result.successful()) {
+            return OutboxStatus.SENT;
+        }
+        return result.notification().getAttempts() >= maxAttempts ? OutboxStatus.FAILED : OutboxStatus.PENDING;
+    }
+
+    private Duration backoff(int attempts) {
+        long exponential = baseBackoff.toMillis() << Math.min(Math.max(attempts - 1, 0), 20);
+        long capped = Math.min(exponential, maxBackoff.toMillis());
+        // Up to 20% jitter so retries of a failed batch do not arrive together
+        return Duration.ofMillis(capped + ThreadLocalRandom.current().nextLong(capped / 5 + 1));
+    }
+
+    private record DeliveryResult(
+        NotificationOutbox notification,
+        boolean successful,
+        String message,
+        String error,
+        LocalDateTime completedAt
+    ) {
+        static DeliveryResult success(NotificationOutbox notification, String message) {
+            return new DeliveryResult(notification, true, message, null, LocalDateTime.now());
+        }
+
+        static DeliveryResult failure(NotificationOutbox notification, Exception error) {
+            return new DeliveryResult(notification, false, null, error.getMessage(), LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.NotificationType;
+import com.example.payment.domain.enums.OutboxStatus;
+import com.example.payment.domain.model.NotificationOutbox;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.domain.model.PaymentNotification;
+import com.example.payment.exception.PaymentProcessingException;
+import com.example.payment.repository.NotificationOutboxRepository;
+import com.example.payment.repository.PaymentNotificationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records notification intents in the outbox. The schedule methods must run
+ * inside the transaction that changes the payment, so that the intent is
+ * committed together with the state change; {@link NotificationDispatcher}
+ * delivers them afterwards.
+ */
+@Service
+public class NotificationService {
+    private final NotificationOutboxRepository outboxRepository;
+    private final PaymentNotificationRepository notificationRepository;
+    private final ObjectMapper objectMapper;
+    private final PaymentMetrics metrics;
+
+    public NotificationService(
+        NotificationOutboxRepository outboxRepository,
+        PaymentNotificationRepository notificationRepository,
+        ObjectMapper objectMapper,
+        PaymentMetrics metrics
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void scheduleNotifications(Payment payment) {
+        metrics.timeStage(PaymentMetrics.Stage.NOTIFICATION, payment.getPaymentMethod(), () -> {
+            if (Boolean.TRUE.equals(payment.getEmailNotification())) {
+                enqueue(payment, NotificationType.EMAIL, null, null);
+            }
+
+            if (Boolean.TRUE.equals(payment.getSmsNotification())) {
+                enqueue(payment, NotificationType.SMS, null, null);
+            }
+
+            if (payment.getWebhookUrl() != null) {
+                enqueue(payment, NotificationType.WEBHOOK, null, payment.getWebhookUrl());
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void schedulePaymentExpiredNotification(Payment payment) {
+        enqueue(payment, NotificationType.EMAIL, "Payment has expired", null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void scheduleRefundNotification(Payment payment) {
+        enqueue(payment, NotificationType.EMAIL, "Payment has been refunded", null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentNotification> getPaymentNotifications(String paymentId) {
+        return notificationRepository.findByPaymentId(paymentId);
+    }
+
+    private void enqueue(Payment payment, NotificationType type, String message, String webhookUrl) {
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setPaymentId(payment.getId());
+        outbox.setType(type);
+        outbox.setStatus(OutboxStatus.PENDING);
+        outbox.setMessage(message);
+        outbox.setWebhookUrl(webhookUrl);
+        outbox.setPayload(buildPayload(payment));
+        outbox.setAttempts(0);
+        outboxRepository.save(outbox);
+    }
+
+    private String buildPayload(Payment payment) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("paymentId", payment.getId());
+        payload.put("status", payment.getStatus());
+        payload.put("paymentMethod", payment.getPaymentMethod());
+        payload.put("amount", payment.getAmount());
+        payload.put("currency", payment.getCurrency());
+        payload.put("occurredAt", LocalDateTime.now());
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new PaymentProcessingException("Failed to serialize notification payload", e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.exception.PaymentOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Admission control of the payment write path. Card payments, PIX charge
+ * creation, PIX callbacks and payment batches each have their own adaptive
+ * concurrency limit (see {@link GradientConcurrencyLimiter}), so a surge of
+ * one kind of traffic cannot starve the others. A call over its limit fails at once
+ * with {@link PaymentOverloadedException} instead of queueing for threads
+ * and connections.
+ */
+@Component
+public class PaymentAdmissionControl {
+    public enum Traffic {
+        CREDIT_CARD, PIX, PIX_CALLBACK,
+        // Whole batches, each holding many payments; limited by payment.admission.batch-limit
+        BATCH;
+
+        // QR code charges are PIX charges and share their budget
+        public static Traffic of(PaymentMethod method) {
+            return method == PaymentMethod.PIX || method == PaymentMethod.QR_CODE ? PIX : CREDIT_CARD;
+        }
+    }
+
+    private final Map<Traffic, GradientConcurrencyLimiter> limiters = new EnumMap<>(Traffic.class);
+    private final Map<Traffic, Counter> rejections = new EnumMap<>(Traffic.class);
+    private final boolean enabled;
+    private final Duration retryAfter;
+
+    public PaymentAdmissionControl(
+        MeterRegistry meterRegistry,
+        @Value("${payment.admission.enabled:true}") boolean enabled,
+        @Value("${payment.admission.initial-limit:20}") int initialLimit,
+        @Value("${payment.admission.min-limit:2}") int minLimit,
+        @Value("${payment.admission.max-limit:200}") int maxLimit,
+        @Value("${payment.admission.batch-limit:4}") int batchLimit,
+        @Value("${payment.admission.retry-after:1s}") Duration retryAfter
+    ) {
+        this.enabled = enabled;
+        this.retryAfter = retryAfter;
+
+        for (Traffic traffic : Traffic.values()) {
+            GradientConcurrencyLimiter limiter = traffic == Traffic.BATCH
+                ? new GradientConcurrencyLimiter(batchLimit, 1, batchLimit)
+                : new GradientConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+            limiters.put(traffic, limiter);
+            String tag = traffic.name().toLowerCase();
+            Gauge.builder("payment.admission.limit", limiter, GradientConcurrencyLimiter::limit)
+                .description("Concurrent calls admitted")
+                .tag("traffic", tag)
+                .register(meterRegistry);
+            Gauge.builder("payment.admission.inflight", limiter, GradientConcurrencyLimiter::inFlight)
+                .description("Calls in progress")
+                .tag("traffic", tag)
+                .register(meterRegistry);
+            rejections.put(traffic, meterRegistry.counter("payment.admission.rejected", "traffic", tag));
+        }
+    }
+
+    public <T> T admit(Traffic traffic, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        GradientConcurrencyLimiter limiter = limiters.get(traffic);
+        if (!limiter.tryAcquire()) {
+            rejections.get(traffic).increment();
+            throw new PaymentOverloadedException("Too many concurrent payment requests, retry later", retryAfter);
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    public void admit(Traffic traffic, Runnable call) {
+        admit(traffic, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.payment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of payments (see schema.sql) and moves
+ * terminal payments older than {@code payment.archive.after} from
+ * payments_live to payments_archive, together with their card, PIX and
+ * notification rows. Queries that only need live payments filter on
+ * {@code archived = false} and never touch the archive; reads by id, search,
+ * export and statistics still see every payment.
+ *
+ * <p>Each chunk is one statement in its own transaction, and the rows it
+ * picks are locked with SKIP LOCKED, so archival never waits for, nor holds
+ * up, request traffic for longer than a chunk. Partition DDL runs with a
+ * short lock_timeout and is retried on the next run when it cannot get its
+ * lock.
+ *
+ * <p>Does nothing on databases whose payments table was created before
+ * partitioning.
+ */
+@Slf4j
+@Service
+public class PaymentArchiveService implements SmartInitializingSingleton {
+    private static final String LIVE = "payments_live";
+    private static final String ARCHIVE = "payments_archive";
+    private static final Pattern LIVE_PARTITION = Pattern.compile(LIVE + "_(\\d{4})_(\\d{2})");
+
+    private static final String IS_PARTITIONED_SQL = "SELECT to_regclass('" + LIVE + "') IS NOT NULL";
+    private static final String LOCK_TIMEOUT_SQL = "SELECT set_config('lock_timeout', ?, true)";
+    private static final String LIVE_PARTITIONS_SQL = """
+        SELECT c.relname FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = CAST('payments_live' AS regclass)
+        """;
+    private static final String ARCHIVE_CHUNK_SQL = """
+        WITH chunk AS (
+            SELECT id FROM payments
+            WHERE archived = false AND created_at < ?
+              AND status IN ('COMPLETED', 'FAILED', 'REFUNDED', 'EXPIRED')
+            ORDER BY created_at
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        ), cards AS (
+            UPDATE credit_card_payments SET archived = true
+            WHERE archived = false AND payment_id IN (SELECT id FROM chunk)
+        ), pix AS (
+            UPDATE pix_payments SET archived = true
+            WHERE archived = false AND payment_id IN (SELECT id FROM chunk)
+        ), notifications AS (
+            UPDATE payment_notifications SET archived = true
+            WHERE archived = false AND payment_id IN (SELECT id FROM chunk)
+        )
+        UPDATE payments SET archived = true
+        WHERE archived = false AND created_at < ? AND id IN (SELECT id FROM chunk)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobCoordinator jobCoordinator;
+    private final PaymentMetrics metrics;
+    private final Duration archiveAfter;
+    private final int chunkSize;
+    private final int monthsAhead;
+    private final Duration lockTimeout;
+    private volatile boolean partitioned;
+
+    public PaymentArchiveService(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        JobCoordinator jobCoordinator,
+        PaymentMetrics metrics,
+        @Value("${payment.archive.after:90d}") Duration archiveAfter,
+        @Value("${payment.archive.chunk-size:1000}") int chunkSize,
+        @Value("${payment.archive.months-ahead:3}") int monthsAhead,
+        @Value("${payment.archive.lock-timeout:2s}") Duration lockTimeout
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.jobCoordinator = jobCoordinator;
+        this.metrics = metrics;
+        this.archiveAfter = archiveAfter;
+        this.chunkSize = chunkSize;
+        this.monthsAhead = monthsAhead;
+        this.lockTimeout = lockTimeout;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        partitioned = Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class));
+        if (!partitioned) {
+            log.info("Table payments is not partitioned, payment archival is disabled");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        ensurePartitions(current, current.plusMonths(monthsAhead));
+    }
+
+    @Scheduled(fixedDelayString = "${payment.archive.interval-ms:3600000}")
+    public void archive() {
+        if (!partitioned || !jobCoordinator.isLeader(JobCoordinator.PAYMENT_ARCHIVE_JOB)) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        YearMonth current = YearMonth.now();
+        ensurePartitions(current, current.plusMonths(monthsAhead));
+
+        int archived = archiveBefore(cutoff);
+        if (archived > 0) {
+            log.info("Archived {} payments created before {}", archived, cutoff);
+        }
+        dropEmptyLivePartitions(YearMonth.from(cutoff));
+    }
+
+    /**
+     * Archives terminal payments created before {@code cutoff}, one chunk per
+     * transaction, until a chunk comes back short. Rows locked by other
+     * transactions are skipped and picked up by a later run.
+     */
+    public int archiveBefore(LocalDateTime cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        int total = 0;
+        int archived;
+        do {
+            archived = jdbcTemplate.update(ARCHIVE_CHUNK_SQL, before, chunkSize, before);
+            metrics.archived(archived);
+            total += archived;
+        } while (archived == chunkSize);
+        return total;
+    }
+
+    /**
+     * Creates the live and archive partitions of every month from
+     * {@code from} to {@code to}, both inclusive, that do not exist yet.
+     */
+    public void ensurePartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            for (String parent : List.of(LIVE, ARCHIVE)) {
+                String ddl = "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')".formatted(
+                    partitionName(parent, month), parent, month.atDay(1), month.plusMonths(1).atDay(1)
+                );
+                try {
+                    withLockTimeout(() -> jdbcTemplate.execute(ddl));
+                } catch (DataAccessException e) {
+                    // Usually rows of that month already sitting in the default partition
+                    log.warn("Could not create partition {}: {}", partitionName(parent, month), e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the live partitions of months before {@code before} once
+     * archival has left them empty, so that queries on live payments do not
+     * keep planning for them.
+     */
+    private void dropEmptyLivePartitions(YearMonth before) {
+        for (String partition : jdbcTemplate.queryForList(LIVE_PARTITIONS_SQL, String.class)) {
+            Matcher matcher = LIVE_PARTITION.matcher(partition);
+            if (!matcher.matches()
+                || !YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))).isBefore(before)) {
+                continue;
+            }
+            try {
+                withLockTimeout(() -> {
+                    jdbcTemplate.execute("LOCK TABLE " + partition + " IN ACCESS EXCLUSIVE MODE");
+                    if (Boolean.FALSE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class
+                    ))) {
+                        jdbcTemplate.execute("DROP TABLE " + partition);
+                        log.info("Dropped empty partition {}", partition);
+                    }
+                });
+            } catch (DataAccessException e) {
+                log.warn("Could not drop partition {}: {}", partition, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void withLockTimeout(Runnable ddl) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject(LOCK_TIMEOUT_SQL, String.class, lockTimeout.toMillis() + "ms");
+            ddl.run();
+        });
+    }
+
+    private static String partitionName(String parent, YearMonth month) {
+        return "%s_%d_%02d".formatted(parent, month.getYear(), month.getMonthValue());
+    }
+}
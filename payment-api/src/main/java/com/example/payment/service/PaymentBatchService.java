@@ -0,0 +1,306 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.model.CreditCardPayment;
+import com.example.payment.domain.model.PixPayment;
+import com.example.payment.dto.BatchPaymentResponse;
+import com.example.payment.dto.BatchPaymentResult;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.ErrorResponse;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.dto.PixRequest;
+import com.example.payment.exception.InvalidCreditCardException;
+import com.example.payment.exception.PaymentException;
+import com.example.payment.exception.PaymentProcessingException;
+import com.example.payment.exception.PaymentValidationException;
+import com.example.payment.service.PaymentPersistenceService.NewCreditCardPayment;
+import com.example.payment.service.PaymentPersistenceService.NewPixPayment;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Processes many payments per call. Items are validated in parallel, the
+ * valid ones inserted in chunks with one batched transaction per chunk, and
+ * card payments authorized concurrently with no connection held before
+ * their outcomes are recorded, again one transaction per chunk. Every item
+ * gets its own result; a rejected item never fails the others.
+ *
+ * <p>Whole batches go through admission control as their own traffic, so
+ * a burst of batches is turned away with 429 instead of crowding out
+ * single payments.
+ */
+@Slf4j
+@Service
+public class PaymentBatchService {
+    private final PaymentService paymentService;
+    private final PaymentValidationService validationService;
+    private final PaymentPersistenceService persistenceService;
+    private final AcquirerService acquirerService;
+    private final PixExpiryService pixExpiryService;
+    private final CardVault cardVault;
+    private final PaymentAdmissionControl admissionControl;
+    private final Validator validator;
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final int chunkSize;
+    private final int authorizationParallelism;
+
+    public PaymentBatchService(
+        PaymentService paymentService,
+        PaymentValidationService validationService,
+        PaymentPersistenceService persistenceService,
+        AcquirerService acquirerService,
+        PixExpiryService pixExpiryService,
+        CardVault cardVault,
+        PaymentAdmissionControl admissionControl,
+        Validator validator,
+        @Qualifier("batchAuthorizationExecutor") Executor executor,
+        @Value("${payment.batch.max-size:5000}") int maxBatchSize,
+        @Value("${payment.batch.chunk-size:500}") int chunkSize,
+        @Value("${payment.batch.authorization-parallelism:32}") int authorizationParallelism
+    ) {
+        this.paymentService = paymentService;
+        this.validationService = validationService;
+        this.persistenceService = persistenceService;
+        this.acquirerService = acquirerService;
+        this.pixExpiryService = pixExpiryService;
+        this.cardVault = cardVault;
+        this.admissionControl = admissionControl;
+        this.validator = validator;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.chunkSize = chunkSize;
+        this.authorizationParallelism = authorizationParallelism;
+    }
+
+    public BatchPaymentResponse processPayments(List<PaymentRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new PaymentValidationException("A batch may contain at most " + maxBatchSize + " payments");
+        }
+        return admissionControl.admit(PaymentAdmissionControl.Traffic.BATCH, () -> process(requests));
+    }
+
+    private BatchPaymentResponse process(List<PaymentRequest> requests) {
+        BatchPaymentResult[] results = new BatchPaymentResult[requests.size()];
+
+        // Stage 1: validate and prepare every item in parallel
+        List<BatchItem> items = IntStream.range(0, requests.size()).parallel()
+            .mapToObj(index -> prepare(index, requests.get(index), results))
+            .filter(Objects::nonNull)
+            .toList();
+
+        List<BatchItem> cardItems = items.stream().filter(item -> item.cardDetails() != null).toList();
+        List<BatchItem> pixItems = items.stream().filter(item -> item.pixDetails() != null).toList();
+
+        // Stage 2: batched inserts, one transaction per chunk
+        createPixPayments(pixItems, results);
+        List<CardPayment> created = createCreditCardPayments(cardItems, results);
+
+        // Stage 3: authorize with no connection held, then record the outcomes per chunk
+        completeCreditCardPayments(authorize(created, results), results);
+
+        int rejected = (int) Arrays.stream(results).filter(result -> result.getError() != null).count();
+        return BatchPaymentResponse.builder()
+            .accepted(results.length - rejected)
+            .rejected(rejected)
+            .results(List.of(results))
+            .build();
+    }
+
+    private BatchItem prepare(int index, PaymentRequest request, BatchPaymentResult[] results) {
+        try {
+            Set<ConstraintViolation<PaymentRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                throw new PaymentValidationException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            }
+            validationService.validatePaymentRequest(request);
+
+            if (request.getPaymentMethod() == PaymentMethod.CREDIT_CARD) {
+                CreditCardRequest cardDetails = PaymentValidationService.creditCardDetails(request);
+                return new BatchItem(index, request, cardDetails, cardVault.resolve(cardDetails), null);
+            }
+            if (request.getPaymentMethod() == PaymentMethod.PIX || request.getPaymentMethod() == PaymentMethod.QR_CODE) {
+                PixRequest pixDetails = PaymentValidationService.pixDetails(request);
+                return new BatchItem(index, request, null, null, pixDetails);
+            }
+            throw new PaymentProcessingException("Payment method " + request.getPaymentMethod() + " is not supported in batches");
+        } catch (RuntimeException e) {
+            results[index] = rejected(index, e);
+            return null;
+        }
+    }
+
+    private void createPixPayments(List<BatchItem> items, BatchPaymentResult[] results) {
+        for (List<BatchItem> chunk : chunks(items)) {
+            try {
+                List<PixPayment> pixPayments = persistenceService.createPixPayments(chunk.stream()
+                    .map(item -> new NewPixPayment(item.request(), item.pixDetails()))
+                    .toList());
+                for (int i = 0; i < chunk.size(); i++) {
+                    BatchItem item = chunk.get(i);
+                    PixPayment pixPayment = pixPayments.get(i);
+                    pixExpiryService.track(pixPayment.getPayment().getId(), pixPayment.getExpiresAt());
+                    results[item.index()] = accepted(item.index(), paymentService.pixResponse(pixPayment, item.pixDetails()));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to insert a chunk of {} PIX payments", chunk.size(), e);
+                chunk.forEach(item -> results[item.index()] = rejected(item.index(), e));
+            }
+        }
+    }
+
+    private List<CardPayment> createCreditCardPayments(List<BatchItem> items, BatchPaymentResult[] results) {
+        List<CardPayment> created = new ArrayList<>(items.size());
+        for (List<BatchItem> chunk : chunks(items)) {
+            try {
+                List<CreditCardPayment> ccPayments = persistenceService.createCreditCardPayments(chunk.stream()
+                    .map(item -> new NewCreditCardPayment(item.request(), item.cardDetails(), item.card()))
+                    .toList());
+                for (int i = 0; i < chunk.size(); i++) {
+                    created.add(new CardPayment(chunk.get(i), ccPayments.get(i).getPayment().getId(), null));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to insert a chunk of {} card payments", chunk.size(), e);
+                chunk.forEach(item -> results[item.index()] = rejected(item.index(), e));
+            }
+        }
+        return created;
+    }
+
+    private List<CardPayment> authorize(List<CardPayment> payments, BatchPaymentResult[] results) {
+        Semaphore permits = new Semaphore(authorizationParallelism);
+        List<CompletableFuture<CardPayment>> futures = new ArrayList<>(payments.size());
+        for (CardPayment payment : payments) {
+            permits.acquireUninterruptibly();
+            try {
+                futures.add(CompletableFuture
+                    .supplyAsync(() -> payment.authorized(acquirerService.authorize(
+                        payment.paymentId(),
+                        payment.item().request().getAmount(),
+                        cardVault.acquirerDetails(payment.item().card(), payment.item().cardDetails())
+                    )), executor)
+                    .exceptionally(e -> paymentService.reconcileAuthorization(payment.paymentId())
+                        .map(payment::authorized)
+                        .orElseGet(() -> {
+                            rejectAuthorization(payment, e.getCause() != null ? e.getCause() : e, results);
+                            return null;
+                        }))
+                    .whenComplete((result, error) -> permits.release()));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                rejectAuthorization(payment, e, results);
+                failCreditCardPayment(payment.paymentId());
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+    }
+
+    private void rejectAuthorization(CardPayment payment, Throwable error, BatchPaymentResult[] results) {
+        results[payment.item().index()] = rejected(payment.item().index(), error);
+    }
+
+    // Never sent to the acquirer, so there is nothing to reconcile
+    private void failCreditCardPayment(String paymentId) {
+        try {
+            persistenceService.failCreditCardPayment(paymentId);
+        } catch (RuntimeException e) {
+            // Left PROCESSING; recovery marks it failed once it is stuck
+            log.error("Failed to mark card payment {} as failed", paymentId, e);
+        }
+    }
+
+    private void completeCreditCardPayments(List<CardPayment> authorized, BatchPaymentResult[] results) {
+        for (List<CardPayment> chunk : chunks(authorized)) {
+            Map<String, AuthorizationResult> authorizations = new HashMap<>();
+            chunk.forEach(payment -> authorizations.put(payment.paymentId(), payment.authorization()));
+            try {
+                Map<String, CreditCardPayment> completed = persistenceService.completeCreditCardPayments(authorizations)
+                    .stream()
+                    .collect(Collectors.toMap(ccPayment -> ccPayment.getPayment().getId(), ccPayment -> ccPayment));
+
+                for (CardPayment payment : chunk) {
+                    int index = payment.item().index();
+                    CreditCardPayment ccPayment = completed.get(payment.paymentId());
+                    if (ccPayment == null) {
+                        results[index] = rejected(index, new PaymentProcessingException("Payment is no longer being processed"));
+                    } else {
+                        BatchItem item = payment.item();
+                        String cardToken = paymentService.cardToken(payment.paymentId(), item.cardDetails(), item.card());
+                        results[index] = accepted(index, paymentService.creditCardResponse(ccPayment, item.cardDetails(), cardToken));
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Left PROCESSING; recovery completes them from the acquirer's record
+                log.error("Failed to record {} card authorizations", chunk.size(), e);
+                chunk.forEach(payment -> results[payment.item().index()] = rejected(payment.item().index(), e));
+            }
+        }
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    private BatchPaymentResult accepted(int index, PaymentResponse payment) {
+        return BatchPaymentResult.builder().index(index).payment(payment).build();
+    }
+
+    private BatchPaymentResult rejected(int index, Throwable error) {
+        return BatchPaymentResult.builder().index(index).error(errorOf(error)).build();
+    }
+
+    // Same codes as GlobalExceptionHandler uses for the single-payment endpoint
+    private ErrorResponse errorOf(Throwable error) {
+        if (error instanceof InvalidCreditCardException) {
+            return new ErrorResponse(error.getMessage(), "INVALID_CREDIT_CARD");
+        }
+        if (error instanceof PaymentValidationException) {
+            return new ErrorResponse(error.getMessage(), "VALIDATION_ERROR");
+        }
+        if (error instanceof PaymentException) {
+            return new ErrorResponse(error.getMessage(), "PROCESSING_ERROR");
+        }
+        return new ErrorResponse("An unexpected error occurred", "INTERNAL_SERVER_ERROR");
+    }
+
+    private record BatchItem(
+        int index,
+        PaymentRequest request,
+        CreditCardRequest cardDetails,
+        PaymentCard card,
+        PixRequest pixDetails
+    ) {
+    }
+
+    private record CardPayment(BatchItem item, String paymentId, AuthorizationResult authorization) {
+        CardPayment authorized(AuthorizationResult authorization) {
+            return new CardPayment(item, paymentId, authorization);
+        }
+    }
+}
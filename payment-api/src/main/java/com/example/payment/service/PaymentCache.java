@@ -0,0 +1,94 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.PaymentResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of payment responses keyed by payment id. Entries are
+ * dropped after every committed status change on this node or, through
+ * {@link PaymentStatusBroadcaster}, on any other node. Payments in a
+ * terminal status rarely change again and are kept longer.
+ */
+@Component
+public class PaymentCache {
+    private static final Set<PaymentStatus> TERMINAL_STATUSES = EnumSet.of(
+        PaymentStatus.COMPLETED, PaymentStatus.REFUNDED, PaymentStatus.EXPIRED, PaymentStatus.FAILED
+    );
+
+    private final Cache<String, PaymentResponse> cache;
+
+    public PaymentCache(
+        MeterRegistry meterRegistry,
+        @Value("${payment.cache.max-size:100000}") long maxSize,
+        @Value("${payment.cache.ttl:30s}") Duration ttl,
+        @Value("${payment.cache.terminal-ttl:1h}") Duration terminalTtl
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<String, PaymentResponse>() {
+                @Override
+                public long expireAfterCreate(String key, PaymentResponse value, long currentTime) {
+                    return ttlFor(value);
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, PaymentResponse value, long currentTime, long currentDuration) {
+                    return ttlFor(value);
+                }
+
+                @Override
+                public long expireAfterRead(String key, PaymentResponse value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                private long ttlFor(PaymentResponse value) {
+                    return TERMINAL_STATUSES.contains(value.getStatus()) ? terminalTtl.toNanos() : ttl.toNanos();
+                }
+            })
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "payments");
+    }
+
+    /**
+     * Returns the cached response or loads it; a null from the loader is
+     * not cached.
+     */
+    public PaymentResponse get(String paymentId, Function<String, PaymentResponse> loader) {
+        return cache.get(paymentId, loader);
+    }
+
+    public void invalidate(String paymentId) {
+        cache.invalidate(paymentId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        cache.invalidate(event.paymentId());
+    }
+
+    @EventListener
+    public void onRemoteStatusChanged(RemotePaymentStatusChangedEvent event) {
+        if (event.isMissedChanges()) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(event.paymentId());
+        }
+    }
+}
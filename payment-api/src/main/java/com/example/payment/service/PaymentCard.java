@@ -0,0 +1,17 @@
+package com.example.payment.service;
+
+/**
+ * The card a payment is charged to, as recorded with the payment. Resolved
+ * by {@link CardVault} from the card number or from a saved card's token;
+ * {@code token} and {@code encryptedPan} are set only for the latter.
+ */
+public record PaymentCard(
+    String token,
+    String cardNumberHash,
+    String cardHolderName,
+    String lastFourDigits,
+    String expirationDate,
+    BinInfo bin,
+    byte[] encryptedPan
+) {
+}
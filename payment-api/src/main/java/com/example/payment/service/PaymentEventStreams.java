@@ -0,0 +1,338 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.PaymentStatusEvent;
+import com.example.payment.exception.PaymentNotFoundException;
+import com.example.payment.exception.PaymentOverloadedException;
+import com.example.payment.exception.PaymentValidationException;
+import com.example.payment.repository.PaymentRepository;
+import com.example.payment.repository.PaymentView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Event streams of payment status changes. A stream follows one
+ * or more payments: it starts with their current status and then receives
+ * every committed change, local or broadcast by another node. Streams are
+ * async requests, so an idle subscriber holds a connection but no thread.
+ *
+ * <p>Each stream has its own bounded queue. Publishing a change only
+ * queues it, so the committing thread never waits on a subscriber, and a
+ * few dispatch threads write the queues out, one stream at a time. A
+ * subscriber that stops reading blocks at most the thread writing to it;
+ * once its queue is full the stream is closed instead of buffering more
+ * for it. A subscriber may see a status twice around the time it
+ * subscribes, never an older one after a newer.
+ */
+@Slf4j
+@Component
+public class PaymentEventStreams {
+    private static final String STATUS_EVENT = "status";
+    private static final long MAX_RECONNECT_MILLIS = 10_000;
+
+    private final PaymentRepository paymentRepository;
+    private final Map<String, Set<Subscription>> subscriptionsByPayment = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final Counter delivered;
+    private final Counter overflowed;
+    private final Duration timeout;
+    private final int maxSubscribers;
+    private final int maxPaymentsPerStream;
+    private final int maxQueuedEvents;
+    private final Duration retryAfter;
+
+    public PaymentEventStreams(
+        PaymentRepository paymentRepository,
+        MeterRegistry meterRegistry,
+        @Value("${payment.events.timeout:1h}") Duration timeout,
+        @Value("${payment.events.max-subscribers:50000}") int maxSubscribers,
+        @Value("${payment.events.max-payments-per-stream:100}") int maxPaymentsPerStream,
+        @Value("${payment.events.dispatch-threads:16}") int dispatchThreads,
+        @Value("${payment.events.max-queued-events:100}") int maxQueuedEvents,
+        @Value("${payment.events.retry-after:5s}") Duration retryAfter
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.timeout = timeout;
+        this.maxSubscribers = maxSubscribers;
+        this.maxPaymentsPerStream = maxPaymentsPerStream;
+        this.maxQueuedEvents = maxQueuedEvents;
+        this.retryAfter = retryAfter;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, task -> {
+            Thread thread = new Thread(task, "PaymentEvents-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("payment.events.subscribers", subscriptions, Set::size)
+            .description("Open payment event streams")
+            .register(meterRegistry);
+        this.delivered = meterRegistry.counter("payment.events.delivered");
+        this.overflowed = meterRegistry.counter("payment.events.overflowed");
+    }
+
+    /**
+     * Opens a stream of the given payments. Fails with
+     * {@link PaymentNotFoundException} if any of them does not exist.
+     */
+    public SseEmitter subscribe(List<String> paymentIds) {
+        Set<String> ids = new LinkedHashSet<>(paymentIds);
+        if (ids.isEmpty() || ids.size() > maxPaymentsPerStream) {
+            throw new PaymentValidationException("A stream must follow between 1 and " + maxPaymentsPerStream + " payments");
+        }
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new PaymentOverloadedException("Too many payment event streams, retry later", retryAfter);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(emitter, ids);
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unregister(subscription));
+
+        // Registered before reading, so a change committed meanwhile is either read or queued behind
+        register(subscription);
+        List<SseEmitter.SseEventBuilder> current = new ArrayList<>(ids.size());
+        try {
+            for (String id : ids) {
+                // Outside a read-only transaction, so from the primary rather than a lagging replica
+                PaymentView view = paymentRepository.findViewById(id)
+                    .orElseThrow(() -> new PaymentNotFoundException(id));
+                current.add(SseEmitter.event()
+                    .name(STATUS_EVENT)
+                    .data(PaymentStatusEvent.builder()
+                        .paymentId(view.id())
+                        .paymentMethod(view.paymentMethod())
+                        .status(view.status())
+                        .build(), MediaType.APPLICATION_JSON));
+            }
+        } catch (RuntimeException e) {
+            unregister(subscription);
+            throw e;
+        }
+        subscription.start(current);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        publish(event.paymentId(), event.paymentMethod(), event.previousStatus(), event.newStatus(), event.occurredAt());
+    }
+
+    @EventListener
+    public void onRemoteStatusChanged(RemotePaymentStatusChangedEvent event) {
+        if (event.isMissedChanges()) {
+            // Reconnecting re-reads the current status of every followed payment
+            closeAll();
+        } else {
+            publish(event.paymentId(), event.paymentMethod(), event.previousStatus(), event.newStatus(), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Keeps idle streams from being closed by proxies and detects
+     * subscribers that went away without closing the connection.
+     */
+    @Scheduled(fixedDelayString = "${payment.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(SseEmitter.event().comment(""), false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private void publish(
+        String paymentId,
+        PaymentMethod paymentMethod,
+        PaymentStatus previousStatus,
+        PaymentStatus status,
+        LocalDateTime occurredAt
+    ) {
+        // Most payments have no subscriber; skip the hand-off for them
+        if (!subscriptionsByPayment.containsKey(paymentId)) {
+            return;
+        }
+        PaymentStatusEvent event = PaymentStatusEvent.builder()
+            .paymentId(paymentId)
+            .paymentMethod(paymentMethod)
+            .status(status)
+            .previousStatus(previousStatus)
+            .occurredAt(occurredAt)
+            .build();
+        Set<Subscription> subscribers = subscriptionsByPayment.get(paymentId);
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscription subscription : subscribers) {
+            subscription.offer(SseEmitter.event().name(STATUS_EVENT).data(event, MediaType.APPLICATION_JSON), true);
+        }
+    }
+
+    private void closeAll() {
+        for (Subscription subscription : subscriptions) {
+            // Spread out the reconnects of this node's subscribers
+            long reconnectMillis = ThreadLocalRandom.current().nextLong(1_000, MAX_RECONNECT_MILLIS);
+            subscription.offer(SseEmitter.event().reconnectTime(reconnectMillis), false);
+            subscription.close();
+        }
+    }
+
+    private void register(Subscription subscription) {
+        subscriptions.add(subscription);
+        for (String paymentId : subscription.paymentIds) {
+            subscriptionsByPayment.computeIfAbsent(paymentId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+    }
+
+    private void unregister(Subscription subscription) {
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+        for (String paymentId : subscription.paymentIds) {
+            subscriptionsByPayment.computeIfPresent(paymentId, (id, subscribers) -> {
+                subscribers.remove(subscription);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    private record QueuedEvent(SseEmitter.SseEventBuilder event, boolean change) {
+    }
+
+    /**
+     * A stream and the events queued for it. At most one dispatch thread
+     * drains the queue at a time, which keeps the events in order; all
+     * other access holds the subscription's monitor, never while writing.
+     */
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final Set<String> paymentIds;
+        private final ArrayDeque<QueuedEvent> queue = new ArrayDeque<>();
+        // Changes are held back until the current statuses are queued ahead of them
+        private boolean started;
+        private boolean draining;
+        private boolean closing;
+        private boolean completed;
+
+        private Subscription(SseEmitter emitter, Set<String> paymentIds) {
+            this.emitter = emitter;
+            this.paymentIds = paymentIds;
+        }
+
+        synchronized void start(List<SseEmitter.SseEventBuilder> current) {
+            for (int i = current.size() - 1; i >= 0; i--) {
+                queue.addFirst(new QueuedEvent(current.get(i), false));
+            }
+            started = true;
+            scheduleDrain();
+        }
+
+        synchronized void offer(SseEmitter.SseEventBuilder event, boolean change) {
+            if (closing) {
+                return;
+            }
+            if (queue.size() >= maxQueuedEvents) {
+                // Not reading; closing lets it reconnect and read the current status instead
+                log.debug("Closing payment event stream of {} queued events", queue.size());
+                overflowed.increment();
+                queue.clear();
+                close();
+                return;
+            }
+            queue.add(new QueuedEvent(event, change));
+            scheduleDrain();
+        }
+
+        // Completes the stream once the events already queued are written
+        synchronized void close() {
+            closing = true;
+            unregister(this);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (started && !draining && !completed) {
+                draining = true;
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                QueuedEvent next;
+                synchronized (this) {
+                    next = queue.poll();
+                    if (next == null) {
+                        draining = false;
+                        if (!closing || completed) {
+                            return;
+                        }
+                        completed = true;
+                    }
+                }
+                if (next == null) {
+                    emitter.complete();
+                    return;
+                }
+                if (!write(next)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean write(QueuedEvent queued) {
+            try {
+                emitter.send(queued.event());
+                if (queued.change()) {
+                    delivered.increment();
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Gone or already completed
+                log.debug("Closing payment event stream: {}", e.getMessage());
+                synchronized (this) {
+                    queue.clear();
+                    closing = true;
+                    completed = true;
+                    draining = false;
+                }
+                unregister(this);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
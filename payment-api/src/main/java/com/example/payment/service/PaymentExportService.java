@@ -0,0 +1,148 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.ExportFormat;
+import com.example.payment.exception.PaymentOverloadedException;
+import com.example.payment.repository.PaymentExportRow;
+import com.example.payment.repository.PaymentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Writes payment extracts row by row as they are read from the database, so
+ * an export of any size needs only the fetch buffer and the output buffer.
+ *
+ * <p>An export holds a pooled connection and an open transaction for as long
+ * as the client takes to download it. At most
+ * {@code payment.export.max-concurrent} run at once, and a client that stops
+ * reading loses its connection after {@code payment.export.idle-timeout}:
+ * PostgreSQL ends the session once the transaction has waited that long for
+ * the next fetch.
+ */
+@Slf4j
+@Service
+public class PaymentExportService {
+    private static final String CSV_HEADER = "id,payment_method,status,amount,currency,created_at,updated_at,"
+        + "card_brand,card_issuer,card_country,card_funding,last_four_digits,installments,authorization_code,"
+        + "pix_key,pix_transaction_id,pix_expires_at,pix_paid,pix_paid_at";
+    // Leading characters that make a spreadsheet read a cell as a formula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PaymentRepository paymentRepository;
+    private final ObjectWriter jsonWriter;
+    private final int fetchSize;
+    private final Duration idleTimeout;
+    private final Semaphore slots;
+    private final Duration retryAfter;
+
+    public PaymentExportService(
+        PaymentRepository paymentRepository,
+        ObjectMapper objectMapper,
+        @Value("${payment.export.fetch-size:1000}") int fetchSize,
+        @Value("${payment.export.idle-timeout:60s}") Duration idleTimeout,
+        @Value("${payment.export.max-concurrent:2}") int maxConcurrent,
+        @Value("${payment.export.retry-after:30s}") Duration retryAfter
+    ) {
+        this.paymentRepository = paymentRepository;
+        // Leave the shared writer open and let its buffer decide when to flush
+        this.jsonWriter = objectMapper.writer()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+        this.idleTimeout = idleTimeout;
+        this.slots = new Semaphore(maxConcurrent);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Takes an export slot, or fails with {@link PaymentOverloadedException}
+     * when all of them are in use. Taken before the response starts, so that
+     * a refusal can still be a 429; the caller gives it back with
+     * {@link #releaseSlot} once the export is written.
+     */
+    public void reserveSlot() {
+        if (!slots.tryAcquire()) {
+            throw new PaymentOverloadedException("Too many exports in progress, retry later", retryAfter);
+        }
+    }
+
+    public void releaseSlot() {
+        slots.release();
+    }
+
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream out) throws IOException {
+        paymentRepository.limitIdleTime(idleTimeout);
+        long rows = 0;
+        try (
+            Stream<PaymentExportRow> stream = paymentRepository.streamForExport(from, to, fetchSize);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)
+        ) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<PaymentExportRow> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                PaymentExportRow row = iterator.next();
+                if (format == ExportFormat.NDJSON) {
+                    jsonWriter.writeValue(writer, row);
+                    writer.write('\n');
+                } else {
+                    writeCsv(writer, row);
+                }
+                rows++;
+            }
+        }
+        log.info("Exported {} payments as {} (from={}, to={})", rows, format, from, to);
+        return rows;
+    }
+
+    private void writeCsv(Writer writer, PaymentExportRow row) throws IOException {
+        Object[] values = {
+            row.id(), row.paymentMethod(), row.status(), row.amount(), row.currency(),
+            row.createdAt(), row.updatedAt(), row.cardBrand(), row.cardIssuer(), row.cardCountry(),
+            row.cardFunding(), row.lastFourDigits(), row.installments(), row.authorizationCode(),
+            row.pixKey(), row.pixTransactionId(),
+            row.pixExpiresAt(), row.pixPaid(), row.pixPaidAt()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(csvEscape(values[i].toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    // Client text such as a PIX key could otherwise run as a formula when the file is opened
+    private String csvEscape(String value) {
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency and outcome metrics of the payment pipeline. Every timer and
+ * counter is registered up front, so recording is a map lookup and an
+ * atomic update, with no meter id built per call. Histogram and SLO
+ * buckets are configured under management.metrics.distribution.
+ *
+ * <ul>
+ *   <li>{@code payment.process}: a whole processPayment call, by method and outcome</li>
+ *   <li>{@code payment.stage}: one stage of it (validation, persistence,
+ *       authorization, completion, notification), by method and outcome</li>
+ *   <li>{@code payment.pix.callbacks}, {@code payment.pix.expirations},
+ *       {@code payment.refunds} and {@code payment.archived}: counters</li>
+ * </ul>
+ */
+@Component
+public class PaymentMetrics {
+    public enum Stage {
+        VALIDATION, PERSISTENCE, AUTHORIZATION, COMPLETION, NOTIFICATION
+    }
+
+    private final Map<PaymentMethod, Timer[]> processTimers = new EnumMap<>(PaymentMethod.class);
+    private final Map<Stage, Map<PaymentMethod, Timer[]>> stageTimers = new EnumMap<>(Stage.class);
+    private final Counter pixCallbacksCompleted;
+    private final Counter pixCallbacksRejected;
+    private final Counter pixExpirations;
+    private final Counter refundsSucceeded;
+    private final Counter refundsFailed;
+    private final Counter archivedPayments;
+
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        for (PaymentMethod method : PaymentMethod.values()) {
+            processTimers.put(method, timers(meterRegistry, "payment.process", null, method));
+        }
+        for (Stage stage : Stage.values()) {
+            Map<PaymentMethod, Timer[]> byMethod = new EnumMap<>(PaymentMethod.class);
+            for (PaymentMethod method : PaymentMethod.values()) {
+                byMethod.put(method, timers(meterRegistry, "payment.stage", stage, method));
+            }
+            stageTimers.put(stage, byMethod);
+        }
+
+        this.pixCallbacksCompleted = meterRegistry.counter("payment.pix.callbacks", "outcome", "completed");
+        this.pixCallbacksRejected = meterRegistry.counter("payment.pix.callbacks", "outcome", "rejected");
+        this.pixExpirations = meterRegistry.counter("payment.pix.expirations");
+        this.refundsSucceeded = meterRegistry.counter("payment.refunds", "outcome", "success");
+        this.refundsFailed = meterRegistry.counter("payment.refunds", "outcome", "failure");
+        this.archivedPayments = meterRegistry.counter("payment.archived");
+    }
+
+    public <T> T timeProcess(PaymentMethod method, Supplier<T> call) {
+        return time(processTimers.get(method), call);
+    }
+
+    public <T> T timeStage(Stage stage, PaymentMethod method, Supplier<T> call) {
+        return time(stageTimers.get(stage).get(method), call);
+    }
+
+    public void timeStage(Stage stage, PaymentMethod method, Runnable call) {
+        time(stageTimers.get(stage).get(method), () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public void pixCallback(boolean completed) {
+        (completed ? pixCallbacksCompleted : pixCallbacksRejected).increment();
+    }
+
+    public void pixExpired(int count) {
+        pixExpirations.increment(count);
+    }
+
+    public void refund(boolean succeeded) {
+        (succeeded ? refundsSucceeded : refundsFailed).increment();
+    }
+
+    public void archived(int count) {
+        archivedPayments.increment(count);
+    }
+
+    private static <T> T time(Timer[] timers, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            timers[success ? 0 : 1].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Index 0 is the success timer and index 1 the failure timer
+    private static Timer[] timers(MeterRegistry meterRegistry, String name, Stage stage, PaymentMethod method) {
+        Timer[] timers = new Timer[2];
+        String[] outcomes = {"success", "failure"};
+        for (int i = 0; i < timers.length; i++) {
+            Timer.Builder builder = Timer.builder(name)
+                .tag("method", method.name())
+                .tag("outcome", outcomes[i]);
+            if (stage != null) {
+                builder.tag("stage", stage.name().toLowerCase());
+            }
+            timers[i] = builder.register(meterRegistry);
+        }
+        return timers;
+    }
+}
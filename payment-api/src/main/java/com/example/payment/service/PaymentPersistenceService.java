@@ -0,0 +1,334 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.CreditCardPayment;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.domain.model.PixPayment;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.NotificationPreferences;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PixRequest;
+import com.example.payment.exception.InvalidPaymentStatusException;
+import com.example.payment.exception.PaymentNotFoundException;
+import com.example.payment.exception.PaymentProcessingException;
+import com.example.payment.repository.CreditCardPaymentRepository;
+import com.example.payment.repository.PaymentRepository;
+import com.example.payment.repository.PixPaymentRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Short transactions around the payment pipeline. Each method commits on
+ * return so that no connection is held while the acquirer is being called.
+ */
+@Service
+@Transactional
+public class PaymentPersistenceService {
+    private final PaymentRepository paymentRepository;
+    private final CreditCardPaymentRepository creditCardPaymentRepository;
+    private final PixPaymentRepository pixPaymentRepository;
+    private final NotificationService notificationService;
+    private final JobCoordinator jobCoordinator;
+    private final PaymentStateMachine stateMachine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BrCodeService brCodeService;
+    private final IdempotencyService idempotencyService;
+
+    public PaymentPersistenceService(
+        PaymentRepository paymentRepository,
+        CreditCardPaymentRepository creditCardPaymentRepository,
+        PixPaymentRepository pixPaymentRepository,
+        NotificationService notificationService,
+        JobCoordinator jobCoordinator,
+        PaymentStateMachine stateMachine,
+        ApplicationEventPublisher eventPublisher,
+        BrCodeService brCodeService,
+        IdempotencyService idempotencyService
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.creditCardPaymentRepository = creditCardPaymentRepository;
+        this.pixPaymentRepository = pixPaymentRepository;
+        this.notificationService = notificationService;
+        this.jobCoordinator = jobCoordinator;
+        this.stateMachine = stateMachine;
+        this.eventPublisher = eventPublisher;
+        this.brCodeService = brCodeService;
+        this.idempotencyService = idempotencyService;
+    }
+
+    public CreditCardPayment createCreditCardPayment(
+        PaymentRequest request,
+        CreditCardRequest cardDetails,
+        PaymentCard card
+    ) {
+        return createCreditCardPayment(null, request, cardDetails, card);
+    }
+
+    /**
+     * Inserts a PROCESSING card payment, bound to the idempotency key of its
+     * request (if any) in the same transaction.
+     */
+    public CreditCardPayment createCreditCardPayment(
+        String idempotencyKey,
+        PaymentRequest request,
+        CreditCardRequest cardDetails,
+        PaymentCard card
+    ) {
+        CreditCardPayment ccPayment = createCreditCardPayments(List.of(
+            new NewCreditCardPayment(request, cardDetails, card)
+        )).get(0);
+        if (idempotencyKey != null) {
+            idempotencyService.bind(idempotencyKey, ccPayment.getPayment().getId());
+        }
+        return ccPayment;
+    }
+
+    /**
+     * Inserts PROCESSING card payments in one transaction. The entities are
+     * persisted together so that Hibernate can group the inserts into JDBC
+     * batches (hibernate.jdbc.batch_size, order_inserts).
+     */
+    public List<CreditCardPayment> createCreditCardPayments(List<NewCreditCardPayment> newPayments) {
+        List<Payment> payments = paymentRepository.saveAll(newPayments.stream()
+            .map(newPayment -> createPayment(newPayment.request(), PaymentStatus.PROCESSING))
+            .toList());
+
+        List<CreditCardPayment> ccPayments = new ArrayList<>(newPayments.size());
+        for (int i = 0; i < newPayments.size(); i++) {
+            NewCreditCardPayment newPayment = newPayments.get(i);
+            Payment payment = payments.get(i);
+            eventPublisher.publishEvent(PaymentStatusChangedEvent.of(payment, null));
+
+            PaymentCard card = newPayment.card();
+            CreditCardPayment ccPayment = new CreditCardPayment();
+            ccPayment.setPayment(payment);
+            ccPayment.setCardNumberHash(card.cardNumberHash());
+            ccPayment.setCardHolderName(card.cardHolderName());
+            ccPayment.setInstallments(newPayment.cardDetails().getInstallments());
+            ccPayment.setLastFourDigits(card.lastFourDigits());
+            ccPayment.setCardBrand(card.bin().brand());
+            ccPayment.setCardIssuer(card.bin().issuer());
+            ccPayment.setCardCountry(card.bin().country());
+            ccPayment.setCardFunding(card.bin().funding());
+            ccPayments.add(ccPayment);
+        }
+        return creditCardPaymentRepository.saveAll(ccPayments);
+    }
+
+    public CreditCardPayment completeCreditCardPayment(String paymentId, AuthorizationResult authorization) {
+        // Transition first, so the card payment below is loaded with the updated payment
+        Payment payment = stateMachine.transition(paymentId, PaymentStatus.PROCESSING, PaymentStatus.COMPLETED)
+            .orElseThrow(() -> new InvalidPaymentStatusException("Payment is no longer being processed"));
+
+        CreditCardPayment ccPayment = findCreditCardPayment(paymentId);
+        ccPayment.setAuthorizationCode(authorization.authorizationCode());
+        ccPayment.setTransactionId(authorization.transactionId());
+        ccPayment.setProcessedAt(authorization.authorizedAt());
+        creditCardPaymentRepository.save(ccPayment);
+
+        notificationService.scheduleNotifications(payment);
+        return ccPayment;
+    }
+
+    /**
+     * Records the authorizations of many PROCESSING card payments in one
+     * transaction. Payments that are no longer PROCESSING are skipped and
+     * missing from the result.
+     */
+    public List<CreditCardPayment> completeCreditCardPayments(Map<String, AuthorizationResult> authorizations) {
+        List<Payment> completed = stateMachine.transitionAll(
+            authorizations.keySet(), PaymentStatus.PROCESSING, PaymentStatus.COMPLETED
+        );
+        if (completed.isEmpty()) {
+            return List.of();
+        }
+
+        List<CreditCardPayment> ccPayments = creditCardPaymentRepository.findByPaymentIdIn(
+            completed.stream().map(Payment::getId).toList()
+        );
+        for (CreditCardPayment ccPayment : ccPayments) {
+            AuthorizationResult authorization = authorizations.get(ccPayment.getPayment().getId());
+            ccPayment.setAuthorizationCode(authorization.authorizationCode());
+            ccPayment.setTransactionId(authorization.transactionId());
+            ccPayment.setProcessedAt(authorization.authorizedAt());
+        }
+        completed.forEach(notificationService::scheduleNotifications);
+        return ccPayments;
+    }
+
+    public Payment failCreditCardPayment(String paymentId) {
+        return stateMachine.transition(paymentId, PaymentStatus.PROCESSING, PaymentStatus.FAILED)
+            .orElseGet(() -> findPayment(paymentId));
+    }
+
+    public PixPayment createPixPayment(String idempotencyKey, PaymentRequest request, PixRequest pixDetails) {
+        PixPayment pixPayment = createPixPayments(List.of(new NewPixPayment(request, pixDetails))).get(0);
+        if (idempotencyKey != null) {
+            idempotencyService.bind(idempotencyKey, pixPayment.getPayment().getId());
+        }
+        return pixPayment;
+    }
+
+    /**
+     * Inserts PENDING PIX charges in one transaction, batched like
+     * {@link #createCreditCardPayments}. QR code payments are PIX charges
+     * shown with a static code instead of a single-use one.
+     */
+    public List<PixPayment> createPixPayments(List<NewPixPayment> newPayments) {
+        List<Payment> payments = paymentRepository.saveAll(newPayments.stream()
+            .map(newPayment -> createPayment(newPayment.request(), PaymentStatus.PENDING))
+            .toList());
+
+        List<PixPayment> pixPayments = new ArrayList<>(newPayments.size());
+        for (int i = 0; i < newPayments.size(); i++) {
+            PixRequest pixDetails = newPayments.get(i).pixDetails();
+            Payment payment = payments.get(i);
+            eventPublisher.publishEvent(PaymentStatusChangedEvent.of(payment, null));
+
+            LocalDateTime expiresAt = pixDetails.getExpiresAt() != null
+                ? pixDetails.getExpiresAt()
+                : LocalDateTime.now().plusHours(24);
+
+            PixPayment pixPayment = new PixPayment();
+            pixPayment.setPayment(payment);
+            pixPayment.setPixKey(pixDetails.getPixKey());
+            pixPayment.setQrCodeData(payment.getPaymentMethod() == PaymentMethod.QR_CODE
+                ? brCodeService.staticCode(payment.getId(), pixDetails.getPixKey(), payment.getAmount(), pixDetails.getDescription())
+                : brCodeService.chargeCode(payment.getId(), pixDetails.getPixKey(), payment.getAmount(), pixDetails.getDescription()));
+            pixPayment.setExpiresAt(expiresAt);
+            pixPayment.setTransactionId(UUID.randomUUID().toString());
+            pixPayment.setPaid(false);
+            pixPayment.setExpiryPartition(jobCoordinator.partitionOf(JobCoordinator.PIX_EXPIRY_JOB, payment.getId()));
+            pixPayments.add(pixPayment);
+
+            notificationService.scheduleNotifications(payment);
+        }
+        return pixPaymentRepository.saveAll(pixPayments);
+    }
+
+    public Payment completePixPayment(String paymentId, LocalDateTime paidAt) {
+        Payment payment = stateMachine.completePixPayment(paymentId, paidAt).orElseThrow(() -> {
+            PaymentStatus status = findPayment(paymentId).getStatus();
+            if (status == PaymentStatus.COMPLETED || status == PaymentStatus.REFUND_PENDING || status == PaymentStatus.REFUNDED) {
+                return new PaymentProcessingException("Payment already processed");
+            }
+            return new InvalidPaymentStatusException("Payment cannot be paid in status " + status);
+        });
+
+        notificationService.scheduleNotifications(payment);
+        return payment;
+    }
+
+    /**
+     * Moves the payment to REFUND_PENDING before the acquirer is called, so
+     * that concurrent refunds of the same payment cannot both go through.
+     * The outcome is recorded by {@link #confirmRefund} or
+     * {@link #revertRefund}, or by the recovery job if neither ran.
+     */
+    public Payment reserveRefund(String paymentId) {
+        return stateMachine.transition(paymentId, PaymentStatus.COMPLETED, PaymentStatus.REFUND_PENDING)
+            .orElseThrow(() -> {
+                findPayment(paymentId);
+                return new InvalidPaymentStatusException("Only completed payments can be refunded");
+            });
+    }
+
+    // No-ops if the pending refund was settled meanwhile, by recovery or another node
+    public void confirmRefund(String paymentId) {
+        stateMachine.transition(paymentId, PaymentStatus.REFUND_PENDING, PaymentStatus.REFUNDED)
+            .ifPresent(notificationService::scheduleRefundNotification);
+    }
+
+    public void revertRefund(String paymentId) {
+        stateMachine.transition(paymentId, PaymentStatus.REFUND_PENDING, PaymentStatus.COMPLETED);
+    }
+
+    public List<Payment> expireDuePixPayments(LocalDateTime now, int limit, Set<Integer> partitions) {
+        List<Payment> expired = paymentRepository.expireDuePixPayments(now, limit, partitions, partitions.contains(0));
+        expired.forEach(this::onExpired);
+        return expired;
+    }
+
+    public List<Payment> expirePixPayments(Collection<String> paymentIds, LocalDateTime now) {
+        List<Payment> expired = paymentRepository.expirePixPayments(paymentIds, now);
+        expired.forEach(this::onExpired);
+        return expired;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Payment> findStuckPayments(LocalDateTime updatedBefore) {
+        return paymentRepository.findTop100ByStatusAndArchivedFalseAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+            PaymentStatus.PROCESSING,
+            updatedBefore
+        );
+    }
+
+    // Archived payments can be refunded too, so this reads every partition
+    @Transactional(readOnly = true)
+    public List<Payment> findStuckRefunds(LocalDateTime updatedBefore) {
+        return paymentRepository.findTop100ByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+            PaymentStatus.REFUND_PENDING,
+            updatedBefore
+        );
+    }
+
+    public record NewCreditCardPayment(
+        PaymentRequest request,
+        CreditCardRequest cardDetails,
+        PaymentCard card
+    ) {
+    }
+
+    public record NewPixPayment(PaymentRequest request, PixRequest pixDetails) {
+    }
+
+    private void onExpired(Payment payment) {
+        eventPublisher.publishEvent(PaymentStatusChangedEvent.of(payment, PaymentStatus.PENDING));
+        notificationService.schedulePaymentExpiredNotification(payment);
+    }
+
+    private Payment createPayment(PaymentRequest request, PaymentStatus status) {
+        Payment payment = new Payment();
+        payment.setAmount(request.getAmount());
+        payment.setCurrency(request.getCurrency());
+        payment.setPaymentMethod(request.getPaymentMethod());
+        payment.setStatus(status);
+
+        NotificationPreferences prefs = request.getNotificationPreferences();
+        if (prefs != null) {
+            payment.setEmailNotification(prefs.getEmailNotification());
+            payment.setSmsNotification(prefs.getSmsNotification());
+            payment.setWebhookUrl(prefs.getWebhookUrl());
+        }
+        return payment;
+    }
+
+    private Payment findPayment(String paymentId) {
+        return paymentRepository.findById(paymentId)
+            .orElseThrow(() -> new PaymentNotFoundException(paymentId));
+    }
+
+    // Read from the primary, unlike PaymentQueryService: a payment being resumed may have just changed
+    public CreditCardPayment findCreditCardPayment(String paymentId) {
+        CreditCardPayment ccPayment = creditCardPaymentRepository.findByPaymentId(paymentId);
+        if (ccPayment == null) {
+            throw new PaymentProcessingException("Credit card payment not found");
+        }
+        return ccPayment;
+    }
+
+    public PixPayment findPixPayment(String paymentId) {
+        return pixPaymentRepository.findByPaymentId(paymentId)
+            .orElseThrow(() -> new PaymentNotFoundException(paymentId));
+    }
+}
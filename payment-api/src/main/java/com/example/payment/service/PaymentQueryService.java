@@ -0,0 +1,139 @@
+package com.example.payment.service;
+
+import com.example.payment.config.DataSourceRouting;
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.PaymentNotification;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.dto.PaymentSearchResponse;
+import com.example.payment.exception.PaymentNotFoundException;
+import com.example.payment.exception.PaymentValidationException;
+import com.example.payment.repository.PaymentCursor;
+import com.example.payment.repository.PaymentNotificationRepository;
+import com.example.payment.repository.PaymentRepository;
+import com.example.payment.repository.PaymentSearchFilter;
+import com.example.payment.repository.PaymentView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@Transactional(readOnly = true)
+public class PaymentQueryService {
+    private final PaymentRepository paymentRepository;
+    private final PaymentNotificationRepository notificationRepository;
+    private final PaymentCache paymentCache;
+    private final RecentPaymentWrites recentWrites;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public PaymentQueryService(
+        PaymentRepository paymentRepository,
+        PaymentNotificationRepository notificationRepository,
+        PaymentCache paymentCache,
+        RecentPaymentWrites recentWrites,
+        @Value("${payment.search.default-page-size:20}") int defaultPageSize,
+        @Value("${payment.search.max-page-size:100}") int maxPageSize
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.notificationRepository = notificationRepository;
+        this.paymentCache = paymentCache;
+        this.recentWrites = recentWrites;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // No surrounding transaction, so cache hits never take a connection
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<PaymentResponse> getPayment(String id) {
+        return Optional.ofNullable(paymentCache.get(id, key -> {
+            // A replica may not have the latest change yet, and the result is cached
+            if (recentWrites.contains(key)) {
+                return DataSourceRouting.onPrimary(() -> loadPayment(key));
+            }
+            return loadPayment(key);
+        }));
+    }
+
+    private PaymentResponse loadPayment(String id) {
+        return paymentRepository.findViewById(id)
+            .map(this::convertToResponse)
+            .orElse(null);
+    }
+
+    /**
+     * Pages through payments newest first. Pass the returned
+     * {@code nextCursor} to fetch the following page; it is null on the last
+     * page.
+     */
+    public PaymentSearchResponse searchPayments(
+        PaymentStatus status,
+        PaymentMethod method,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        String cursor,
+        Integer pageSize
+    ) {
+        int limit = pageSize != null ? pageSize : defaultPageSize;
+        if (limit < 1 || limit > maxPageSize) {
+            throw new PaymentValidationException("Page size must be between 1 and " + maxPageSize);
+        }
+
+        // One extra row tells whether another page exists without a count query
+        List<PaymentView> payments = paymentRepository.search(
+            new PaymentSearchFilter(status, method, startDate, endDate),
+            cursor != null ? PaymentCursor.decode(cursor) : null,
+            limit + 1
+        );
+
+        String nextCursor = null;
+        if (payments.size() > limit) {
+            payments = payments.subList(0, limit);
+            PaymentView last = payments.get(limit - 1);
+            nextCursor = new PaymentCursor(last.createdAt(), last.id()).encode();
+        }
+
+        return PaymentSearchResponse.builder()
+            .payments(payments.stream().map(this::convertToResponse).toList())
+            .nextCursor(nextCursor)
+            .build();
+    }
+
+    public List<PaymentNotification> getPaymentNotifications(String paymentId) {
+        if (!paymentRepository.existsById(paymentId)) {
+            throw new PaymentNotFoundException(paymentId);
+        }
+        return notificationRepository.findByPaymentId(paymentId);
+    }
+
+    // Same additionalInfo keys as the responses returned when the payment is created
+    private PaymentResponse convertToResponse(PaymentView payment) {
+        Map<String, Object> additionalInfo = new HashMap<>();
+        if (payment.paymentMethod() == PaymentMethod.CREDIT_CARD) {
+            additionalInfo.put("authorizationCode", payment.authorizationCode());
+            additionalInfo.put("transactionId", payment.cardTransactionId());
+            additionalInfo.put("cardBrand", payment.cardBrand());
+            additionalInfo.put("lastFourDigits", payment.lastFourDigits());
+            additionalInfo.put("installments", payment.installments());
+        } else if (payment.paymentMethod() == PaymentMethod.PIX || payment.paymentMethod() == PaymentMethod.QR_CODE) {
+            additionalInfo.put("pixKey", payment.pixKey());
+            additionalInfo.put("qrCodeData", payment.qrCodeData());
+            additionalInfo.put("transactionId", payment.pixTransactionId());
+            additionalInfo.put("paidAt", payment.pixPaidAt());
+        }
+
+        return PaymentResponse.builder()
+            .id(payment.id())
+            .status(payment.status())
+            .additionalInfo(additionalInfo)
+            .expiresAt(payment.pixExpiresAt())
+            .build();
+    }
+}
\ No newline at end of file
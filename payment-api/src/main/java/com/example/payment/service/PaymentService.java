@@ -0,0 +1,368 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.CreditCardPayment;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.domain.model.PixPayment;
+import com.example.payment.dto.*;
+import com.example.payment.exception.InvalidPaymentStatusException;
+import com.example.payment.exception.PaymentProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@Service
+public class PaymentService {
+    private final PaymentPersistenceService persistenceService;
+    private final AcquirerService acquirerService;
+    private final PixExpiryService pixExpiryService;
+    private final JobCoordinator jobCoordinator;
+    private final PaymentValidationService validationService;
+    private final IdempotencyService idempotencyService;
+    private final CardVault cardVault;
+    private final PaymentMetrics metrics;
+    private final PaymentAdmissionControl admissionControl;
+    private final Duration stuckPaymentTimeout;
+
+    public PaymentService(
+        PaymentPersistenceService persistenceService,
+        AcquirerService acquirerService,
+        PixExpiryService pixExpiryService,
+        JobCoordinator jobCoordinator,
+        PaymentValidationService validationService,
+        IdempotencyService idempotencyService,
+        CardVault cardVault,
+        PaymentMetrics metrics,
+        PaymentAdmissionControl admissionControl,
+        @Value("${payment.recovery.stuck-after:5m}") Duration stuckPaymentTimeout
+    ) {
+        this.persistenceService = persistenceService;
+        this.acquirerService = acquirerService;
+        this.pixExpiryService = pixExpiryService;
+        this.jobCoordinator = jobCoordinator;
+        this.validationService = validationService;
+        this.idempotencyService = idempotencyService;
+        this.cardVault = cardVault;
+        this.metrics = metrics;
+        this.admissionControl = admissionControl;
+        this.stuckPaymentTimeout = stuckPaymentTimeout;
+    }
+
+    /**
+     * Processes the payment once per idempotency key; retries with the same
+     * key and body get the original response, or resume the payment if the
+     * first attempt did not finish. Without a key every call creates a new
+     * payment.
+     */
+    public PaymentResponse processPayment(String idempotencyKey, PaymentRequest request) {
+        if (idempotencyKey == null) {
+            return processPayment(request);
+        }
+        return idempotencyService.execute(
+            idempotencyKey,
+            request,
+            () -> createPayment(idempotencyKey, request),
+            paymentId -> resumePayment(paymentId, request)
+        );
+    }
+
+    /**
+     * Processes one payment within the admission budget of its method; over
+     * the budget it fails fast with PaymentOverloadedException.
+     */
+    public PaymentResponse processPayment(PaymentRequest request) {
+        return createPayment(null, request);
+    }
+
+    // The key, if any, is bound to the payment in the transaction that creates it
+    private PaymentResponse createPayment(String idempotencyKey, PaymentRequest request) {
+        PaymentAdmissionControl.Traffic traffic = PaymentAdmissionControl.Traffic.of(request.getPaymentMethod());
+        return admissionControl.admit(traffic, () -> metrics.timeProcess(request.getPaymentMethod(), () -> {
+            validationService.validatePaymentRequest(request);
+            
+            return switch (request.getPaymentMethod()) {
+                case CREDIT_CARD -> processCreditCardPayment(idempotencyKey, request);
+                case PIX, QR_CODE -> processPixPayment(idempotencyKey, request);
+                default -> throw new PaymentProcessingException("Unsupported payment method");
+            };
+        }));
+    }
+
+    /**
+     * Picks up a payment created under an idempotency key by an attempt that
+     * did not finish, from where its status says it stopped. A card payment
+     * still PROCESSING is authorized again; the acquirer returns its original
+     * authorization for a payment it already authorized, so resuming never
+     * charges twice.
+     */
+    PaymentResponse resumePayment(String paymentId, PaymentRequest request) {
+        PaymentAdmissionControl.Traffic traffic = PaymentAdmissionControl.Traffic.of(request.getPaymentMethod());
+        return admissionControl.admit(traffic, () -> switch (request.getPaymentMethod()) {
+            case CREDIT_CARD -> resumeCreditCardPayment(paymentId, request);
+            case PIX, QR_CODE -> pixResponse(persistenceService.findPixPayment(paymentId), PaymentValidationService.pixDetails(request));
+            default -> throw new PaymentProcessingException("Unsupported payment method");
+        });
+    }
+
+    private PaymentResponse resumeCreditCardPayment(String paymentId, PaymentRequest request) {
+        CreditCardRequest cardDetails = PaymentValidationService.creditCardDetails(request);
+        CreditCardPayment ccPayment = persistenceService.findCreditCardPayment(paymentId);
+        Payment payment = ccPayment.getPayment();
+
+        if (payment.getStatus() == PaymentStatus.PROCESSING) {
+            AuthorizationResult authorization = authorize(payment, cardVault.resolve(cardDetails), cardDetails);
+            try {
+                ccPayment = persistenceService.completeCreditCardPayment(paymentId, authorization);
+            } catch (InvalidPaymentStatusException e) {
+                // Settled meanwhile, by recovery or by the attempt being resumed
+                ccPayment = persistenceService.findCreditCardPayment(paymentId);
+            }
+        }
+        if (ccPayment.getPayment().getStatus() == PaymentStatus.FAILED) {
+            throw new PaymentProcessingException("Payment " + paymentId + " failed");
+        }
+
+        // A token that was revoked since must not turn a completed payment into an error
+        String cardToken = cardDetails.getCardToken() != null
+            ? cardDetails.getCardToken()
+            : cardToken(paymentId, cardDetails, cardVault.resolve(cardDetails));
+        return creditCardResponse(ccPayment, cardDetails, cardToken);
+    }
+
+    private PaymentResponse processCreditCardPayment(String idempotencyKey, PaymentRequest request) {
+        CreditCardRequest cardDetails = PaymentValidationService.creditCardDetails(request);
+        
+        // A saved card comes from the vault's index, with no card number to hash or look up
+        PaymentCard card = cardVault.resolve(cardDetails);
+
+        // Stage 1: persist the PROCESSING payment and commit
+        CreditCardPayment ccPayment = metrics.timeStage(PaymentMetrics.Stage.PERSISTENCE, PaymentMethod.CREDIT_CARD, () ->
+            persistenceService.createCreditCardPayment(idempotencyKey, request, cardDetails, card)
+        );
+        Payment payment = ccPayment.getPayment();
+
+        // Stage 2: authorize with no connection held
+        AuthorizationResult authorization = authorize(payment, card, cardDetails);
+
+        // Stage 3: record the outcome in a second short transaction; if it fails, recovery completes the payment
+        ccPayment = metrics.timeStage(PaymentMetrics.Stage.COMPLETION, PaymentMethod.CREDIT_CARD, () ->
+            persistenceService.completeCreditCardPayment(payment.getId(), authorization)
+        );
+        
+        return creditCardResponse(ccPayment, cardDetails, cardToken(payment.getId(), cardDetails, card));
+    }
+
+    private AuthorizationResult authorize(Payment payment, PaymentCard card, CreditCardRequest cardDetails) {
+        try {
+            return metrics.timeStage(PaymentMetrics.Stage.AUTHORIZATION, PaymentMethod.CREDIT_CARD, () ->
+                acquirerService.authorize(payment.getId(), payment.getAmount(), cardVault.acquirerDetails(card, cardDetails))
+            );
+        } catch (RuntimeException e) {
+            return reconcileAuthorization(payment.getId()).orElseThrow(() -> e);
+        }
+    }
+
+    private PaymentResponse processPixPayment(String idempotencyKey, PaymentRequest request) {
+        PixRequest pixDetails = PaymentValidationService.pixDetails(request);
+        
+        PixPayment pixPayment = metrics.timeStage(PaymentMetrics.Stage.PERSISTENCE, request.getPaymentMethod(), () ->
+            persistenceService.createPixPayment(idempotencyKey, request, pixDetails)
+        );
+        Payment payment = pixPayment.getPayment();
+        pixExpiryService.track(payment.getId(), pixPayment.getExpiresAt());
+        
+        return pixResponse(pixPayment, pixDetails);
+    }
+
+    /**
+     * Settles a card payment whose authorization call failed. The call may
+     * have failed after the acquirer authorized, so the acquirer's record
+     * decides: its authorization is returned to complete the payment with,
+     * and a payment it has no record of is failed. If the acquirer cannot
+     * be asked either, the payment is left PROCESSING for recovery.
+     */
+    Optional<AuthorizationResult> reconcileAuthorization(String paymentId) {
+        Optional<AuthorizationResult> authorization;
+        try {
+            authorization = acquirerService.findAuthorization(paymentId);
+        } catch (RuntimeException e) {
+            log.warn("Could not look up the authorization of payment {}, left for recovery", paymentId, e);
+            return Optional.empty();
+        }
+        if (authorization.isEmpty()) {
+            try {
+                persistenceService.failCreditCardPayment(paymentId);
+            } catch (RuntimeException e) {
+                log.error("Failed to mark card payment {} as failed, left for recovery", paymentId, e);
+            }
+        }
+        return authorization;
+    }
+
+    /**
+     * The token of the card a completed payment was charged to: the one it
+     * was paid with, or a new one if the request asked to save the card.
+     * Null when the card is not saved.
+     */
+    String cardToken(String paymentId, CreditCardRequest cardDetails, PaymentCard card) {
+        if (card.token() != null || !Boolean.TRUE.equals(cardDetails.getSaveCard())) {
+            return card.token();
+        }
+        try {
+            return cardVault.save(cardDetails, card);
+        } catch (RuntimeException e) {
+            // The payment is already charged; failing it now would invite a second charge on retry
+            log.error("Failed to save the card of payment {}", paymentId, e);
+            return null;
+        }
+    }
+
+    PaymentResponse creditCardResponse(CreditCardPayment ccPayment, CreditCardRequest cardDetails, String cardToken) {
+        Map<String, Object> additionalInfo = new HashMap<>(Map.of(
+            "authorizationCode", ccPayment.getAuthorizationCode(),
+            "transactionId", ccPayment.getTransactionId(),
+            "cardBrand", ccPayment.getCardBrand(),
+            "installments", cardDetails.getInstallments()
+        ));
+        if (cardToken != null) {
+            additionalInfo.put("cardToken", cardToken);
+        }
+
+        return PaymentResponse.builder()
+            .id(ccPayment.getPayment().getId())
+            .status(PaymentStatus.COMPLETED)
+            .additionalInfo(additionalInfo)
+            .build();
+    }
+
+    PaymentResponse pixResponse(PixPayment pixPayment, PixRequest pixDetails) {
+        // The description is optional, which Map.of does not allow
+        Map<String, Object> additionalInfo = new HashMap<>();
+        additionalInfo.put("pixKey", pixDetails.getPixKey());
+        additionalInfo.put("qrCodeData", pixPayment.getQrCodeData());
+        additionalInfo.put("transactionId", pixPayment.getTransactionId());
+        additionalInfo.put("description", pixDetails.getDescription());
+
+        return PaymentResponse.builder()
+            .id(pixPayment.getPayment().getId())
+            .status(PaymentStatus.PENDING)
+            .additionalInfo(additionalInfo)
+            .expiresAt(pixPayment.getExpiresAt())
+            .build();
+    }
+
+    public PaymentResponse refundPayment(String paymentId) {
+        Payment payment = persistenceService.reserveRefund(paymentId);
+        
+        try {
+            acquirerService.refund(paymentId, payment.getAmount());
+        } catch (RuntimeException e) {
+            // The acquirer may have refunded before the error reached us
+            if (!reconcileRefund(paymentId)) {
+                metrics.refund(false);
+                throw e;
+            }
+        }
+        
+        persistenceService.confirmRefund(paymentId);
+        metrics.refund(true);
+        
+        return PaymentResponse.builder()
+            .id(payment.getId())
+            .status(PaymentStatus.REFUNDED)
+            .additionalInfo(Map.of("refundedAt", LocalDateTime.now().toString()))
+            .build();
+    }
+
+    /**
+     * Settles a REFUND_PENDING payment from the acquirer's record: returns
+     * true if the acquirer refunded it, for the caller to confirm, and
+     * otherwise moves it back to COMPLETED. If the record cannot be read the
+     * payment stays pending and the recovery job tries again later.
+     */
+    private boolean reconcileRefund(String paymentId) {
+        boolean refunded;
+        try {
+            refunded = acquirerService.isRefunded(paymentId);
+        } catch (RuntimeException e) {
+            log.error("Could not look up refund of payment {}, left pending for recovery", paymentId, e);
+            return false;
+        }
+        if (!refunded) {
+            persistenceService.revertRefund(paymentId);
+        }
+        return refunded;
+    }
+
+    public void handlePixCallback(String paymentId, PixCallbackRequest callback) {
+        admissionControl.admit(PaymentAdmissionControl.Traffic.PIX_CALLBACK, () -> {
+            try {
+                persistenceService.completePixPayment(paymentId, LocalDateTime.now());
+            } catch (RuntimeException e) {
+                metrics.pixCallback(false);
+                throw e;
+            }
+            metrics.pixCallback(true);
+            pixExpiryService.untrack(paymentId);
+        });
+    }
+
+    @Scheduled(fixedRate = 60000) // Safety net for charges the expiry wheels did not catch, per owned partition
+    public void checkExpiredPayments() {
+        pixExpiryService.expireDuePayments();
+    }
+
+    /**
+     * Settles card payments left in PROCESSING by a crash or timeout between
+     * the authorization call and the commit of its outcome, and refunds left
+     * in REFUND_PENDING the same way, from the acquirer's record of the
+     * payment. The record is shared by all nodes, so one node can settle the
+     * payments of another.
+     */
+    @Scheduled(fixedDelayString = "${payment.recovery.interval-ms:60000}")
+    public void recoverStuckPayments() {
+        if (!jobCoordinator.isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(stuckPaymentTimeout);
+        
+        for (Payment payment : persistenceService.findStuckPayments(cutoff)) {
+            try {
+                Optional<AuthorizationResult> authorization = acquirerService.findAuthorization(payment.getId());
+                if (authorization.isPresent()) {
+                    persistenceService.completeCreditCardPayment(payment.getId(), authorization.get());
+                    log.info("Recovered authorization for stuck payment {}", payment.getId());
+                } else {
+                    persistenceService.failCreditCardPayment(payment.getId());
+                    log.warn("No authorization found for stuck payment {}, marked as failed", payment.getId());
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to recover stuck payment {}", payment.getId(), e);
+            }
+        }
+
+        for (Payment payment : persistenceService.findStuckRefunds(cutoff)) {
+            try {
+                if (reconcileRefund(payment.getId())) {
+                    persistenceService.confirmRefund(payment.getId());
+                    log.info("Recovered refund of stuck payment {}", payment.getId());
+                } else {
+                    log.warn("No refund found for stuck payment {}, back to completed", payment.getId());
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to recover stuck refund of payment {}", payment.getId(), e);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.repository.PaymentRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Applies payment status transitions as single conditional updates, so that
+ * of several concurrent transitions out of the same status exactly one wins.
+ * A transition returns the updated payment when it won and empty when the
+ * payment was not in the expected status (or does not exist). The status
+ * change event is published for every transition won.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class PaymentStateMachine {
+    private static final Map<PaymentStatus, Set<PaymentStatus>> TRANSITIONS = new EnumMap<>(PaymentStatus.class);
+
+    static {
+        TRANSITIONS.put(PaymentStatus.PENDING, EnumSet.of(PaymentStatus.COMPLETED, PaymentStatus.EXPIRED));
+        TRANSITIONS.put(PaymentStatus.PROCESSING, EnumSet.of(PaymentStatus.COMPLETED, PaymentStatus.FAILED));
+        TRANSITIONS.put(PaymentStatus.COMPLETED, EnumSet.of(PaymentStatus.REFUND_PENDING));
+        // Back to COMPLETED when the acquirer did not refund
+        TRANSITIONS.put(PaymentStatus.REFUND_PENDING, EnumSet.of(PaymentStatus.REFUNDED, PaymentStatus.COMPLETED));
+        TRANSITIONS.put(PaymentStatus.REFUNDED, EnumSet.noneOf(PaymentStatus.class));
+        TRANSITIONS.put(PaymentStatus.FAILED, EnumSet.noneOf(PaymentStatus.class));
+        TRANSITIONS.put(PaymentStatus.EXPIRED, EnumSet.noneOf(PaymentStatus.class));
+    }
+
+    private final PaymentRepository paymentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PaymentStateMachine(PaymentRepository paymentRepository, ApplicationEventPublisher eventPublisher) {
+        this.paymentRepository = paymentRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public static boolean canTransition(PaymentStatus from, PaymentStatus to) {
+        return TRANSITIONS.get(from).contains(to);
+    }
+
+    public Optional<Payment> transition(String paymentId, PaymentStatus from, PaymentStatus to) {
+        if (!canTransition(from, to)) {
+            throw new IllegalArgumentException("Illegal payment status transition " + from + " -> " + to);
+        }
+        Optional<Payment> payment = paymentRepository.compareAndSetStatus(
+            paymentId, from.name(), to.name(), LocalDateTime.now()
+        );
+        payment.ifPresent(p -> eventPublisher.publishEvent(PaymentStatusChangedEvent.of(p, from)));
+        return payment;
+    }
+
+    /**
+     * Applies the same transition to many payments in one statement and
+     * returns those that won.
+     */
+    public List<Payment> transitionAll(Collection<String> paymentIds, PaymentStatus from, PaymentStatus to) {
+        if (!canTransition(from, to)) {
+            throw new IllegalArgumentException("Illegal payment status transition " + from + " -> " + to);
+        }
+        List<Payment> payments = paymentRepository.compareAndSetStatuses(
+            paymentIds, from.name(), to.name(), LocalDateTime.now()
+        );
+        payments.forEach(p -> eventPublisher.publishEvent(PaymentStatusChangedEvent.of(p, from)));
+        return payments;
+    }
+
+    /**
+     * PENDING -> COMPLETED for a PIX charge, marking the charge as paid in
+     * the same statement.
+     */
+    public Optional<Payment> completePixPayment(String paymentId, LocalDateTime paidAt) {
+        Optional<Payment> payment = paymentRepository.completePixPayment(paymentId, paidAt, LocalDateTime.now());
+        payment.ifPresent(p -> eventPublisher.publishEvent(PaymentStatusChangedEvent.of(p, PaymentStatus.PENDING)));
+        return payment;
+    }
+}
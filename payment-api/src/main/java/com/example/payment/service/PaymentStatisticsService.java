@@ -0,0 +1,237 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.PaymentRates;
+import com.example.payment.dto.PaymentStatisticsResponse;
+import com.example.payment.dto.PaymentTotals;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live payment totals per (status, method, currency) and the rate at which
+ * payments enter each status, kept in memory so dashboards do not have to
+ * aggregate over the payments table. Totals are seeded from one aggregate
+ * query at startup and then moved by every committed status change, on
+ * this node or, through {@link PaymentStatusBroadcaster}, on any other;
+ * they are reseeded when changes from other nodes may have been missed,
+ * and every {@code payment.stats.reseed-interval-ms} so that a change lost
+ * in between (a failed broadcast, a change committed while a reseed was
+ * running) does not drift the totals for good. Rates only count the
+ * changes seen since startup.
+ *
+ * <p>Amounts are summed in hundredths of the currency unit, rounded half
+ * up as PostgreSQL rounds into the {@code amount} column.
+ */
+@Slf4j
+@Service
+public class PaymentStatisticsService implements SmartInitializingSingleton {
+    private static final String SEED_QUERY = """
+        SELECT status, payment_method, currency, count(*) AS payments, coalesce(sum(amount), 0) AS amount
+        FROM payments
+        GROUP BY status, payment_method, currency
+        """;
+
+    private static final Totals EMPTY = new Totals(0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    // Replaced as a whole by every seed; gauges look their bucket up in the current map
+    private volatile ConcurrentMap<TotalsKey, Totals> totals = new ConcurrentHashMap<>();
+    private final Set<TotalsKey> registered = ConcurrentHashMap.newKeySet();
+    private final Map<PaymentStatus, SlidingWindowCounter> minuteRates = new EnumMap<>(PaymentStatus.class);
+    private final Map<PaymentStatus, SlidingWindowCounter> hourRates = new EnumMap<>(PaymentStatus.class);
+
+    public PaymentStatisticsService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+
+        for (PaymentStatus status : PaymentStatus.values()) {
+            SlidingWindowCounter minute = new SlidingWindowCounter(Duration.ofMinutes(1), 60);
+            SlidingWindowCounter hour = new SlidingWindowCounter(Duration.ofHours(1), 60);
+            minuteRates.put(status, minute);
+            hourRates.put(status, hour);
+            Gauge.builder("payment.stats.rate", minute, counter -> counter.sum(System.currentTimeMillis()))
+                .tag("status", status.name())
+                .tag("window", "1m")
+                .register(meterRegistry);
+            Gauge.builder("payment.stats.rate", hour, counter -> counter.sum(System.currentTimeMillis()))
+                .tag("status", status.name())
+                .tag("window", "1h")
+                .register(meterRegistry);
+        }
+    }
+
+    // Runs before the web server and the status listener start, so no change can interleave with the seed
+    @Override
+    public void afterSingletonsInstantiated() {
+        seed();
+    }
+
+    @Scheduled(
+        fixedDelayString = "${payment.stats.reseed-interval-ms:600000}",
+        initialDelayString = "${payment.stats.reseed-interval-ms:600000}"
+    )
+    public void reseed() {
+        try {
+            seed();
+        } catch (DataAccessException e) {
+            // The current totals stay in place until the next attempt
+            log.warn("Could not reseed payment statistics: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        apply(event.paymentMethod(), event.previousStatus(), event.newStatus(), event.currency(), event.amount());
+    }
+
+    @EventListener
+    public void onRemoteStatusChanged(RemotePaymentStatusChangedEvent event) {
+        if (event.isMissedChanges()) {
+            seed();
+        } else {
+            apply(event.paymentMethod(), event.previousStatus(), event.newStatus(), event.currency(), event.amount());
+        }
+    }
+
+    public PaymentStatisticsResponse getStatistics() {
+        long now = System.currentTimeMillis();
+        List<PaymentTotals> snapshot = totals.entrySet().stream()
+            .filter(entry -> entry.getValue().count.sum() != 0)
+            .map(entry -> PaymentTotals.builder()
+                .status(entry.getKey().status())
+                .paymentMethod(entry.getKey().method())
+                .currency(entry.getKey().currency())
+                .count(entry.getValue().count.sum())
+                .amount(entry.getValue().amount())
+                .build())
+            .sorted(Comparator.comparing(PaymentTotals::getStatus)
+                .thenComparing(PaymentTotals::getPaymentMethod)
+                .thenComparing(PaymentTotals::getCurrency))
+            .toList();
+
+        Map<PaymentStatus, PaymentRates> rates = new EnumMap<>(PaymentStatus.class);
+        for (PaymentStatus status : PaymentStatus.values()) {
+            rates.put(status, PaymentRates.builder()
+                .lastMinute(minuteRates.get(status).sum(now))
+                .lastHour(hourRates.get(status).sum(now))
+                .build());
+        }
+
+        return PaymentStatisticsResponse.builder()
+            .totals(snapshot)
+            .rates(rates)
+            .build();
+    }
+
+    private void apply(PaymentMethod method, PaymentStatus from, PaymentStatus to, String currency, BigDecimal amount) {
+        long hundredths = toHundredths(amount);
+        // Both sides of the change land in the same map, even if a seed swaps it meanwhile
+        ConcurrentMap<TotalsKey, Totals> totals = this.totals;
+        if (from != null) {
+            Totals previous = totals(totals, new TotalsKey(from, method, currency));
+            previous.count.decrement();
+            previous.amount.add(-hundredths);
+        }
+        Totals current = totals(totals, new TotalsKey(to, method, currency));
+        current.count.increment();
+        current.amount.add(hundredths);
+
+        long now = System.currentTimeMillis();
+        minuteRates.get(to).increment(now);
+        hourRates.get(to).increment(now);
+    }
+
+    /**
+     * Replaces the totals with the current aggregate of the payments
+     * table. The new buckets are built aside and swapped in at once, so
+     * readers never see a half-reset map; a change applied to the old map
+     * while the query runs is lost until the next seed.
+     */
+    private void seed() {
+        ConcurrentMap<TotalsKey, Totals> seeded = new ConcurrentHashMap<>();
+        jdbcTemplate.query(SEED_QUERY, rs -> {
+            seeded.put(
+                new TotalsKey(
+                    PaymentStatus.valueOf(rs.getString("status")),
+                    PaymentMethod.valueOf(rs.getString("payment_method")),
+                    rs.getString("currency")
+                ),
+                new Totals(rs.getLong("payments"), toHundredths(rs.getBigDecimal("amount")))
+            );
+        });
+
+        seeded.keySet().forEach(this::register);
+        totals = seeded;
+        log.info("Seeded payment statistics with {} status/method/currency groups", seeded.size());
+    }
+
+    private Totals totals(ConcurrentMap<TotalsKey, Totals> totals, TotalsKey key) {
+        Totals bucket = totals.computeIfAbsent(key, k -> new Totals(0, 0));
+        register(key);
+        return bucket;
+    }
+
+    private void register(TotalsKey key) {
+        if (!registered.add(key)) {
+            return;
+        }
+        Gauge.builder("payment.stats.payments", this, service -> service.current(key).count.sum())
+            .tag("status", key.status().name())
+            .tag("method", key.method().name())
+            .tag("currency", key.currency())
+            .register(meterRegistry);
+        Gauge.builder("payment.stats.amount", this, service -> service.current(key).amount().doubleValue())
+            .tag("status", key.status().name())
+            .tag("method", key.method().name())
+            .tag("currency", key.currency())
+            .register(meterRegistry);
+    }
+
+    private Totals current(TotalsKey key) {
+        return totals.getOrDefault(key, EMPTY);
+    }
+
+    static long toHundredths(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private record TotalsKey(PaymentStatus status, PaymentMethod method, String currency) {
+    }
+
+    private static final class Totals {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder amount = new LongAdder();
+
+        Totals(long count, long hundredths) {
+            this.count.add(count);
+            this.amount.add(hundredths);
+        }
+
+        BigDecimal amount() {
+            return BigDecimal.valueOf(amount.sum(), 2);
+        }
+    }
+}
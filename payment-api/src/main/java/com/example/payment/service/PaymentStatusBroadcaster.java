@@ -0,0 +1,245 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Shares committed payment status changes between nodes over Postgres
+ * LISTEN/NOTIFY. Local changes are queued after commit and flushed in
+ * batched notifications of the form
+ * {@code <node>|<id>:<previous status>:<status>:<method>:<currency>:<amount>,...};
+ * notifications from other nodes are republished locally as
+ * {@link RemotePaymentStatusChangedEvent}. A flush that fails is retried
+ * on the next one for up to {@code payment.cluster.broadcast.retry-for};
+ * past that its changes are dropped, and the node notifies
+ * {@code <node>|!} as soon as it can, on which every other node treats
+ * its state as having missed changes. The listener also relays the
+ * saved card changes {@link CardVault} notifies, as
+ * {@link RemoteCardTokenChangedEvent}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.cluster.broadcast.enabled", havingValue = "true", matchIfMissing = true)
+public class PaymentStatusBroadcaster implements SmartLifecycle {
+    private static final String CHANNEL = "payment_status";
+    // Postgres rejects notification payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_LENGTH = 7000;
+    private static final int POLL_TIMEOUT_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+    private static final String MISSED_CHANGES = "!";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+    private final Duration retryFor;
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    // Payloads of failed flushes, sent ahead of newer changes; guarded by flush's lock
+    private final List<String> unsent = new ArrayList<>();
+    private long failingSince;
+    private boolean changesDropped;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PaymentStatusBroadcaster(
+        JdbcTemplate jdbcTemplate,
+        DataSourceProperties dataSourceProperties,
+        ApplicationEventPublisher eventPublisher,
+        JobCoordinator jobCoordinator,
+        @Value("${payment.cluster.broadcast.retry-for:30s}") Duration retryFor
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = jobCoordinator.getNodeId();
+        this.retryFor = retryFor;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        pending.add(String.join(":",
+            event.paymentId(),
+            event.previousStatus() != null ? event.previousStatus().name() : "",
+            event.newStatus().name(),
+            event.paymentMethod().name(),
+            // Client supplied, so encoded to keep the separators unambiguous
+            URLEncoder.encode(event.currency(), StandardCharsets.UTF_8),
+            event.amount().toPlainString()
+        ));
+    }
+
+    @Scheduled(fixedDelayString = "${payment.cluster.broadcast.flush-interval-ms:100}")
+    public synchronized void flush() {
+        if (pending.isEmpty() && unsent.isEmpty() && !changesDropped) {
+            return;
+        }
+
+        List<String> payloads = unsent;
+        StringBuilder payload = new StringBuilder(nodeId).append('|');
+        int headerLength = payload.length();
+        String change;
+        while ((change = pending.poll()) != null) {
+            if (payload.length() + change.length() + 1 > MAX_PAYLOAD_LENGTH) {
+                payloads.add(payload.toString());
+                payload.setLength(headerLength);
+            }
+            if (payload.length() > headerLength) {
+                payload.append(',');
+            }
+            payload.append(change);
+        }
+        if (payload.length() > headerLength) {
+            payloads.add(payload.toString());
+        }
+
+        List<String> notifications = new ArrayList<>(payloads.size() + 1);
+        if (changesDropped) {
+            notifications.add(nodeId + '|' + MISSED_CHANGES);
+        }
+        notifications.addAll(payloads);
+        try {
+            jdbcTemplate.query(
+                "SELECT pg_notify(?, p) FROM unnest(CAST(? AS text[])) AS p",
+                rs -> { },
+                CHANNEL,
+                notifications.toArray(new String[0])
+            );
+        } catch (RuntimeException e) {
+            long now = System.nanoTime();
+            if (failingSince == 0) {
+                failingSince = now;
+            }
+            if (now - failingSince < retryFor.toNanos()) {
+                log.warn("Failed to broadcast {} payment status notifications, retrying", notifications.size(), e);
+                return;
+            }
+            // Cheaper for the other nodes to reseed than to catch up on an unbounded backlog
+            log.warn("Dropped {} payment status notifications after failing for {}, other nodes will reseed",
+                payloads.size(), retryFor, e);
+            unsent.clear();
+            changesDropped = true;
+            return;
+        }
+        unsent.clear();
+        failingSince = 0;
+        changesDropped = false;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "payment-status-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            // Dedicated connection: a LISTEN session must outlive any pooled transaction
+            try (Connection connection = DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+            )) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + CardVault.CHANNEL);
+                }
+                if (reconnecting) {
+                    eventPublisher.publishEvent(RemotePaymentStatusChangedEvent.missedChanges());
+                }
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            if (CardVault.CHANNEL.equals(notification.getName())) {
+                                eventPublisher.publishEvent(new RemoteCardTokenChangedEvent(notification.getParameter()));
+                            } else {
+                                handle(notification.getParameter());
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Payment status listener disconnected, reconnecting in {} ms", RECONNECT_DELAY_MILLIS, e);
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.regionMatches(0, nodeId, 0, separator) && separator == nodeId.length()) {
+            return;
+        }
+        if (payload.startsWith(MISSED_CHANGES, separator + 1)) {
+            eventPublisher.publishEvent(RemotePaymentStatusChangedEvent.missedChanges());
+            return;
+        }
+        for (String change : payload.substring(separator + 1).split(",")) {
+            String[] fields = change.split(":", -1);
+            if (fields.length == 6) {
+                eventPublisher.publishEvent(new RemotePaymentStatusChangedEvent(
+                    fields[0],
+                    PaymentMethod.valueOf(fields[3]),
+                    fields[1].isEmpty() ? null : PaymentStatus.valueOf(fields[1]),
+                    PaymentStatus.valueOf(fields[2]),
+                    new BigDecimal(fields[5]),
+                    URLDecoder.decode(fields[4], StandardCharsets.UTF_8)
+                ));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.Payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the transaction that changes a payment's status;
+ * {@code previousStatus} is null for newly created payments. Listeners that
+ * act on committed state should use {@code @TransactionalEventListener}.
+ */
+public record PaymentStatusChangedEvent(
+    String paymentId,
+    PaymentMethod paymentMethod,
+    PaymentStatus previousStatus,
+    PaymentStatus newStatus,
+    BigDecimal amount,
+    String currency,
+    LocalDateTime occurredAt
+) {
+    public static PaymentStatusChangedEvent of(Payment payment, PaymentStatus previousStatus) {
+        return new PaymentStatusChangedEvent(
+            payment.getId(),
+            payment.getPaymentMethod(),
+            previousStatus,
+            payment.getStatus(),
+            payment.getAmount(),
+            payment.getCurrency(),
+            LocalDateTime.now()
+        );
+    }
+}
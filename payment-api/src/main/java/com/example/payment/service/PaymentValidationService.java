@@ -0,0 +1,94 @@
+package com.example.payment.service;
+
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.NotificationPreferences;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PixRequest;
+import com.example.payment.exception.InvalidCreditCardException;
+import com.example.payment.exception.PaymentValidationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+@Service
+public class PaymentValidationService {
+    private final PaymentMetrics metrics;
+    private final WebhookUrlPolicy webhookUrlPolicy;
+
+    public PaymentValidationService(PaymentMetrics metrics, WebhookUrlPolicy webhookUrlPolicy) {
+        this.metrics = metrics;
+        this.webhookUrlPolicy = webhookUrlPolicy;
+    }
+
+    public void validatePaymentRequest(PaymentRequest request) {
+        metrics.timeStage(PaymentMetrics.Stage.VALIDATION, request.getPaymentMethod(), () -> {
+            switch (request.getPaymentMethod()) {
+                case CREDIT_CARD -> validateCreditCardPayment(request);
+                case PIX, QR_CODE -> validatePixPayment(request);
+                default -> throw new PaymentValidationException("Unsupported payment method");
+            }
+
+            NotificationPreferences prefs = request.getNotificationPreferences();
+            if (prefs != null && prefs.getWebhookUrl() != null) {
+                webhookUrlPolicy.check(prefs.getWebhookUrl());
+            }
+        });
+    }
+
+    private void validateCreditCardPayment(PaymentRequest request) {
+        CreditCardRequest cardDetails = creditCardDetails(request);
+        
+        // A saved card was checked when saved; CardVault checks its expiry when the token is resolved
+        if (cardDetails.getCardToken() == null) {
+            if (!CardDataKernel.isValidCardNumber(cardDetails.getCardNumber())) {
+                throw new InvalidCreditCardException("Invalid card number");
+            }
+            
+            YearMonth now = YearMonth.now();
+            if (!CardDataKernel.isValidExpiry(cardDetails.getExpirationDate(), now.getYear(), now.getMonthValue())) {
+                throw new InvalidCreditCardException("Card has expired");
+            }
+        }
+        
+        if (cardDetails.getInstallments() < 1 || cardDetails.getInstallments() > 12) {
+            throw new PaymentValidationException("Invalid number of installments");
+        }
+    }
+
+    private void validatePixPayment(PaymentRequest request) {
+        PixRequest pixDetails = pixDetails(request);
+        
+        // A BR Code has no currency other than the real
+        if (!"BRL".equals(request.getCurrency())) {
+            throw new PaymentValidationException("PIX payments must be in BRL");
+        }
+        
+        if (pixDetails.getPixKey() == null || pixDetails.getPixKey().isBlank()) {
+            throw new PaymentValidationException("PIX key is required");
+        }
+        if (pixDetails.getPixKey().length() > BrCodeKernel.MAX_PIX_KEY_LENGTH) {
+            throw new PaymentValidationException("PIX key must have at most " + BrCodeKernel.MAX_PIX_KEY_LENGTH + " characters");
+        }
+        
+        if (pixDetails.getExpiresAt() != null && 
+            pixDetails.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new PaymentValidationException("Expiration date must be in the future");
+        }
+    }
+
+    // The details type follows paymentMethod when deserialized, but requests built in code can disagree
+    static CreditCardRequest creditCardDetails(PaymentRequest request) {
+        if (request.getPaymentDetails() instanceof CreditCardRequest cardDetails) {
+            return cardDetails;
+        }
+        throw new PaymentValidationException("Payment details do not match the payment method");
+    }
+
+    static PixRequest pixDetails(PaymentRequest request) {
+        if (request.getPaymentDetails() instanceof PixRequest pixDetails) {
+            return pixDetails;
+        }
+        throw new PaymentValidationException("Payment details do not match the payment method");
+    }
+}
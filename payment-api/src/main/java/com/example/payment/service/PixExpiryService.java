@@ -0,0 +1,146 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.repository.PixExpiryEntry;
+import com.example.payment.repository.PixPaymentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Expires PENDING PIX charges within about a second of their deadline. The
+ * deadlines are kept in a {@link HierarchicalTimingWheel} that is rebuilt
+ * from the database for every expiry partition this node is assigned;
+ * charges created locally are tracked regardless of their partition.
+ * {@link #expireDuePayments()} is an indexed sweep over the owned partitions
+ * that catches anything the wheels missed (e.g. charges created on a node
+ * that died, or a failed batch).
+ */
+@Slf4j
+@Service
+public class PixExpiryService {
+    private final PaymentPersistenceService persistenceService;
+    private final PixPaymentRepository pixPaymentRepository;
+    private final JobCoordinator jobCoordinator;
+    private final HierarchicalTimingWheel wheel;
+    private final PaymentMetrics metrics;
+    private final int chunkSize;
+
+    public PixExpiryService(
+        PaymentPersistenceService persistenceService,
+        PixPaymentRepository pixPaymentRepository,
+        JobCoordinator jobCoordinator,
+        MeterRegistry meterRegistry,
+        PaymentMetrics metrics,
+        @Value("${payment.pix.expiry.tick-ms:1000}") long tickMillis,
+        @Value("${payment.pix.expiry.chunk-size:500}") int chunkSize
+    ) {
+        this.persistenceService = persistenceService;
+        this.pixPaymentRepository = pixPaymentRepository;
+        this.jobCoordinator = jobCoordinator;
+        this.chunkSize = chunkSize;
+        this.metrics = metrics;
+        // 64 slots per level: 1 s, ~1 min, ~68 min and ~3 days per slot with the default tick
+        this.wheel = new HierarchicalTimingWheel(tickMillis, 64, 4, System.currentTimeMillis());
+
+        Gauge.builder("payment.pix.expiry.tracked", wheel, HierarchicalTimingWheel::size)
+            .description("PIX charges tracked by the expiry timing wheel")
+            .register(meterRegistry);
+    }
+
+    @Async
+    @EventListener
+    public void onPartitionsChanged(JobPartitionsChangedEvent event) {
+        if (JobCoordinator.PIX_EXPIRY_JOB.equals(event.jobName()) && !event.assigned().isEmpty()) {
+            load(event.assigned());
+        }
+    }
+
+    public void track(String paymentId, LocalDateTime expiresAt) {
+        wheel.schedule(paymentId, toEpochMillis(expiresAt));
+    }
+
+    public void untrack(String paymentId) {
+        wheel.cancel(paymentId);
+    }
+
+    @Scheduled(fixedRateString = "${payment.pix.expiry.tick-ms:1000}")
+    public void tick() {
+        List<String> due = wheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<String> chunk = due.subList(from, Math.min(from + chunkSize, due.size()));
+            try {
+                expired += persistenceService.expirePixPayments(chunk, now).size();
+            } catch (RuntimeException e) {
+                // Left PENDING in the database; the sweep will pick them up
+                log.error("Failed to expire {} PIX payments", chunk.size(), e);
+            }
+        }
+        metrics.pixExpired(expired);
+        log.debug("Expired {} of {} due PIX payments", expired, due.size());
+    }
+
+    public int expireDuePayments() {
+        Set<Integer> partitions = jobCoordinator.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB);
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int expired;
+        do {
+            expired = persistenceService.expireDuePixPayments(now, chunkSize, partitions).size();
+            total += expired;
+        } while (expired == chunkSize);
+
+        if (total > 0) {
+            metrics.pixExpired(total);
+            log.info("Expiry sweep expired {} PIX payments", total);
+        }
+        return total;
+    }
+
+    private void load(Set<Integer> partitions) {
+        int loaded = 0;
+        String lastPaymentId = "";
+        List<PixExpiryEntry> page;
+        do {
+            page = pixPaymentRepository.findExpiryEntries(
+                PaymentStatus.PENDING,
+                lastPaymentId,
+                partitions,
+                partitions.contains(0),
+                PageRequest.ofSize(chunkSize)
+            );
+            for (PixExpiryEntry entry : page) {
+                track(entry.paymentId(), entry.expiresAt());
+                lastPaymentId = entry.paymentId();
+            }
+            loaded += page.size();
+        } while (page.size() == chunkSize);
+
+        log.info("Loaded {} pending PIX charges of partitions {} into the expiry wheel", loaded, partitions);
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Payments whose status changed, on any node, within the replica lag
+ * bound. Reads of these go to the primary, so a client reading its payment
+ * right after creating or updating it never sees the older replica state.
+ * The bound holds because {@link com.example.payment.config.ReplicaDataSource}
+ * stops reading from a replica that lags further behind.
+ *
+ * <p>A write on another node is only known here once its notification
+ * from {@link PaymentStatusBroadcaster} arrives, usually within a flush
+ * interval of the commit. Until then a read on this node may still go to a
+ * replica, so read-your-writes across nodes holds only after the NOTIFY
+ * arrives; on the node that wrote, it holds from the commit.
+ */
+@Component
+public class RecentPaymentWrites {
+    private final Cache<String, Boolean> written;
+
+    public RecentPaymentWrites(
+        @Value("${payment.datasource.replica-max-lag:5s}") Duration maxReplicaLag,
+        @Value("${payment.cache.max-size:100000}") long maxSize
+    ) {
+        this.written = Caffeine.newBuilder()
+            .expireAfterWrite(maxReplicaLag)
+            .maximumSize(maxSize)
+            .build();
+    }
+
+    public boolean contains(String paymentId) {
+        return written.getIfPresent(paymentId) != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        written.put(event.paymentId(), Boolean.TRUE);
+    }
+
+    @EventListener
+    public void onRemoteStatusChanged(RemotePaymentStatusChangedEvent event) {
+        if (!event.isMissedChanges()) {
+            written.put(event.paymentId(), Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.payment.service;
+
+/**
+ * A saved card updated or revoked by another node, received through
+ * {@link PaymentStatusBroadcaster}.
+ */
+public record RemoteCardTokenChangedEvent(String token) {
+}
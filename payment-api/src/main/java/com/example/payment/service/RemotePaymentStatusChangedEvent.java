@@ -0,0 +1,30 @@
+package com.example.payment.service;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * A status change committed by another node, received through
+ * {@link PaymentStatusBroadcaster}; {@code previousStatus} is null for newly
+ * created payments. A null {@code paymentId} means changes may have been
+ * missed (e.g. after a reconnect) and local state derived from payments
+ * should be refreshed.
+ */
+public record RemotePaymentStatusChangedEvent(
+    String paymentId,
+    PaymentMethod paymentMethod,
+    PaymentStatus previousStatus,
+    PaymentStatus newStatus,
+    BigDecimal amount,
+    String currency
+) {
+    public static RemotePaymentStatusChangedEvent missedChanges() {
+        return new RemotePaymentStatusChangedEvent(null, null, null, null, null, null);
+    }
+
+    public boolean isMissedChanges() {
+        return paymentId == null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.payment.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Reusable scratch objects for the encoding and hashing kernels. Unlike a
+ * ThreadLocal, whose value belongs to the thread that made it and so is made
+ * again for every virtual thread, the pool is shared: a caller takes any
+ * free instance and puts it back, and only allocates when every slot is in
+ * use at the same moment.
+ */
+final class ScratchPool<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+
+    ScratchPool(Supplier<T> factory) {
+        // Callers hold an instance for microseconds; two per processor leave a free one at hand
+        this.slots = new AtomicReferenceArray<>(2 * Runtime.getRuntime().availableProcessors());
+        this.factory = factory;
+    }
+
+    T acquire() {
+        int start = start();
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            T scratch = slots.get(slot);
+            if (scratch != null && slots.compareAndSet(slot, scratch, null)) {
+                return scratch;
+            }
+        }
+        return factory.get();
+    }
+
+    void release(T scratch) {
+        int start = start();
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, scratch)) {
+                return;
+            }
+        }
+        // Every slot is taken; this one is left to the garbage collector
+    }
+
+    // Spreads concurrent callers over the slots
+    private int start() {
+        return (int) Math.floorMod(Thread.currentThread().getId(), (long) slots.length());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.payment.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts events over a sliding window split into fixed slots. The count
+ * covers the current, partially elapsed slot and the slots before it, so it
+ * trails the exact window by at most one slot. Slots are reused as the
+ * window moves; only the first increment in a new slot takes a lock.
+ */
+class SlidingWindowCounter {
+    private final long slotMillis;
+    private final int slots;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray slotIds;
+
+    SlidingWindowCounter(Duration window, int slots) {
+        this.slotMillis = window.toMillis() / slots;
+        this.slots = slots;
+        this.counts = new AtomicLongArray(slots);
+        this.slotIds = new AtomicLongArray(slots);
+    }
+
+    void increment(long nowMillis) {
+        long slot = nowMillis / slotMillis;
+        int index = (int) (slot % slots);
+        if (slotIds.get(index) != slot) {
+            synchronized (this) {
+                if (slotIds.get(index) != slot) {
+                    counts.set(index, 0);
+                    slotIds.set(index, slot);
+                }
+            }
+        }
+        counts.incrementAndGet(index);
+    }
+
+    long sum(long nowMillis) {
+        long slot = nowMillis / slotMillis;
+        long sum = 0;
+        for (int i = 0; i < slots; i++) {
+            long slotId = slotIds.get(i);
+            if (slotId > slot - slots && slotId <= slot) {
+                sum += counts.get(i);
+            }
+        }
+        return sum;
+    }
+}
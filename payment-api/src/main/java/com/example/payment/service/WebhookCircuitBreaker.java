@@ -0,0 +1,63 @@
+package com.example.payment.service;
+
+/**
+ * Consecutive-failure circuit breaker for a single webhook endpoint. While
+ * open, deliveries fail fast; after the open period one trial request is let
+ * through and its outcome closes or re-opens the circuit. A caller that got
+ * through must report its outcome, or {@link #onAbandoned} if it has none,
+ * or a trial would hold the circuit half-open for good.
+ */
+class WebhookCircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    WebhookCircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * A delivery that ended without telling whether the endpoint is up, such
+     * as an interrupted one. A trial is handed back, and the next delivery
+     * may try again at once.
+     */
+    synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = System.nanoTime() - openNanos;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.payment.service;
+
+import com.example.payment.exception.PaymentProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.nio.entity.DiscardingEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers webhook payloads over a shared keep-alive HTTP client (HTTP/2
+ * when the endpoint supports it). Every endpoint gets its own concurrency
+ * cap and circuit breaker, so a slow or failing merchant only delays its
+ * own notifications; rejected deliveries are retried by the outbox.
+ *
+ * <p>Host names are resolved by the {@link WebhookUrlPolicy} when the
+ * connection is opened, so a connection only ever goes to addresses the
+ * policy has just accepted.
+ *
+ * <p>Endpoints are kept while in use and dropped after
+ * {@code payment.webhook.endpoint-idle-timeout} without deliveries. Metrics
+ * are tagged by outcome only: webhook hosts come from clients, so tagging
+ * by host would let them create meters without bound.
+ */
+@Slf4j
+@Service
+public class WebhookDeliveryService {
+    private static final String SIGNATURE_HEADER = "X-Payment-Signature";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final MeterRegistry meterRegistry;
+    private final WebhookUrlPolicy urlPolicy;
+    private final Cache<String, Endpoint> endpoints;
+    private final SecretKeySpec signingKey;
+    private final int maxConcurrentPerEndpoint;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    public WebhookDeliveryService(
+        MeterRegistry meterRegistry,
+        WebhookUrlPolicy urlPolicy,
+        @Value("${payment.webhook.signing-secret:}") String signingSecret,
+        @Value("${payment.webhook.connect-timeout:2s}") Duration connectTimeout,
+        @Value("${payment.webhook.read-timeout:5s}") Duration readTimeout,
+        @Value("${payment.webhook.max-concurrent-per-endpoint:4}") int maxConcurrentPerEndpoint,
+        @Value("${payment.webhook.circuit-breaker.failure-threshold:5}") int failureThreshold,
+        @Value("${payment.webhook.circuit-breaker.open-duration:30s}") Duration openDuration,
+        @Value("${payment.webhook.max-endpoints:10000}") long maxEndpoints,
+        @Value("${payment.webhook.endpoint-idle-timeout:1h}") Duration endpointIdleTimeout
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.urlPolicy = urlPolicy;
+        this.maxConcurrentPerEndpoint = maxConcurrentPerEndpoint;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.httpClient = HttpAsyncClients.custom()
+            .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDnsResolver(urlPolicy)
+                .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.NEGOTIATE).build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                    .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                    .build())
+                // The endpoint permits already bound the connections per host
+                .setMaxConnPerRoute(maxConcurrentPerEndpoint)
+                .setMaxConnTotal(Integer.MAX_VALUE)
+                .build())
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                .build())
+            .disableRedirectHandling()
+            .disableAutomaticRetries()
+            .build();
+        this.httpClient.start();
+
+        // An endpoint still in use is read on every delivery, so only idle ones expire
+        this.endpoints = Caffeine.newBuilder()
+            .maximumSize(maxEndpoints)
+            .expireAfterAccess(endpointIdleTimeout)
+            .build();
+        Gauge.builder("payment.webhook.endpoints", endpoints, Cache::estimatedSize)
+            .description("Webhook endpoints with a circuit breaker in memory")
+            .register(meterRegistry);
+        Gauge.builder("payment.webhook.circuits.open", endpoints, WebhookDeliveryService::openCircuits)
+            .description("Webhook endpoints whose circuit breaker is not closed")
+            .register(meterRegistry);
+
+        if (signingSecret.isBlank()) {
+            log.warn("payment.webhook.signing-secret is not set, webhooks will be sent unsigned");
+            this.signingKey = null;
+        } else {
+            this.signingKey = new SecretKeySpec(signingSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        }
+    }
+
+    public String deliver(String url, String payload) {
+        URI uri = urlPolicy.check(url);
+
+        Endpoint endpoint = endpoints.get(endpointKey(uri), this::createEndpoint);
+        if (!endpoint.permits.tryAcquire()) {
+            throw new PaymentProcessingException("Too many concurrent deliveries to " + endpoint.key);
+        }
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        boolean admitted = false;
+        boolean reported = false;
+        try {
+            if (!endpoint.circuitBreaker.tryAcquire()) {
+                outcome = "circuit_open";
+                throw new PaymentProcessingException("Circuit open for " + endpoint.key);
+            }
+            admitted = true;
+
+            int status = send(buildRequest(uri, payload)).getCode();
+            outcome = (status / 100) + "xx";
+
+            // Only server errors count against the endpoint; a 4xx means it is up but refused the payload
+            if (status >= 500) {
+                endpoint.circuitBreaker.onFailure();
+            } else {
+                endpoint.circuitBreaker.onSuccess();
+            }
+            reported = true;
+
+            if (status < 200 || status >= 300) {
+                throw new PaymentProcessingException("Webhook endpoint responded with status " + status);
+            }
+            return "Webhook notification delivered with status " + status;
+        } catch (IOException e) {
+            endpoint.circuitBreaker.onFailure();
+            reported = true;
+            outcome = "io_error";
+            throw new PaymentProcessingException("Webhook delivery failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+            throw new PaymentProcessingException("Webhook delivery interrupted");
+        } finally {
+            // Interrupted, or failed unchecked before the endpoint answered
+            if (admitted && !reported) {
+                endpoint.circuitBreaker.onAbandoned();
+            }
+            endpoint.permits.release();
+            Timer.builder("payment.webhook.delivery")
+                .description("Webhook delivery latency by outcome")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    private HttpResponse send(SimpleHttpRequest request) throws IOException, InterruptedException {
+        Future<Message<HttpResponse, Void>> response = httpClient.execute(
+            SimpleRequestProducer.create(request),
+            new BasicResponseConsumer<>(new DiscardingEntityConsumer<>()),
+            null
+        );
+        try {
+            return response.get().getHead();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof HttpException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            throw new PaymentProcessingException("Webhook delivery failed: " + cause, cause);
+        }
+    }
+
+    private SimpleHttpRequest buildRequest(URI uri, String payload) {
+        String timestamp = Long.toString(System.currentTimeMillis() / 1000);
+        SimpleRequestBuilder builder = SimpleRequestBuilder.post(uri)
+            .addHeader("X-Payment-Timestamp", timestamp)
+            .setBody(payload, ContentType.APPLICATION_JSON);
+
+        if (signingKey != null) {
+            builder.addHeader(SIGNATURE_HEADER, "t=" + timestamp + ",v1=" + sign(timestamp, payload));
+        }
+        return builder.build();
+    }
+
+    // Signs "<timestamp>.<payload>" so receivers can reject replays of old deliveries
+    private String sign(String timestamp, String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            mac.update(timestamp.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '.');
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new PaymentProcessingException("Failed to sign webhook payload", e);
+        }
+    }
+
+    private String endpointKey(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+        return uri.getHost() + ":" + port;
+    }
+
+    private Endpoint createEndpoint(String key) {
+        return new Endpoint(
+            key,
+            new Semaphore(maxConcurrentPerEndpoint),
+            new WebhookCircuitBreaker(failureThreshold, openDuration.toNanos())
+        );
+    }
+
+    // Peeks at the entries without counting as access, which would keep every endpoint alive
+    private static long openCircuits(Cache<String, Endpoint> endpoints) {
+        return endpoints.asMap().values().stream()
+            .filter(endpoint -> endpoint.circuitBreaker.getState() != WebhookCircuitBreaker.State.CLOSED)
+            .count();
+    }
+
+    private record Endpoint(String key, Semaphore permits, WebhookCircuitBreaker circuitBreaker) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.payment.service;
+
+import com.example.payment.exception.PaymentValidationException;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+
+/**
+ * Decides which webhook URLs a payment may register. Only http(s) URLs
+ * whose host resolves to public addresses are accepted, so that a client
+ * cannot make the service call into its own network (loopback, private
+ * ranges, link-local addresses such as the cloud metadata endpoint).
+ * Checked when the payment is created and again before every delivery.
+ *
+ * <p>The policy is also the DNS resolver of the webhook HTTP client, so the
+ * addresses a connection is opened to are the ones that were just checked.
+ * A host that passes the check and then resolves to an internal address
+ * (DNS rebinding) is refused when the connection is made.
+ */
+@Component
+public class WebhookUrlPolicy implements DnsResolver {
+    // The payments.webhook_url column
+    private static final int MAX_URL_LENGTH = 255;
+
+    private final boolean allowPrivateAddresses;
+    private final DnsResolver dns;
+
+    @Autowired
+    public WebhookUrlPolicy(@Value("${payment.webhook.allow-private-addresses:false}") boolean allowPrivateAddresses) {
+        this(allowPrivateAddresses, SystemDefaultDnsResolver.INSTANCE);
+    }
+
+    WebhookUrlPolicy(boolean allowPrivateAddresses, DnsResolver dns) {
+        this.allowPrivateAddresses = allowPrivateAddresses;
+        this.dns = dns;
+    }
+
+    /**
+     * Returns the URL parsed, or fails with
+     * {@link PaymentValidationException} if webhooks must not be sent to it.
+     */
+    public URI check(String url) {
+        if (url.length() > MAX_URL_LENGTH) {
+            throw new PaymentValidationException("Webhook URL must have at most " + MAX_URL_LENGTH + " characters");
+        }
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new PaymentValidationException("Invalid webhook URL");
+        }
+        if (!"https".equalsIgnoreCase(uri.getScheme()) && !"http".equalsIgnoreCase(uri.getScheme())) {
+            throw new PaymentValidationException("Webhook URL must use http or https");
+        }
+        if (uri.getHost() == null || uri.getUserInfo() != null) {
+            throw new PaymentValidationException("Invalid webhook URL");
+        }
+        if (allowPrivateAddresses) {
+            return uri;
+        }
+
+        try {
+            resolve(uri.getHost());
+        } catch (PrivateAddressException e) {
+            throw new PaymentValidationException("Webhook URL must not point to a private or local address");
+        } catch (UnknownHostException e) {
+            throw new PaymentValidationException("Webhook host cannot be resolved: " + uri.getHost());
+        }
+        return uri;
+    }
+
+    /**
+     * The addresses of a webhook host, failing with an
+     * {@link UnknownHostException} if any of them is not public.
+     */
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress[] addresses = dns.resolve(host);
+        if (allowPrivateAddresses) {
+            return addresses;
+        }
+        // Every address, since the client may connect to any of them
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new PrivateAddressException(host);
+            }
+        }
+        return addresses;
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return dns.resolveCanonicalHostname(host);
+    }
+
+    static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+            || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            // 0.0.0.0/8 and the carrier-grade NAT range 100.64.0.0/10
+            return first != 0 && !(first == 100 && second >= 64 && second < 128);
+        }
+        // IPv6 unique local addresses, fc00::/7
+        return (bytes[0] & 0xfe) != 0xfc;
+    }
+
+    static final class PrivateAddressException extends UnknownHostException {
+        private PrivateAddressException(String host) {
+            super(host + " resolves to a private or local address");
+        }
+    }
+}
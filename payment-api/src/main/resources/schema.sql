@@ -0,0 +1,152 @@
+-- Creates payments and its detail tables partitioned, before Hibernate
+-- (ddl-auto: update) maintains the rest of the schema. Tables that already
+-- exist are left untouched, so databases created before partitioning keep
+-- their plain tables; see "Particionamento e Arquivamento" in the README.
+--
+-- payments is split by the archived flag into payments_live and
+-- payments_archive, each partitioned by month of created_at. The monthly
+-- partitions are created ahead of time by PaymentArchiveService; the default
+-- partitions only catch rows outside them. The detail tables are split by the
+-- archived flag only, and follow their payment into the archive.
+--
+-- It also widens the enum CHECK constraints of existing tables when values
+-- are added to the enum.
+--
+-- Runs as a single statement, see spring.sql.init.separator.
+DO $$
+BEGIN
+    IF to_regclass('payments') IS NULL THEN
+        CREATE TABLE payments (
+            id varchar(255) NOT NULL,
+            payment_method varchar(255) CHECK (payment_method IN ('PIX', 'CREDIT_CARD', 'QR_CODE')),
+            amount numeric(38,2),
+            currency varchar(255),
+            status varchar(255) CHECK (status IN ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED', 'REFUNDED', 'EXPIRED', 'REFUND_PENDING')),
+            email_notification boolean,
+            sms_notification boolean,
+            webhook_url varchar(255),
+            created_at timestamp(6) NOT NULL,
+            updated_at timestamp(6),
+            archived boolean NOT NULL DEFAULT false,
+            PRIMARY KEY (id, archived, created_at)
+        ) PARTITION BY LIST (archived);
+
+        CREATE TABLE payments_live PARTITION OF payments FOR VALUES IN (false) PARTITION BY RANGE (created_at);
+        CREATE TABLE payments_live_default PARTITION OF payments_live DEFAULT;
+        CREATE TABLE payments_archive PARTITION OF payments FOR VALUES IN (true) PARTITION BY RANGE (created_at);
+        CREATE TABLE payments_archive_default PARTITION OF payments_archive DEFAULT;
+
+        -- Search order (created_at, id) behind each combination of filters; method alone uses idx_payments_created_at
+        CREATE INDEX idx_payments_search ON payments (status, payment_method, created_at, id);
+        CREATE INDEX idx_payments_status ON payments (status, created_at, id);
+        CREATE INDEX idx_payments_created_at ON payments (created_at, id);
+    END IF;
+
+    IF to_regclass('credit_card_payments') IS NULL THEN
+        CREATE TABLE credit_card_payments (
+            id varchar(255) NOT NULL,
+            payment_id varchar(255),
+            card_number_hash varchar(255),
+            card_holder_name varchar(255),
+            installments integer,
+            last_four_digits varchar(255),
+            card_brand varchar(255),
+            card_issuer varchar(255),
+            card_country varchar(255),
+            card_funding varchar(255),
+            authorization_code varchar(255),
+            transaction_id varchar(255),
+            processed_at timestamp(6),
+            archived boolean NOT NULL DEFAULT false,
+            PRIMARY KEY (id, archived)
+        ) PARTITION BY LIST (archived);
+
+        CREATE TABLE credit_card_payments_live PARTITION OF credit_card_payments FOR VALUES IN (false);
+        CREATE TABLE credit_card_payments_archive PARTITION OF credit_card_payments FOR VALUES IN (true);
+
+        CREATE INDEX idx_credit_card_payments_payment_id ON credit_card_payments (payment_id);
+    END IF;
+
+    IF to_regclass('pix_payments') IS NULL THEN
+        CREATE TABLE pix_payments (
+            id varchar(255) NOT NULL,
+            payment_id varchar(255),
+            pix_key varchar(255),
+            qr_code_data varchar(255),
+            expires_at timestamp(6),
+            transaction_id varchar(255),
+            paid boolean,
+            expired boolean NOT NULL DEFAULT false,
+            expiry_partition integer,
+            paid_at timestamp(6),
+            archived boolean NOT NULL DEFAULT false,
+            PRIMARY KEY (id, archived)
+        ) PARTITION BY LIST (archived);
+
+        CREATE TABLE pix_payments_live PARTITION OF pix_payments FOR VALUES IN (false);
+        CREATE TABLE pix_payments_archive PARTITION OF pix_payments FOR VALUES IN (true);
+
+        CREATE INDEX idx_pix_payments_payment_id ON pix_payments (payment_id);
+        -- Open charges only, so the index the expiry sweep reads does not grow with paid and expired ones
+        CREATE INDEX idx_pix_payments_partition_expires_at ON pix_payments (expiry_partition, expires_at)
+            WHERE paid = false AND expired = false;
+    END IF;
+
+    -- Databases from before the partial index: add the expired flag, backfill it and rebuild the index
+    IF to_regclass('pix_payments') IS NOT NULL AND NOT EXISTS (
+        SELECT 1 FROM pg_index
+        WHERE indexrelid = to_regclass('idx_pix_payments_partition_expires_at') AND indpred IS NOT NULL
+    ) THEN
+        ALTER TABLE pix_payments ADD COLUMN IF NOT EXISTS expired boolean NOT NULL DEFAULT false;
+        UPDATE pix_payments x SET expired = true
+        FROM payments p
+        WHERE p.id = x.payment_id AND p.status = 'EXPIRED' AND x.expired = false;
+        DROP INDEX IF EXISTS idx_pix_payments_partition_expires_at;
+        CREATE INDEX idx_pix_payments_partition_expires_at ON pix_payments (expiry_partition, expires_at)
+            WHERE paid = false AND expired = false;
+    END IF;
+
+    IF to_regclass('payment_notifications') IS NULL THEN
+        CREATE TABLE payment_notifications (
+            id varchar(255) NOT NULL,
+            payment_id varchar(255),
+            type varchar(255) CHECK (type IN ('EMAIL', 'SMS', 'WEBHOOK')),
+            message varchar(255),
+            sent_at timestamp(6),
+            successful boolean,
+            error_details varchar(255),
+            webhook_url varchar(255),
+            archived boolean NOT NULL DEFAULT false,
+            PRIMARY KEY (id, archived)
+        ) PARTITION BY LIST (archived);
+
+        CREATE TABLE payment_notifications_live PARTITION OF payment_notifications FOR VALUES IN (false);
+        CREATE TABLE payment_notifications_archive PARTITION OF payment_notifications FOR VALUES IN (true);
+
+        CREATE INDEX idx_payment_notifications_payment_id ON payment_notifications (payment_id);
+    END IF;
+
+    -- Hibernate writes the CHECK constraint of an enum column only when it
+    -- creates the table, so values added later are allowed here
+    IF EXISTS (
+        SELECT 1 FROM pg_constraint
+        WHERE conrelid = to_regclass('idempotency_keys') AND conname = 'idempotency_keys_status_check'
+          AND pg_get_constraintdef(oid) NOT LIKE '%FAILED%'
+    ) THEN
+        ALTER TABLE idempotency_keys DROP CONSTRAINT idempotency_keys_status_check;
+        ALTER TABLE idempotency_keys ADD CONSTRAINT idempotency_keys_status_check
+            CHECK (status IN ('IN_PROGRESS', 'COMPLETED', 'FAILED'));
+    END IF;
+
+    -- On the partitioned table this reaches every partition
+    IF EXISTS (
+        SELECT 1 FROM pg_constraint
+        WHERE conrelid = to_regclass('payments') AND conname = 'payments_status_check'
+          AND pg_get_constraintdef(oid) NOT LIKE '%REFUND_PENDING%'
+    ) THEN
+        ALTER TABLE payments DROP CONSTRAINT payments_status_check;
+        ALTER TABLE payments ADD CONSTRAINT payments_status_check
+            CHECK (status IN ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED', 'REFUNDED', 'EXPIRED', 'REFUND_PENDING'));
+    END IF;
+END
+$$;
@@ -0,0 +1,54 @@
+package com.example.payment;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.NotificationPreferences;
+import com.example.payment.dto.PaymentDetails;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PixRequest;
+
+import java.math.BigDecimal;
+
+/**
+ * Payment requests shared by the tests.
+ */
+public final class PaymentRequests {
+    public static final String CARD_NUMBER = "4111111111111111";
+
+    private PaymentRequests() {
+    }
+
+    public static PaymentRequest creditCard() {
+        CreditCardRequest details = new CreditCardRequest();
+        details.setCardNumber(CARD_NUMBER);
+        details.setCardHolderName("João Silva");
+        details.setExpirationDate("12/30");
+        details.setCvv("123");
+        details.setInstallments(1);
+        return request(PaymentMethod.CREDIT_CARD, details);
+    }
+
+    public static PaymentRequest savedCard(String cardToken) {
+        CreditCardRequest details = new CreditCardRequest();
+        details.setCardToken(cardToken);
+        details.setInstallments(1);
+        return request(PaymentMethod.CREDIT_CARD, details);
+    }
+
+    public static PaymentRequest pix() {
+        PixRequest details = new PixRequest();
+        details.setPixKey("email@exemplo.com");
+        details.setDescription("Pagamento de teste");
+        return request(PaymentMethod.PIX, details);
+    }
+
+    private static PaymentRequest request(PaymentMethod method, PaymentDetails details) {
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(new BigDecimal("100.00"));
+        request.setCurrency("BRL");
+        request.setPaymentMethod(method);
+        request.setPaymentDetails(details);
+        request.setNotificationPreferences(new NotificationPreferences());
+        return request;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.payment;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An embedded PostgreSQL shared by any number of application nodes started
+ * in this JVM, for tests of behaviour that spans instances: broadcasts,
+ * job leases, idempotency keys. Nodes run without scheduling or the
+ * acquirer's simulated latency unless a test turns them back on.
+ */
+public final class PaymentTestCluster implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+    private final String vaultKey;
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private PaymentTestCluster(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.vaultKey = Base64.getEncoder().encodeToString(key);
+    }
+
+    public static PaymentTestCluster start() throws IOException {
+        return new PaymentTestCluster(EmbeddedPostgres.start());
+    }
+
+    /**
+     * Starts a node. Each {@code name=value} overrides the test defaults and
+     * the application.yml of payment-api.
+     */
+    public ConfigurableApplicationContext startNode(String... properties) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        settings.put("spring.datasource.username", "postgres");
+        settings.put("spring.datasource.password", "");
+        settings.put("spring.jpa.show-sql", "false");
+        settings.put("payment.scheduling.enabled", "false");
+        settings.put("payment.acquirer.simulated-delay", "false");
+        settings.put("payment.vault.encryption-key", vaultKey);
+        settings.put("logging.level.root", "WARN");
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            settings.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+
+        // A repeated command-line argument would be joined with a comma rather than replaced
+        String[] args = settings.entrySet().stream()
+            .map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+            .toArray(String[]::new);
+        ConfigurableApplicationContext node = new SpringApplicationBuilder(PaymentApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(args);
+        nodes.add(node);
+        return node;
+    }
+
+    public void stopNode(ConfigurableApplicationContext node) {
+        nodes.remove(node);
+        node.close();
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+
+    /**
+     * Retries the assertion until it passes or the timeout elapses, for
+     * effects that reach other nodes asynchronously.
+     */
+    public static void eventually(Duration timeout, Runnable assertion) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+        nodes.clear();
+        postgres.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.payment.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replica selection by replay lag. A lagging standby is imitated by a
+ * schema, ahead of pg_catalog on the search path, whose functions report
+ * recovery a minute behind.
+ */
+class ReplicaDataSourceTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+    private static EmbeddedPostgres postgres;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.execute("CREATE SCHEMA lagging");
+        jdbcTemplate.execute("CREATE FUNCTION lagging.pg_is_in_recovery() RETURNS boolean AS 'SELECT true' LANGUAGE sql");
+        jdbcTemplate.execute("CREATE FUNCTION lagging.pg_last_wal_receive_lsn() RETURNS pg_lsn AS 'SELECT ''0/2000''::pg_lsn' LANGUAGE sql");
+        jdbcTemplate.execute("CREATE FUNCTION lagging.pg_last_wal_replay_lsn() RETURNS pg_lsn AS 'SELECT ''0/1000''::pg_lsn' LANGUAGE sql");
+        jdbcTemplate.execute("""
+            CREATE FUNCTION lagging.pg_last_xact_replay_timestamp() RETURNS timestamptz
+            AS 'SELECT now() - interval ''1 minute''' LANGUAGE sql
+            """);
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        postgres.close();
+    }
+
+    @AfterEach
+    void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void laggingReplicaLeavesTheRotation() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReplicaDataSource dataSource = new ReplicaDataSource(
+            List.of(pool("replica-1", ""), pool("replica-2", "&currentSchema=lagging,pg_catalog")),
+            pool("primary", ""),
+            MAX_LAG,
+            meterRegistry
+        );
+        assertThat(servedBy(dataSource, 4)).containsExactlyInAnyOrder("replica-1", "replica-2");
+
+        dataSource.checkHealth();
+
+        assertThat(servedBy(dataSource, 4)).containsExactly("replica-1");
+        assertThat(meterRegistry.get("payment.datasource.replica.lag").tag("pool", "replica-2").gauge().value())
+            .isGreaterThan(55);
+        assertThat(meterRegistry.get("payment.datasource.replica.lag").tag("pool", "replica-1").gauge().value())
+            .isZero();
+        assertThat(meterRegistry.get("payment.datasource.replica.healthy").tag("pool", "replica-2").gauge().value())
+            .isZero();
+    }
+
+    @Test
+    void readsGoToThePrimaryWhenEveryReplicaLags() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReplicaDataSource dataSource = new ReplicaDataSource(
+            List.of(pool("replica-1", "&currentSchema=lagging,pg_catalog")),
+            pool("primary", ""),
+            MAX_LAG,
+            meterRegistry
+        );
+
+        dataSource.checkHealth();
+
+        assertThat(servedBy(dataSource, 2)).containsExactly("primary");
+        assertThat(meterRegistry.get("payment.datasource.replica.fallbacks").counter().count()).isEqualTo(2);
+    }
+
+    private HikariDataSource pool(String name, String parameters) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres") + "&ApplicationName=" + name + parameters);
+        pool.setUsername("postgres");
+        pool.setMaximumPoolSize(2);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static Set<String> servedBy(ReplicaDataSource dataSource, int connections) throws SQLException {
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < connections; i++) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT current_setting('application_name')")) {
+                rs.next();
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+}
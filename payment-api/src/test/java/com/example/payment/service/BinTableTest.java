@@ -0,0 +1,71 @@
+package com.example.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinTableTest {
+    private static final String TABLE = """
+        # low,high,brand,issuer,country,funding
+        4,4,VISA,,,
+        411111,411111,VISA,Banco Exemplo,BR,CREDIT
+        5,5,MASTERCARD,,,
+        51,55,MASTERCARD,,,
+        """;
+    private static final int LOOKUPS = 100_000;
+
+    @Test
+    void narrowestRangeWinsAndUnmatchedNumbersAreUnknown() throws IOException {
+        BinTable table = parse(TABLE);
+
+        assertThat(table.lookup("4111111111111111"))
+            .isEqualTo(new BinInfo("VISA", "Banco Exemplo", "BR", "CREDIT"));
+        assertThat(table.lookup("4000000000000002")).isEqualTo(new BinInfo("VISA", null, null, null));
+        assertThat(table.lookup("5500000000000004")).isEqualTo(new BinInfo("MASTERCARD", null, null, null));
+        assertThat(table.lookup("6011000000000004")).isSameAs(BinInfo.UNKNOWN);
+        assertThat(table.lookup("4111")).isSameAs(BinInfo.UNKNOWN);
+        assertThat(table.lookup("4111-1111-1111-1111")).isSameAs(BinInfo.UNKNOWN);
+    }
+
+    @Test
+    void segmentsWithTheSameAttributesShareOneInstance() throws IOException {
+        BinTable table = parse(TABLE);
+
+        // 4 is split around 411111 into two segments, 5 and 51-55 into three
+        assertThat(table.lookup("4000000000000002")).isSameAs(table.lookup("4999999999999999"));
+        assertThat(table.lookup("5000000000000000")).isSameAs(table.lookup("5500000000000004"))
+            .isSameAs(table.lookup("5900000000000000"));
+        assertThat(table.lookup("4111111111111111")).isSameAs(table.lookup("4111119999999999"));
+    }
+
+    @Test
+    void lookupsAllocateNothing() throws IOException {
+        BinTable table = parse(TABLE);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        String[] cardNumbers = {"4111111111111111", "5500000000000004", "6011000000000004"};
+        int matches = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            matches += table.lookup(cardNumbers[i % cardNumbers.length]) != BinInfo.UNKNOWN ? 1 : 0;
+        }
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < LOOKUPS; i++) {
+            matches += table.lookup(cardNumbers[i % cardNumbers.length]) != BinInfo.UNKNOWN ? 1 : 0;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertThat(matches).isPositive();
+        // A BinInfo per lookup would be megabytes; the allowance covers the measurement itself
+        assertThat(allocated).isLessThan(1024);
+    }
+
+    private static BinTable parse(String table) throws IOException {
+        return BinTable.parse(new BufferedReader(new StringReader(table)));
+    }
+}
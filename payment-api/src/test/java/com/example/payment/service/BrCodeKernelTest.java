@@ -0,0 +1,108 @@
+package com.example.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BR Code conformance: known-good payloads, the first of them the static
+ * code from the Banco Central do Brasil's BR Code manual, and the TLV
+ * layout and CRC of generated ones checked against a bit-by-bit
+ * CRC16-CCITT-FALSE.
+ */
+class BrCodeKernelTest {
+    @Test
+    void encodesTheManualsStaticCode() {
+        assertThat(BrCodeKernel.encode(
+            "Fulano de Tal", "BRASILIA", "123e4567-e12b-12d1-a456-426655440000", null, null, null, true
+        )).isEqualTo("00020126580014br.gov.bcb.pix0136123e4567-e12b-12d1-a456-4266554400005204000053039865802BR"
+            + "5913Fulano de Tal6008BRASILIA62070503***63041D3D");
+    }
+
+    @Test
+    void encodesASinglePaymentChargeWithAmountDescriptionAndTxid() {
+        assertThat(BrCodeKernel.encode(
+            "Loja Exemplo", "São Paulo", "+5511999998888", "Pedido 42", new BigDecimal("150.75"),
+            "3f2a9c1e-7b4d-4e0f-8a6b-2c1d9e8f7a6b", false
+        )).isEqualTo("00020101021226490014br.gov.bcb.pix0114+55119999988880209Pedido 425204000053039865406150.75"
+            + "5802BR5912Loja Exemplo6009Sao Paulo622905253f2a9c1e7b4d4e0f8a6b2c1d96304475F");
+    }
+
+    @Test
+    void encodesAReusableCodeWithAWholeAmountAndAccents() {
+        assertThat(BrCodeKernel.encode(
+            "Padaria São João", "Belo Horizonte", "pagamentos@padaria.com.br", null, new BigDecimal(12), null, true
+        )).isEqualTo("00020126470014br.gov.bcb.pix0125pagamentos@padaria.com.br520400005303986540512.005802BR"
+            + "5916Padaria Sao Joao6014Belo Horizonte62070503***6304DAA1");
+    }
+
+    @Test
+    void referenceCrcMatchesTheCheckValue() {
+        assertThat(crc16("123456789")).isEqualTo(0x29B1);
+    }
+
+    @Test
+    void generatedPayloadsAreWellFormedTlvClosedByTheirCrc() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            String payload = BrCodeKernel.encode(
+                text(random, 1 + random.nextInt(40)),
+                text(random, 1 + random.nextInt(30)),
+                text(random, 1 + random.nextInt(BrCodeKernel.MAX_PIX_KEY_LENGTH)),
+                random.nextBoolean() ? text(random, random.nextInt(60)) : null,
+                random.nextBoolean() ? BigDecimal.valueOf(random.nextInt(10_000_000), 2) : null,
+                random.nextBoolean() ? text(random, random.nextInt(40)) : null,
+                random.nextBoolean()
+            );
+
+            Map<String, String> fields = tlv(payload);
+            assertThat(fields).containsKeys("00", "26", "52", "53", "58", "59", "60", "62", "63");
+            assertThat(fields.get("00")).isEqualTo("01");
+            assertThat(tlv(fields.get("26"))).containsEntry("00", "br.gov.bcb.pix").containsKey("01");
+            assertThat(tlv(fields.get("62"))).containsKey("05");
+            assertThat(payload).endsWith(String.format("%04X", crc16(payload.substring(0, payload.length() - 4))));
+            assertThat(payload).hasSizeLessThanOrEqualTo(256);
+        }
+    }
+
+    // Fields in order; fails on a length that runs past the end
+    private static Map<String, String> tlv(String data) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int pos = 0;
+        while (pos < data.length()) {
+            String id = data.substring(pos, pos + 2);
+            int length = Integer.parseInt(data.substring(pos + 2, pos + 4));
+            assertThat(pos + 4 + length).isLessThanOrEqualTo(data.length());
+            assertThat(fields.put(id, data.substring(pos + 4, pos + 4 + length))).as("repeated field " + id).isNull();
+            pos += 4 + length;
+        }
+        return fields;
+    }
+
+    private static int crc16(String data) {
+        int crc = 0xFFFF;
+        for (byte b : data.getBytes(StandardCharsets.US_ASCII)) {
+            crc ^= (b & 0xFF) << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            crc &= 0xFFFF;
+        }
+        return crc;
+    }
+
+    private static String text(Random random, int length) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 .-@+çãéÁ";
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
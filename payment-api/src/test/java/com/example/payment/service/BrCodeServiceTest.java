@@ -0,0 +1,34 @@
+package com.example.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Static codes of open payments with the same key, amount and description
+ * still tell the payments apart by their txid.
+ */
+class BrCodeServiceTest {
+    private final BrCodeService brCodeService = new BrCodeService("Loja Exemplo", "São Paulo");
+
+    @Test
+    void staticCodesCarryTheTxidOfTheirPayment() {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        BigDecimal amount = new BigDecimal("150.75");
+
+        String firstCode = brCodeService.staticCode(first, "email@exemplo.com", amount, "Pedido 42");
+        String secondCode = brCodeService.staticCode(second, "email@exemplo.com", amount, "Pedido 42");
+
+        assertThat(firstCode).isNotEqualTo(secondCode);
+        assertThat(firstCode).contains("0525" + txid(first)).doesNotContain("010212");
+        assertThat(secondCode).contains("0525" + txid(second)).doesNotContain("010212");
+    }
+
+    private static String txid(String paymentId) {
+        return paymentId.replace("-", "").substring(0, 25);
+    }
+}
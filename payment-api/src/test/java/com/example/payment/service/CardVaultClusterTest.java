@@ -0,0 +1,85 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.exception.CardTokenNotFoundException;
+import com.example.payment.exception.InvalidCreditCardException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardVaultClusterTest {
+    private static PaymentTestCluster cluster;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+        nodeA = cluster.startNode();
+        nodeB = cluster.startNode();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void tokenRevokedOnOneNodeIsRejectedOnTheOther() throws Exception {
+        String token = saveCard(nodeA);
+
+        PaymentResponse paid = nodeB.getBean(PaymentService.class).processPayment(PaymentRequests.savedCard(token));
+        assertThat(paid.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(paid.getAdditionalInfo()).containsEntry("cardToken", token);
+
+        nodeA.getBean(CardVault.class).revoke(token);
+
+        // Node B has the token in its index; only the broadcast makes it drop it
+        PaymentTestCluster.eventually(Duration.ofSeconds(10), () ->
+            assertThatThrownBy(() -> nodeB.getBean(PaymentService.class).processPayment(PaymentRequests.savedCard(token)))
+                .isInstanceOf(InvalidCreditCardException.class)
+        );
+        assertThatThrownBy(() -> nodeB.getBean(CardVault.class).revoke(token))
+            .isInstanceOf(CardTokenNotFoundException.class);
+    }
+
+    @Test
+    void cardNumberIsStoredEncrypted() {
+        String token = saveCard(nodeA);
+
+        byte[] encryptedPan = cluster.jdbcTemplate().queryForObject(
+            "SELECT encrypted_pan FROM card_tokens WHERE token = ?", byte[].class, token
+        );
+        assertThat(new String(encryptedPan, StandardCharsets.ISO_8859_1)).doesNotContain(PaymentRequests.CARD_NUMBER);
+        assertThat(nodeB.getBean(PaymentService.class).processPayment(PaymentRequests.savedCard(token)).getStatus())
+            .isEqualTo(PaymentStatus.COMPLETED);
+    }
+
+    @Test
+    void nodeWithoutEncryptionKeyFailsToStart() {
+        assertThatThrownBy(() -> cluster.startNode("payment.vault.encryption-key="))
+            .rootCause()
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("payment.vault.encryption-key is not set");
+    }
+
+    private static String saveCard(ConfigurableApplicationContext node) {
+        PaymentRequest request = PaymentRequests.creditCard();
+        ((CreditCardRequest) request.getPaymentDetails()).setSaveCard(true);
+        PaymentResponse response = node.getBean(PaymentService.class).processPayment(request);
+        assertThat(response.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        return (String) response.getAdditionalInfo().get("cardToken");
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.CreditCardPayment;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.exception.IdempotencyConflictException;
+import com.example.payment.exception.PaymentProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Duplicate submissions of one idempotency key, in parallel on two nodes
+ * and as retries after a failure, create and charge a single payment.
+ */
+class IdempotencyClusterTest {
+    private static final int SUBMISSIONS_PER_NODE = 8;
+
+    private static PaymentTestCluster cluster;
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+        // The acquirer's latency keeps the first submission in flight while the others arrive
+        first = cluster.startNode("payment.acquirer.simulated-delay=true");
+        second = cluster.startNode("payment.acquirer.simulated-delay=true");
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void parallelDuplicatesOnTwoNodesCreateAndChargeOnePayment() throws Exception {
+        String key = UUID.randomUUID().toString();
+        PaymentRequest request = PaymentRequests.creditCard();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Callable<PaymentResponse>> submissions = new ArrayList<>();
+        for (ConfigurableApplicationContext node : List.of(first, second)) {
+            PaymentService paymentService = node.getBean(PaymentService.class);
+            for (int i = 0; i < SUBMISSIONS_PER_NODE; i++) {
+                submissions.add(() -> {
+                    start.await();
+                    return paymentService.processPayment(key, request);
+                });
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(submissions.size());
+        List<String> paymentIds = new ArrayList<>();
+        try {
+            List<Future<PaymentResponse>> results = new ArrayList<>();
+            for (Callable<PaymentResponse> submission : submissions) {
+                results.add(executor.submit(submission));
+            }
+            start.countDown();
+            for (Future<PaymentResponse> result : results) {
+                try {
+                    PaymentResponse response = result.get();
+                    assertThat(response.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+                    paymentIds.add(response.getId());
+                } catch (ExecutionException e) {
+                    // Only a duplicate on the other node, while the first is still running, is turned away
+                    assertThat(e.getCause()).isInstanceOf(IdempotencyConflictException.class);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(paymentIds).isNotEmpty();
+        assertThat(paymentIds).containsOnly(paymentIds.get(0));
+        JdbcTemplate jdbcTemplate = cluster.jdbcTemplate();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM payments WHERE id = ?", Integer.class, paymentIds.get(0))).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM idempotency_keys WHERE idempotency_key = ? AND payment_id = ?",
+            Integer.class, key, paymentIds.get(0))).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM acquirer_ledger WHERE payment_id = ?", Integer.class, paymentIds.get(0))).isEqualTo(1);
+
+        // A later retry replays the stored response
+        assertThat(second.getBean(PaymentService.class).processPayment(key, request).getId()).isEqualTo(paymentIds.get(0));
+    }
+
+    @Test
+    void storedFingerprintIsKeyedAndLeavesOutTheCvv() throws Exception {
+        String key = UUID.randomUUID().toString();
+        PaymentRequest request = PaymentRequests.creditCard();
+        PaymentResponse created = first.getBean(PaymentService.class).processPayment(key, request);
+
+        String stored = cluster.jdbcTemplate().queryForObject(
+            "SELECT request_hash FROM idempotency_keys WHERE idempotency_key = ?", String.class, key
+        );
+        String unkeyed = CardDataKernel.sha256Hex(first.getBean(ObjectMapper.class).writeValueAsString(request));
+        assertThat(stored).hasSize(64).isNotEqualTo(unkeyed);
+
+        // Another node derives the same fingerprint, and a retry sent with another CVV is the same request
+        ((CreditCardRequest) request.getPaymentDetails()).setCvv("999");
+        assertThat(second.getBean(PaymentService.class).processPayment(key, request).getId()).isEqualTo(created.getId());
+
+        // A different card is not
+        ((CreditCardRequest) request.getPaymentDetails()).setCardNumber("5555555555554444");
+        assertThatThrownBy(() -> second.getBean(PaymentService.class).processPayment(key, request))
+            .isInstanceOf(IdempotencyConflictException.class);
+    }
+
+    @Test
+    void retryAfterAFailureResumesTheAuthorizedPayment() {
+        String key = UUID.randomUUID().toString();
+        PaymentRequest request = PaymentRequests.creditCard();
+        CreditCardRequest cardDetails = (CreditCardRequest) request.getPaymentDetails();
+        PaymentCard card = first.getBean(CardVault.class).resolve(cardDetails);
+        PaymentPersistenceService persistence = first.getBean(PaymentPersistenceService.class);
+        AcquirerService acquirer = first.getBean(AcquirerService.class);
+        String[] paymentId = new String[1];
+        AuthorizationResult[] authorization = new AuthorizationResult[1];
+
+        // Authorized, then failed before recording the outcome
+        assertThatThrownBy(() -> first.getBean(IdempotencyService.class).execute(key, request, () -> {
+            paymentId[0] = persistence.createCreditCardPayment(key, request, cardDetails, card).getPayment().getId();
+            authorization[0] = acquirer.authorize(paymentId[0], request.getAmount(), cardDetails);
+            throw new PaymentProcessingException("Connection reset");
+        }, id -> {
+            throw new AssertionError("Nothing to resume on the first attempt");
+        })).isInstanceOf(PaymentProcessingException.class);
+
+        JdbcTemplate jdbcTemplate = cluster.jdbcTemplate();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT status FROM idempotency_keys WHERE idempotency_key = ?", String.class, key)).isEqualTo("FAILED");
+
+        PaymentResponse response = second.getBean(PaymentService.class).processPayment(key, request);
+
+        assertThat(response.getId()).isEqualTo(paymentId[0]);
+        assertThat(response.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        CreditCardPayment ccPayment = second.getBean(PaymentPersistenceService.class).findCreditCardPayment(paymentId[0]);
+        assertThat(ccPayment.getAuthorizationCode()).isEqualTo(authorization[0].authorizationCode());
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM acquirer_ledger WHERE payment_id = ?", Integer.class, paymentId[0])).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT status FROM idempotency_keys WHERE idempotency_key = ?", String.class, key)).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void failureBeforeThePaymentExistsReleasesTheKey() {
+        String key = UUID.randomUUID().toString();
+        PaymentRequest request = PaymentRequests.creditCard();
+        IdempotencyService idempotencyService = first.getBean(IdempotencyService.class);
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, request, () -> {
+            throw new PaymentProcessingException("Acquirer unavailable");
+        }, id -> {
+            throw new AssertionError("Nothing to resume");
+        })).isInstanceOf(PaymentProcessingException.class);
+
+        assertThat(cluster.jdbcTemplate().queryForObject(
+            "SELECT count(*) FROM idempotency_keys WHERE idempotency_key = ?", Integer.class, key)).isZero();
+        assertThat(first.getBean(PaymentService.class).processPayment(key, request).getStatus())
+            .isEqualTo(PaymentStatus.COMPLETED);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentTestCluster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Several nodes share the job partitions through job_leases. Heartbeats are
+ * driven by the test, with scheduling off, so that each step is explicit.
+ */
+class JobCoordinatorClusterTest {
+    private static final String LEASE_TTL = "payment.cluster.lease-ttl=2s";
+    private static final Set<Integer> ALL_PIX_PARTITIONS = IntStream.range(0, 16).boxed().collect(Collectors.toSet());
+
+    private PaymentTestCluster cluster;
+
+    @BeforeEach
+    void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+    }
+
+    @AfterEach
+    void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void partitionsAreSplitWhenNodesJoin() {
+        JobCoordinator a = coordinator(cluster.startNode());
+        a.heartbeat();
+        assertThat(a.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB)).isEqualTo(ALL_PIX_PARTITIONS);
+
+        JobCoordinator b = coordinator(cluster.startNode());
+        JobCoordinator c = coordinator(cluster.startNode());
+        // Newcomers register, the owner hands back its surplus and they claim it over the next rounds
+        for (int round = 0; round < 3; round++) {
+            b.heartbeat();
+            c.heartbeat();
+            a.heartbeat();
+        }
+
+        Set<Integer> ofA = a.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB);
+        Set<Integer> ofB = b.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB);
+        Set<Integer> ofC = c.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB);
+        assertThat(ofA).hasSizeLessThanOrEqualTo(6).doesNotContainAnyElementsOf(ofB).doesNotContainAnyElementsOf(ofC);
+        assertThat(ofB).hasSizeLessThanOrEqualTo(6).doesNotContainAnyElementsOf(ofC);
+        Set<Integer> union = new HashSet<>(ofA);
+        union.addAll(ofB);
+        union.addAll(ofC);
+        assertThat(union).isEqualTo(ALL_PIX_PARTITIONS);
+
+        // Single-partition jobs have exactly one leader
+        long leaders = Set.of(a, b, c).stream().filter(node -> node.isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)).count();
+        assertThat(leaders).isEqualTo(1);
+    }
+
+    @Test
+    void leasesOfADeadNodeAreTakenOverOnceExpired() throws Exception {
+        JobCoordinator a = coordinator(cluster.startNode(LEASE_TTL));
+        JobCoordinator b = coordinator(cluster.startNode(LEASE_TTL));
+        a.heartbeat();
+        b.heartbeat();
+        a.heartbeat();
+        b.heartbeat();
+        Set<Integer> ofA = a.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB);
+        assertThat(ofA).hasSize(8);
+        assertThat(b.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB)).hasSize(8);
+
+        // Node A stops heartbeating without releasing anything, as if it had crashed
+        Thread.sleep(2_500);
+        b.heartbeat();
+
+        assertThat(a.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB)).as("expired on the node itself").isEmpty();
+        assertThat(a.isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)).isFalse();
+        assertThat(b.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB)).isEqualTo(ALL_PIX_PARTITIONS);
+        assertThat(b.isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)).isTrue();
+    }
+
+    @Test
+    void partitionsOfAStoppedNodeAreReleasedAtOnce() {
+        ConfigurableApplicationContext nodeA = cluster.startNode();
+        JobCoordinator a = coordinator(nodeA);
+        JobCoordinator b = coordinator(cluster.startNode());
+        a.heartbeat();
+        b.heartbeat();
+        assertThat(b.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB)).isEmpty();
+
+        cluster.stopNode(nodeA);
+        b.heartbeat();
+
+        // Well within the default 30s lease TTL
+        assertThat(b.ownedPartitions(JobCoordinator.PIX_EXPIRY_JOB)).isEqualTo(ALL_PIX_PARTITIONS);
+        assertThat(b.isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)).isTrue();
+    }
+
+    private static JobCoordinator coordinator(ConfigurableApplicationContext node) {
+        return node.getBean(JobCoordinator.class);
+    }
+}
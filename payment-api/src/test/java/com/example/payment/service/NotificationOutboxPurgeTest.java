@@ -0,0 +1,65 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentTestCluster;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Delivered notifications leave the outbox after payment.outbox.retention
+ * and the ones that used up their attempts after payment.outbox.failed-retention.
+ */
+class NotificationOutboxPurgeTest {
+    private static PaymentTestCluster cluster;
+    private static ConfigurableApplicationContext node;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+        node = cluster.startNode("payment.outbox.retention=7d", "payment.outbox.failed-retention=30d");
+        node.getBean(JobCoordinator.class).heartbeat();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void purgesFailedNotificationsAfterTheirOwnRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        String oldSent = insert("SENT", now.minusDays(8), now.minusDays(8));
+        String recentSent = insert("SENT", now.minusDays(1), now.minusDays(1));
+        String oldFailed = insert("FAILED", now.minusDays(31), null);
+        String recentFailed = insert("FAILED", now.minusDays(8), null);
+        String oldPending = insert("PENDING", now.minusDays(31), null);
+
+        node.getBean(NotificationDispatcher.class).purgeFinished();
+
+        assertThat(cluster.jdbcTemplate().queryForList("SELECT id FROM notification_outbox", String.class))
+            .contains(recentSent, recentFailed, oldPending)
+            .doesNotContain(oldSent, oldFailed);
+    }
+
+    private static String insert(String status, LocalDateTime claimedAt, LocalDateTime sentAt) {
+        JdbcTemplate jdbcTemplate = cluster.jdbcTemplate();
+        String id = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+            INSERT INTO notification_outbox
+                (id, payment_id, type, status, message, attempts, created_at, next_attempt_at, claimed_at, sent_at)
+            VALUES (?, ?, 'EMAIL', ?, 'Payment completed', 8, ?, ?, ?, ?)
+            """,
+            id, UUID.randomUUID().toString(), status, Timestamp.valueOf(claimedAt), Timestamp.valueOf(claimedAt),
+            Timestamp.valueOf(claimedAt), sentAt == null ? null : Timestamp.valueOf(sentAt)
+        );
+        return id;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A subscriber that stops reading has its stream closed once its queue is
+ * full, while the other streams keep receiving their events.
+ */
+class PaymentEventStreamsTest {
+    private static PaymentTestCluster cluster;
+    private static ConfigurableApplicationContext node;
+    private static int port;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+        node = cluster.startNode(
+            "spring.main.web-application-type=servlet",
+            "server.port=0",
+            "payment.events.dispatch-threads=2",
+            "payment.events.max-queued-events=10"
+        );
+        port = Integer.parseInt(node.getEnvironment().getProperty("local.server.port"));
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void stalledSubscriberIsClosedWithoutDelayingTheOthers() throws Exception {
+        PaymentService paymentService = node.getBean(PaymentService.class);
+        PaymentEventStreams eventStreams = node.getBean(PaymentEventStreams.class);
+        String stalledId = paymentService.processPayment(PaymentRequests.creditCard()).getId();
+        String healthyId = paymentService.processPayment(PaymentRequests.creditCard()).getId();
+
+        try (Socket stalled = new Socket()) {
+            // Sends the request and never reads the response
+            stalled.setReceiveBufferSize(1024);
+            stalled.connect(new InetSocketAddress("127.0.0.1", port));
+            OutputStream request = stalled.getOutputStream();
+            request.write(("GET /api/payments/" + stalledId + "/events HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+            request.flush();
+
+            BlockingQueue<String> healthyLines = new LinkedBlockingQueue<>();
+            HttpResponse<Stream<String>> healthy = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/payments/" + healthyId + "/events"))
+                    .build(),
+                HttpResponse.BodyHandlers.ofLines()
+            );
+            Thread reader = new Thread(() -> healthy.body().forEach(healthyLines::add));
+            reader.setDaemon(true);
+            reader.start();
+            assertThat(healthyLines.poll(10, TimeUnit.SECONDS)).startsWith("event:status");
+
+            // Until the socket buffers are full and the stalled stream's queue overflows
+            MeterRegistry meterRegistry = node.getBean(MeterRegistry.class);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (meterRegistry.counter("payment.events.overflowed").count() == 0) {
+                assertThat(System.nanoTime() - deadline).as("stalled stream still open").isNegative();
+                for (int i = 0; i < 1_000; i++) {
+                    eventStreams.onRemoteStatusChanged(new RemotePaymentStatusChangedEvent(
+                        stalledId, PaymentMethod.CREDIT_CARD, PaymentStatus.COMPLETED, PaymentStatus.COMPLETED, null, null
+                    ));
+                }
+            }
+
+            healthyLines.clear();
+            eventStreams.onRemoteStatusChanged(new RemotePaymentStatusChangedEvent(
+                healthyId, PaymentMethod.CREDIT_CARD, PaymentStatus.COMPLETED, PaymentStatus.REFUNDED, null, null
+            ));
+            String line;
+            do {
+                line = healthyLines.poll(5, TimeUnit.SECONDS);
+                assertThat(line).as("event on the healthy stream").isNotNull();
+            } while (!line.contains("REFUNDED"));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.domain.enums.ExportFormat;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PixRequest;
+import com.example.payment.exception.PaymentOverloadedException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentExportServiceTest {
+    private static final String INSERT_PAYMENTS_SQL = """
+        INSERT INTO payments (id, payment_method, amount, currency, status, created_at, updated_at)
+        SELECT gen_random_uuid()::text, 'PIX', 10.00, 'BRL', 'COMPLETED', localtimestamp, localtimestamp
+        FROM generate_series(1, ?)
+        """;
+
+    private static PaymentTestCluster cluster;
+    private static ConfigurableApplicationContext node;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+        node = cluster.startNode(
+            "payment.export.max-concurrent=1",
+            "payment.export.idle-timeout=1s",
+            "payment.export.fetch-size=10"
+        );
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void exportsThePaymentsCreatedWithinTheGivenBounds() throws IOException {
+        PaymentService paymentService = node.getBean(PaymentService.class);
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        String card = paymentService.processPayment(PaymentRequests.creditCard()).getId();
+        String pix = paymentService.processPayment(PaymentRequests.pix()).getId();
+        LocalDateTime after = LocalDateTime.now().plusSeconds(1);
+
+        assertThat(ids(export(before, after))).contains(card, pix);
+        assertThat(ids(export(before, null))).contains(card, pix);
+        assertThat(ids(export(null, before))).doesNotContain(card, pix);
+        assertThat(ids(export(after, null))).doesNotContain(card, pix);
+    }
+
+    @Test
+    void csvCellsThatASpreadsheetWouldRunAsFormulasAreDefused() throws IOException {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        PaymentRequest request = PaymentRequests.pix();
+        ((PixRequest) request.getPaymentDetails()).setPixKey("+5511999998888");
+        String id = node.getBean(PaymentService.class).processPayment(request).getId();
+
+        assertThat(export(before, null)).filteredOn(line -> line.startsWith(id + ","))
+            .singleElement().asString().contains(",'+5511999998888,").doesNotContain(",+5511999998888,");
+    }
+
+    @Test
+    void exportsOverTheLimitAreRefused() {
+        PaymentExportService exportService = node.getBean(PaymentExportService.class);
+        exportService.reserveSlot();
+        try {
+            assertThatThrownBy(exportService::reserveSlot).isInstanceOf(PaymentOverloadedException.class);
+        } finally {
+            exportService.releaseSlot();
+        }
+        exportService.reserveSlot();
+        exportService.releaseSlot();
+    }
+
+    @Test
+    void aClientThatStopsReadingLosesTheExportAndItsConnection() throws IOException {
+        // More than the output buffer holds, so the export writes to the client before the last fetch
+        cluster.jdbcTemplate().update(INSERT_PAYMENTS_SQL, 2_000);
+        OutputStream stalled = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    Thread.sleep(2_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        };
+
+        PaymentExportService exportService = node.getBean(PaymentExportService.class);
+        // Either the failed fetch or, overriding it, the rollback on the closed connection
+        assertThatThrownBy(() -> exportService.export(null, null, ExportFormat.CSV, stalled))
+            .isInstanceOf(RuntimeException.class);
+
+        // The pool replaced the connection PostgreSQL closed
+        assertThat(export(null, null)).hasSizeGreaterThan(2_000);
+    }
+
+    private static List<String> ids(List<String> lines) {
+        return lines.stream().skip(1).map(line -> line.substring(0, line.indexOf(','))).toList();
+    }
+
+    // Header first, then a line per payment
+    private static List<String> export(LocalDateTime from, LocalDateTime to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        node.getBean(PaymentExportService.class).export(from, to, ExportFormat.CSV, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
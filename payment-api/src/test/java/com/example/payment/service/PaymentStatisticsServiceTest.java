@@ -0,0 +1,76 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.PaymentTotals;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Totals that missed a change, as when another node's broadcast is lost,
+ * come back in line with the payments table on the next reseed.
+ */
+class PaymentStatisticsServiceTest {
+    private static PaymentTestCluster cluster;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void reseedUndoesDriftAndKeepsTheGaugesCurrent() {
+        ConfigurableApplicationContext node = cluster.startNode();
+        PaymentService paymentService = node.getBean(PaymentService.class);
+        PaymentStatisticsService statisticsService = node.getBean(PaymentStatisticsService.class);
+        paymentService.processPayment(PaymentRequests.pix());
+        String expiredId = paymentService.processPayment(PaymentRequests.pix()).getId();
+        assertThat(totals(statisticsService, PaymentStatus.PENDING).getCount()).isEqualTo(2);
+
+        // Changed behind the node's back, so no event reaches the totals
+        cluster.jdbcTemplate().update("UPDATE payments SET status = 'EXPIRED' WHERE id = ?", expiredId);
+        assertThat(totals(statisticsService, PaymentStatus.PENDING).getCount()).isEqualTo(2);
+
+        statisticsService.reseed();
+
+        assertThat(totals(statisticsService, PaymentStatus.PENDING).getCount()).isEqualTo(1);
+        assertThat(totals(statisticsService, PaymentStatus.EXPIRED).getCount()).isEqualTo(1);
+        assertThat(totals(statisticsService, PaymentStatus.EXPIRED).getAmount()).isEqualByComparingTo("100.00");
+        MeterRegistry meterRegistry = node.getBean(MeterRegistry.class);
+        assertThat(meterRegistry.get("payment.stats.payments")
+            .tags("status", "PENDING", "method", "PIX", "currency", "BRL").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("payment.stats.payments")
+            .tags("status", "EXPIRED", "method", "PIX", "currency", "BRL").gauge().value()).isEqualTo(1);
+        cluster.stopNode(node);
+    }
+
+    @Test
+    void amountsAreRoundedToHundredthsHalfUp() {
+        assertThat(PaymentStatisticsService.toHundredths(new BigDecimal("10.00"))).isEqualTo(1000);
+        assertThat(PaymentStatisticsService.toHundredths(new BigDecimal("0.125"))).isEqualTo(13);
+        assertThat(PaymentStatisticsService.toHundredths(new BigDecimal("19.999"))).isEqualTo(2000);
+        assertThat(PaymentStatisticsService.toHundredths(new BigDecimal("0.004"))).isZero();
+        assertThat(PaymentStatisticsService.toHundredths(new BigDecimal("-0.005"))).isEqualTo(-1);
+    }
+
+    private static PaymentTotals totals(PaymentStatisticsService statisticsService, PaymentStatus status) {
+        return statisticsService.getStatistics().getTotals().stream()
+            .filter(totals -> totals.getStatus() == status && totals.getPaymentMethod() == PaymentMethod.PIX)
+            .findFirst()
+            .orElseThrow();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A node whose notifications fail, as when its connection drops mid-flush,
+ * either delivers them late or gets the other nodes to treat their state as
+ * stale; it never loses them silently.
+ */
+class PaymentStatusBroadcasterTest {
+    private static PaymentTestCluster cluster;
+    private static ConfigurableApplicationContext receiver;
+    private static ConfigurableApplicationContext sender;
+    private static final ConcurrentLinkedQueue<RemotePaymentStatusChangedEvent> received = new ConcurrentLinkedQueue<>();
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+        receiver = cluster.startNode();
+        sender = cluster.startNode();
+        receiver.addApplicationListener((ApplicationListener<PayloadApplicationEvent<?>>) event -> {
+            if (event.getPayload() instanceof RemotePaymentStatusChangedEvent change) {
+                received.add(change);
+            }
+        });
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void failedFlushIsRetried() throws Exception {
+        FailingJdbcTemplate jdbcTemplate = new FailingJdbcTemplate();
+        PaymentStatusBroadcaster broadcaster = broadcaster(jdbcTemplate, Duration.ofMinutes(1));
+        String paymentId = UUID.randomUUID().toString();
+        broadcaster.onStatusChanged(event(paymentId));
+
+        jdbcTemplate.failing = true;
+        broadcaster.flush();
+        jdbcTemplate.failing = false;
+        broadcaster.flush();
+
+        PaymentTestCluster.eventually(Duration.ofSeconds(10), () ->
+            assertThat(received).anySatisfy(change -> assertThat(change.paymentId()).isEqualTo(paymentId))
+        );
+    }
+
+    @Test
+    void changesDroppedAfterRetryingMakeTheOtherNodesReseed() throws Exception {
+        FailingJdbcTemplate jdbcTemplate = new FailingJdbcTemplate();
+        PaymentStatusBroadcaster broadcaster = broadcaster(jdbcTemplate, Duration.ZERO);
+        String droppedId = UUID.randomUUID().toString();
+        broadcaster.onStatusChanged(event(droppedId));
+
+        jdbcTemplate.failing = true;
+        broadcaster.flush();
+        jdbcTemplate.failing = false;
+        broadcaster.flush();
+
+        PaymentTestCluster.eventually(Duration.ofSeconds(10), () ->
+            assertThat(received).anySatisfy(change -> assertThat(change.isMissedChanges()).isTrue())
+        );
+        assertThat(received).noneSatisfy(change -> assertThat(change.paymentId()).isEqualTo(droppedId));
+    }
+
+    private static PaymentStatusBroadcaster broadcaster(JdbcTemplate jdbcTemplate, Duration retryFor) {
+        return new PaymentStatusBroadcaster(
+            jdbcTemplate,
+            sender.getBean(DataSourceProperties.class),
+            sender,
+            sender.getBean(JobCoordinator.class),
+            retryFor
+        );
+    }
+
+    private static PaymentStatusChangedEvent event(String paymentId) {
+        return new PaymentStatusChangedEvent(
+            paymentId, PaymentMethod.PIX, PaymentStatus.PENDING, PaymentStatus.COMPLETED,
+            new BigDecimal("100.00"), "BRL", LocalDateTime.now()
+        );
+    }
+
+    private static final class FailingJdbcTemplate extends JdbcTemplate {
+        private volatile boolean failing;
+
+        FailingJdbcTemplate() {
+            super(cluster.jdbcTemplate().getDataSource());
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            if (failing) {
+                throw new DataAccessResourceFailureException("Connection reset");
+            }
+            super.query(sql, rch, args);
+        }
+    }
+}
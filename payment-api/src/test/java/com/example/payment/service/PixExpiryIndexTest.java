@@ -0,0 +1,75 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.dto.PixCallbackRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The expiry sweep's index covers open PIX charges only, on new databases
+ * and on databases from before the partial index once schema.sql upgrades
+ * them.
+ */
+class PixExpiryIndexTest {
+    private static final String INDEX_PREDICATE_SQL = """
+        SELECT pg_get_expr(indpred, indrelid) FROM pg_index
+        WHERE indexrelid = to_regclass('idx_pix_payments_partition_expires_at')
+        """;
+    private static final String EXPIRED_FLAG_SQL = """
+        SELECT expired FROM pix_payments WHERE payment_id = ?
+        """;
+
+    private static PaymentTestCluster cluster;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void expiredAndPaidChargesLeaveTheIndexAndOldDatabasesAreUpgraded() {
+        ConfigurableApplicationContext node = cluster.startNode();
+        PaymentService paymentService = node.getBean(PaymentService.class);
+        String expiredId = paymentService.processPayment(PaymentRequests.pix()).getId();
+        String paidId = paymentService.processPayment(PaymentRequests.pix()).getId();
+        String openId = paymentService.processPayment(PaymentRequests.pix()).getId();
+
+        // As the sweep would once the deadline has passed
+        node.getBean(PaymentPersistenceService.class).expirePixPayments(List.of(expiredId), LocalDateTime.now().plusDays(2));
+        paymentService.handlePixCallback(paidId, new PixCallbackRequest());
+
+        JdbcTemplate jdbcTemplate = cluster.jdbcTemplate();
+        assertThat(jdbcTemplate.queryForObject(INDEX_PREDICATE_SQL, String.class))
+            .isEqualTo("((paid = false) AND (expired = false))");
+        assertThat(jdbcTemplate.queryForObject(EXPIRED_FLAG_SQL, Boolean.class, expiredId)).isTrue();
+        assertThat(jdbcTemplate.queryForObject(EXPIRED_FLAG_SQL, Boolean.class, paidId)).isFalse();
+        assertThat(jdbcTemplate.queryForObject(EXPIRED_FLAG_SQL, Boolean.class, openId)).isFalse();
+        cluster.stopNode(node);
+
+        // Back to the schema from before the partial index
+        jdbcTemplate.execute("DROP INDEX idx_pix_payments_partition_expires_at");
+        jdbcTemplate.execute("ALTER TABLE pix_payments DROP COLUMN expired");
+        jdbcTemplate.execute("CREATE INDEX idx_pix_payments_partition_expires_at ON pix_payments (expiry_partition, expires_at)");
+
+        cluster.stopNode(cluster.startNode());
+
+        assertThat(jdbcTemplate.queryForObject(INDEX_PREDICATE_SQL, String.class))
+            .isEqualTo("((paid = false) AND (expired = false))");
+        assertThat(jdbcTemplate.queryForObject(EXPIRED_FLAG_SQL, Boolean.class, expiredId)).isTrue();
+        assertThat(jdbcTemplate.queryForObject(EXPIRED_FLAG_SQL, Boolean.class, openId)).isFalse();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.dto.PaymentSearchResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payment reads cost one statement, whatever the mix of card and PIX
+ * payments on a search page, and load no entities. Counted with
+ * Hibernate's statistics.
+ */
+class ReadModelStatementCountTest {
+    private static final int PAGE_SIZE = 5;
+
+    private static PaymentTestCluster cluster;
+    private static ConfigurableApplicationContext node;
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+        node = cluster.startNode("spring.jpa.properties.hibernate.generate_statistics=true");
+        statistics = node.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void getPaymentIsOneStatementAndThenNone() {
+        PaymentService paymentService = node.getBean(PaymentService.class);
+        PaymentQueryService queryService = node.getBean(PaymentQueryService.class);
+        PaymentCache paymentCache = node.getBean(PaymentCache.class);
+        List<String> ids = List.of(
+            paymentService.processPayment(PaymentRequests.creditCard()).getId(),
+            paymentService.processPayment(PaymentRequests.pix()).getId()
+        );
+
+        for (String id : ids) {
+            paymentCache.invalidate(id);
+            statistics.clear();
+            assertThat(queryService.getPayment(id)).isPresent();
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+
+            statistics.clear();
+            assertThat(queryService.getPayment(id)).isPresent();
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        }
+    }
+
+    @Test
+    void everySearchPageIsOneStatement() {
+        PaymentService paymentService = node.getBean(PaymentService.class);
+        PaymentQueryService queryService = node.getBean(PaymentQueryService.class);
+        for (int i = 0; i < PAGE_SIZE * 2; i++) {
+            paymentService.processPayment(i % 2 == 0 ? PaymentRequests.creditCard() : PaymentRequests.pix());
+        }
+
+        List<PaymentResponse> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            PaymentSearchResponse page = queryService.searchPayments(null, null, null, null, cursor, PAGE_SIZE);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+            seen.addAll(page.getPayments());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isGreaterThanOrEqualTo(2);
+        assertThat(seen).extracting(PaymentResponse::getId).doesNotHaveDuplicates();
+        assertThat(seen).anySatisfy(payment -> assertThat(payment.getAdditionalInfo()).containsKey("cardBrand"));
+        assertThat(seen).anySatisfy(payment -> assertThat(payment.getAdditionalInfo()).containsKey("pixKey"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScratchPoolTest {
+    @Test
+    void aThreadReusesTheInstanceAnotherThreadReleased() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        ScratchPool<byte[]> pool = new ScratchPool<>(() -> {
+            created.incrementAndGet();
+            return new byte[16];
+        });
+
+        // A thread per call, as with a virtual thread per request
+        AtomicReference<byte[]> first = new AtomicReference<>();
+        AtomicReference<byte[]> second = new AtomicReference<>();
+        runOnNewThread(() -> {
+            first.set(pool.acquire());
+            pool.release(first.get());
+        });
+        runOnNewThread(() -> {
+            second.set(pool.acquire());
+            pool.release(second.get());
+        });
+
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(created).hasValue(1);
+    }
+
+    @Test
+    void instancesInUseAreNotHandedOutTwice() {
+        ScratchPool<byte[]> pool = new ScratchPool<>(() -> new byte[16]);
+        byte[] held = pool.acquire();
+        pool.release(held);
+
+        byte[] first = pool.acquire();
+        byte[] second = pool.acquire();
+
+        assertThat(first).isSameAs(held);
+        assertThat(second).isNotSameAs(first);
+    }
+
+    private static void runOnNewThread(Runnable task) throws InterruptedException {
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+    }
+}
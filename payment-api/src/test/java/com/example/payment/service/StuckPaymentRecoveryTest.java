@@ -0,0 +1,143 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentRequests;
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.CreditCardPayment;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.exception.InvalidPaymentStatusException;
+import com.example.payment.repository.CreditCardPaymentRepository;
+import com.example.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A node crashes between the authorization, or the refund, and the commit
+ * of its outcome; the recovery leader, another node, settles the payment
+ * from the acquirer's record.
+ */
+class StuckPaymentRecoveryTest {
+    private static PaymentTestCluster cluster;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        cluster = PaymentTestCluster.start();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        cluster.close();
+    }
+
+    @Test
+    void recoveryOnAnotherNodeSettlesPaymentsOfACrashedNode() {
+        ConfigurableApplicationContext crashed = cluster.startNode();
+        PaymentRequest request = PaymentRequests.creditCard();
+        CreditCardRequest cardDetails = (CreditCardRequest) request.getPaymentDetails();
+        PaymentCard card = crashed.getBean(CardVault.class).resolve(cardDetails);
+        PaymentPersistenceService persistence = crashed.getBean(PaymentPersistenceService.class);
+
+        // Authorized, but the node died before recording it
+        String authorizedId = persistence.createCreditCardPayment(request, cardDetails, card).getPayment().getId();
+        AuthorizationResult authorization = crashed.getBean(AcquirerService.class)
+            .authorize(authorizedId, request.getAmount(), cardDetails);
+        // Died before the acquirer was called
+        String unauthorizedId = persistence.createCreditCardPayment(request, cardDetails, card).getPayment().getId();
+        cluster.stopNode(crashed);
+
+        ConfigurableApplicationContext survivor = cluster.startNode("payment.recovery.stuck-after=0s");
+        survivor.getBean(JobCoordinator.class).heartbeat();
+        assertThat(survivor.getBean(JobCoordinator.class).isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)).isTrue();
+        survivor.getBean(PaymentService.class).recoverStuckPayments();
+
+        PaymentRepository payments = survivor.getBean(PaymentRepository.class);
+        assertThat(payments.findById(authorizedId).orElseThrow().getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(payments.findById(unauthorizedId).orElseThrow().getStatus()).isEqualTo(PaymentStatus.FAILED);
+        CreditCardPayment ccPayment = survivor.getBean(CreditCardPaymentRepository.class).findByPaymentId(authorizedId);
+        assertThat(ccPayment.getAuthorizationCode()).isEqualTo(authorization.authorizationCode());
+        assertThat(ccPayment.getTransactionId()).isEqualTo(authorization.transactionId());
+        cluster.stopNode(survivor);
+    }
+
+    @Test
+    void recoverySettlesRefundsLeftPendingByACrashedNode() {
+        ConfigurableApplicationContext crashed = cluster.startNode();
+        PaymentService paymentService = crashed.getBean(PaymentService.class);
+        PaymentPersistenceService persistence = crashed.getBean(PaymentPersistenceService.class);
+        AcquirerService acquirer = crashed.getBean(AcquirerService.class);
+
+        // Refunded by the acquirer, but the node died before recording it
+        String refundedId = paymentService.processPayment(PaymentRequests.creditCard()).getId();
+        Payment refunded = persistence.reserveRefund(refundedId);
+        acquirer.refund(refundedId, refunded.getAmount());
+        // Died before the acquirer was called
+        String unrefundedId = paymentService.processPayment(PaymentRequests.creditCard()).getId();
+        persistence.reserveRefund(unrefundedId);
+        cluster.stopNode(crashed);
+
+        ConfigurableApplicationContext survivor = cluster.startNode("payment.recovery.stuck-after=0s");
+        survivor.getBean(JobCoordinator.class).heartbeat();
+        assertThat(survivor.getBean(JobCoordinator.class).isLeader(JobCoordinator.PAYMENT_RECOVERY_JOB)).isTrue();
+        survivor.getBean(PaymentService.class).recoverStuckPayments();
+
+        PaymentRepository payments = survivor.getBean(PaymentRepository.class);
+        assertThat(payments.findById(refundedId).orElseThrow().getStatus()).isEqualTo(PaymentStatus.REFUNDED);
+        assertThat(payments.findById(unrefundedId).orElseThrow().getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+
+        // Refunding the payment that went back to COMPLETED goes through once
+        survivor.getBean(PaymentService.class).refundPayment(unrefundedId);
+        assertThat(payments.findById(unrefundedId).orElseThrow().getStatus()).isEqualTo(PaymentStatus.REFUNDED);
+        assertThat(survivor.getBean(AcquirerService.class).isRefunded(unrefundedId)).isTrue();
+        assertThatThrownBy(() -> survivor.getBean(PaymentService.class).refundPayment(unrefundedId))
+            .isInstanceOf(InvalidPaymentStatusException.class);
+        cluster.stopNode(survivor);
+    }
+
+    @Test
+    void purgingTheLedgerKeepsTheRecentRefundOfAnOldPayment() {
+        ConfigurableApplicationContext crashed = cluster.startNode();
+        PaymentPersistenceService persistence = crashed.getBean(PaymentPersistenceService.class);
+
+        // Authorized past the ledger's retention, refunded by the acquirer just now, not recorded
+        String refundedId = crashed.getBean(PaymentService.class).processPayment(PaymentRequests.creditCard()).getId();
+        cluster.jdbcTemplate().update(
+            "UPDATE acquirer_ledger SET authorized_at = authorized_at - interval '31 days' WHERE payment_id = ?", refundedId
+        );
+        Payment refunded = persistence.reserveRefund(refundedId);
+        crashed.getBean(AcquirerService.class).refund(refundedId, refunded.getAmount());
+        cluster.stopNode(crashed);
+
+        ConfigurableApplicationContext survivor = cluster.startNode("payment.recovery.stuck-after=0s");
+        survivor.getBean(JobCoordinator.class).heartbeat();
+        survivor.getBean(AcquirerService.class).purgeLedger();
+        survivor.getBean(PaymentService.class).recoverStuckPayments();
+
+        assertThat(survivor.getBean(PaymentRepository.class).findById(refundedId).orElseThrow().getStatus())
+            .isEqualTo(PaymentStatus.REFUNDED);
+        assertThat(survivor.getBean(AcquirerService.class).isRefunded(refundedId)).isTrue();
+        cluster.stopNode(survivor);
+    }
+
+    @Test
+    void authorizingAPaymentAgainReturnsTheOriginalAuthorization() {
+        ConfigurableApplicationContext node = cluster.startNode();
+        AcquirerService acquirer = node.getBean(AcquirerService.class);
+        PaymentRequest request = PaymentRequests.creditCard();
+        CreditCardRequest cardDetails = (CreditCardRequest) request.getPaymentDetails();
+
+        AuthorizationResult first = acquirer.authorize("retried-payment", request.getAmount(), cardDetails);
+        AuthorizationResult second = acquirer.authorize("retried-payment", request.getAmount(), cardDetails);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(acquirer.findAuthorization("retried-payment")).contains(first);
+        assertThat(acquirer.findAuthorization("unknown-payment")).isEmpty();
+        cluster.stopNode(node);
+    }
+}
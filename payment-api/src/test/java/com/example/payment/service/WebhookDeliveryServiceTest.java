@@ -0,0 +1,257 @@
+package com.example.payment.service;
+
+import com.example.payment.PaymentTestCluster;
+import com.example.payment.exception.PaymentProcessingException;
+import com.example.payment.exception.PaymentValidationException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.DnsResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Deliveries to stub endpoints served by the JDK's HTTP server on loopback,
+ * which the URL policy is told to allow.
+ */
+class WebhookDeliveryServiceTest {
+    private static final String SECRET = "test-signing-secret";
+    private static final String PAYLOAD = "{\"paymentId\":\"p-1\",\"status\":\"COMPLETED\"}";
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final Duration OPEN_DURATION = Duration.ofMillis(300);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void deliversSignedPayloadAndTagsMetricsByOutcomeOnly() throws Exception {
+        ConcurrentLinkedQueue<Received> received = new ConcurrentLinkedQueue<>();
+        String url = stub(exchange -> {
+            received.add(new Received(
+                exchange.getRequestHeaders().getFirst("X-Payment-Timestamp"),
+                exchange.getRequestHeaders().getFirst("X-Payment-Signature"),
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)
+            ));
+            respond(exchange, 204);
+        });
+
+        String result = service(10_000).deliver(url, PAYLOAD);
+
+        assertThat(result).contains("204");
+        Received request = received.remove();
+        assertThat(request.body()).isEqualTo(PAYLOAD);
+        assertThat(request.signature()).isEqualTo("t=" + request.timestamp() + ",v1=" + hmac(request.timestamp() + "." + PAYLOAD));
+        assertThat(meterRegistry.find("payment.webhook.delivery").tag("outcome", "2xx").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("payment.webhook.delivery").timers())
+            .allSatisfy(timer -> assertThat(timer.getId().getTag("endpoint")).isNull());
+    }
+
+    @Test
+    void circuitOpensOnServerErrorsAndClosesAfterASuccessfulTrial() throws Exception {
+        AtomicInteger status = new AtomicInteger(503);
+        AtomicInteger hits = new AtomicInteger();
+        String url = stub(exchange -> {
+            hits.incrementAndGet();
+            respond(exchange, status.get());
+        });
+        WebhookDeliveryService service = service(10_000);
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> service.deliver(url, PAYLOAD)).hasMessageContaining("503");
+        }
+        assertThatThrownBy(() -> service.deliver(url, PAYLOAD)).hasMessageContaining("Circuit open");
+        assertThat(hits.get()).isEqualTo(FAILURE_THRESHOLD);
+        assertThat(meterRegistry.get("payment.webhook.circuits.open").gauge().value()).isEqualTo(1);
+
+        status.set(200);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        service.deliver(url, PAYLOAD);
+        service.deliver(url, PAYLOAD);
+        assertThat(hits.get()).isEqualTo(FAILURE_THRESHOLD + 2);
+        assertThat(meterRegistry.get("payment.webhook.circuits.open").gauge().value()).isZero();
+    }
+
+    @Test
+    void interruptedTrialDoesNotLeaveTheCircuitHalfOpen() throws Exception {
+        AtomicInteger status = new AtomicInteger(500);
+        CountDownLatch trialArrived = new CountDownLatch(1);
+        CountDownLatch releaseTrial = new CountDownLatch(1);
+        String url = stub(exchange -> {
+            if (status.get() == 0) {
+                // The trial: hangs until the test is done with it
+                trialArrived.countDown();
+                try {
+                    releaseTrial.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, 200);
+                return;
+            }
+            respond(exchange, status.get());
+        });
+        WebhookDeliveryService service = service(10_000);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> service.deliver(url, PAYLOAD)).isInstanceOf(PaymentProcessingException.class);
+        }
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        status.set(0);
+        AtomicReference<Throwable> trialFailure = new AtomicReference<>();
+        Thread trial = new Thread(() -> {
+            try {
+                service.deliver(url, PAYLOAD);
+            } catch (Throwable e) {
+                trialFailure.set(e);
+            }
+        });
+        trial.start();
+        assertThat(trialArrived.await(5, TimeUnit.SECONDS)).isTrue();
+        trial.interrupt();
+        trial.join(5_000);
+        assertThat(trialFailure.get()).hasMessageContaining("interrupted");
+        releaseTrial.countDown();
+
+        status.set(200);
+        assertThat(service.deliver(url, PAYLOAD)).contains("200");
+    }
+
+    @Test
+    void abandonedTrialHandsTheCircuitBack() {
+        WebhookCircuitBreaker breaker = new WebhookCircuitBreaker(1, 0);
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(WebhookCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onAbandoned();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void idleEndpointsAreBounded() throws Exception {
+        WebhookDeliveryService service = service(2);
+        for (int i = 0; i < 5; i++) {
+            service.deliver(stub(exchange -> respond(exchange, 200)), PAYLOAD);
+        }
+
+        PaymentTestCluster.eventually(Duration.ofSeconds(5), () ->
+            assertThat(meterRegistry.get("payment.webhook.endpoints").gauge().value()).isLessThanOrEqualTo(2)
+        );
+    }
+
+    @Test
+    void refusesLoopbackEndpointsUnlessAllowed() throws Exception {
+        AtomicInteger hits = new AtomicInteger();
+        String url = stub(exchange -> {
+            hits.incrementAndGet();
+            respond(exchange, 200);
+        });
+        WebhookDeliveryService service = new WebhookDeliveryService(
+            meterRegistry, new WebhookUrlPolicy(false), SECRET, Duration.ofSeconds(1), Duration.ofSeconds(2),
+            4, FAILURE_THRESHOLD, OPEN_DURATION, 10_000, Duration.ofHours(1)
+        );
+
+        assertThatThrownBy(() -> service.deliver(url, PAYLOAD)).isInstanceOf(PaymentValidationException.class);
+        assertThat(hits.get()).isZero();
+    }
+
+    @Test
+    void connectsOnlyToTheAddressesThePolicyAccepted() throws Exception {
+        AtomicInteger hits = new AtomicInteger();
+        String url = stub(exchange -> {
+            hits.incrementAndGet();
+            respond(exchange, 200);
+        });
+        // A rebinding host: public when checked, loopback by the time the client connects
+        AtomicInteger lookups = new AtomicInteger();
+        DnsResolver rebinding = new DnsResolver() {
+            @Override
+            public InetAddress[] resolve(String host) throws UnknownHostException {
+                String address = lookups.getAndIncrement() == 0 ? "203.0.113.10" : "127.0.0.1";
+                return new InetAddress[] {InetAddress.getByName(address)};
+            }
+
+            @Override
+            public String resolveCanonicalHostname(String host) {
+                return host;
+            }
+        };
+        WebhookDeliveryService service = new WebhookDeliveryService(
+            meterRegistry, new WebhookUrlPolicy(false, rebinding), SECRET, Duration.ofSeconds(1), Duration.ofSeconds(2),
+            4, FAILURE_THRESHOLD, OPEN_DURATION, 10_000, Duration.ofHours(1)
+        );
+
+        assertThatThrownBy(() -> service.deliver(url.replace("127.0.0.1", "hooks.example"), PAYLOAD))
+            .isInstanceOf(PaymentProcessingException.class);
+        assertThat(lookups.get()).isEqualTo(2);
+        assertThat(hits.get()).isZero();
+    }
+
+    private WebhookDeliveryService service(long maxEndpoints) {
+        return new WebhookDeliveryService(
+            meterRegistry, new WebhookUrlPolicy(true), SECRET, Duration.ofSeconds(1), Duration.ofSeconds(5),
+            4, FAILURE_THRESHOLD, OPEN_DURATION, maxEndpoints, Duration.ofHours(1)
+        );
+    }
+
+    private String stub(Handler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", exchange -> {
+            try (exchange) {
+                handler.handle(exchange);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static String hmac(String data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private record Received(String timestamp, String signature, String body) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.dto.BatchPaymentResponse;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.service.PaymentBatchService;
+import com.example.payment.service.PaymentService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Rows per second of the batch endpoint against the single-payment path
+ * called once per payment, as a marketplace would without batches: creates
+ * {@code payments} PIX charges and then {@code payments} card payments each
+ * way, and reports the speed-up against the 10x target.
+ *
+ * <p>The acquirer's simulated latency is off by default, so that the
+ * comparison is of validation, inserts and transactions; pass {@code true}
+ * as the second argument to include it, which the batch path overlaps
+ * across {@code payment.batch.authorization-parallelism} calls.
+ *
+ * <pre>
+ * mvn -B verify -Pload-test -pl payment-benchmarks -am -Dload.class=BatchPaymentLoadTest -Dload.args="2000 false"
+ * </pre>
+ */
+public final class BatchPaymentLoadTest {
+    private static final double TARGET_SPEEDUP = 10;
+    private static final int WARMUP_PAYMENTS = 200;
+
+    private BatchPaymentLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        boolean acquirerLatency = args.length > 1 && Boolean.parseBoolean(args[1]);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line arguments take precedence over the application.yml of payment-api
+                .run(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.show-sql=false",
+                    "--payment.scheduling.enabled=false",
+                    "--payment.acquirer.simulated-delay=" + acquirerLatency,
+                    "--payment.cluster.broadcast.enabled=false",
+                    "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                    "--logging.level.root=WARN"
+                );
+            try {
+                run(context, payments);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, int payments) {
+        PaymentService paymentService = context.getBean(PaymentService.class);
+        PaymentBatchService batchService = context.getBean(PaymentBatchService.class);
+
+        compare("PIX", BenchmarkData::pixRequest, paymentService, batchService, payments);
+        compare("card", BenchmarkData::creditCardRequest, paymentService, batchService, payments);
+    }
+
+    private static void compare(
+        String label,
+        Supplier<PaymentRequest> request,
+        PaymentService paymentService,
+        PaymentBatchService batchService,
+        int payments
+    ) {
+        // Warms up both paths so that neither pays for class loading and JIT
+        single(paymentService, request, WARMUP_PAYMENTS);
+        batch(batchService, request, WARMUP_PAYMENTS);
+
+        double singleRate = single(paymentService, request, payments);
+        double batchRate = batch(batchService, request, payments);
+        double speedup = batchRate / singleRate;
+        System.out.printf("%s: single %.0f payments/s, batch %.0f payments/s, %.1fx (target %.0fx: %s)%n",
+            label, singleRate, batchRate, speedup, TARGET_SPEEDUP, speedup >= TARGET_SPEEDUP ? "met" : "NOT met");
+    }
+
+    private static double single(PaymentService paymentService, Supplier<PaymentRequest> request, int payments) {
+        long start = System.nanoTime();
+        for (int i = 0; i < payments; i++) {
+            paymentService.processPayment(request.get());
+        }
+        return payments / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double batch(PaymentBatchService batchService, Supplier<PaymentRequest> request, int payments) {
+        List<PaymentRequest> requests = Collections.nCopies(payments, request.get());
+        long start = System.nanoTime();
+        BatchPaymentResponse response = batchService.processPayments(requests);
+        double rate = payments / ((System.nanoTime() - start) / 1e9);
+        if (response.getRejected() > 0) {
+            throw new IllegalStateException(response.getRejected() + " batch payments were rejected");
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.NotificationPreferences;
+import com.example.payment.dto.PaymentDetails;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.dto.PixRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sample requests and responses shared by the benchmarks.
+ */
+final class BenchmarkData {
+    static final String CARD_NUMBER = "4111111111111111";
+
+    private BenchmarkData() {
+    }
+
+    // Same defaults as the ObjectMapper Spring Boot builds for the application
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    // A throwaway card vault key; every run starts with an empty vault
+    static String vaultKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+    static PaymentRequest creditCardRequest() {
+        CreditCardRequest details = new CreditCardRequest();
+        details.setCardNumber(CARD_NUMBER);
+        details.setCardHolderName("João Silva");
+        details.setExpirationDate("12/30");
+        details.setCvv("123");
+        details.setInstallments(1);
+        return request(PaymentMethod.CREDIT_CARD, details);
+    }
+
+    // Paid with the card of creditCardRequest once it has been saved
+    static PaymentRequest savedCardRequest(String cardToken) {
+        CreditCardRequest details = new CreditCardRequest();
+        details.setCardToken(cardToken);
+        details.setInstallments(1);
+        return request(PaymentMethod.CREDIT_CARD, details);
+    }
+
+    static PaymentRequest pixRequest() {
+        PixRequest details = new PixRequest();
+        details.setPixKey("email@exemplo.com");
+        details.setDescription("Pagamento de teste");
+        return request(PaymentMethod.PIX, details);
+    }
+
+    // Request bodies as clients send them
+    static byte[] creditCardRequestJson() {
+        return json(creditCardRequest());
+    }
+
+    static byte[] pixRequestJson() {
+        return json(pixRequest());
+    }
+
+    private static byte[] json(PaymentRequest request) {
+        try {
+            return objectMapper().writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static PaymentResponse creditCardResponse() {
+        return PaymentResponse.builder()
+            .id(UUID.randomUUID().toString())
+            .status(PaymentStatus.COMPLETED)
+            .additionalInfo(Map.of(
+                "authorizationCode", "A1B2C3D4",
+                "transactionId", UUID.randomUUID().toString(),
+                "cardBrand", "VISA",
+                "installments", 1
+            ))
+            .build();
+    }
+
+    static PaymentResponse pixResponse() {
+        return PaymentResponse.builder()
+            .id(UUID.randomUUID().toString())
+            .status(PaymentStatus.PENDING)
+            .additionalInfo(Map.of(
+                "pixKey", "email@exemplo.com",
+                "qrCodeData", "PIX*" + UUID.randomUUID() + "*100.00*" + LocalDateTime.now(),
+                "transactionId", UUID.randomUUID().toString(),
+                "description", "Pagamento de teste"
+            ))
+            .expiresAt(LocalDateTime.now().plusHours(24))
+            .build();
+    }
+
+    private static PaymentRequest request(PaymentMethod method, PaymentDetails details) {
+        NotificationPreferences preferences = new NotificationPreferences();
+        preferences.setEmailNotification(true);
+
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(new BigDecimal("100.00"));
+        request.setCurrency("BRL");
+        request.setPaymentMethod(method);
+        request.setPaymentDetails(details);
+        request.setNotificationPreferences(preferences);
+        return request;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.service.BrCodeKernel;
+import com.example.payment.service.BrCodeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BR Code generation for PIX charges and QR code payments. The legacy
+ * variant is the placeholder payload BrCodeKernel replaced, kept here as a
+ * baseline; run with {@code -prof gc} to compare allocation per call.
+ *
+ * <p>Setup checks the kernel against the static code example of the BR Code
+ * manual and against payloads whose CRC was computed independently, so a
+ * run never measures a wrong encoder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrCodeBenchmark {
+    private String paymentId;
+    private String pixKey;
+    private BigDecimal amount;
+    private String description;
+    private BrCodeService brCodeService;
+
+    @Setup
+    public void setUp() {
+        paymentId = UUID.randomUUID().toString();
+        pixKey = "email@exemplo.com";
+        amount = new BigDecimal("150.75");
+        description = "Pedido 42";
+        brCodeService = new BrCodeService("Loja Exemplo", "São Paulo");
+
+        expect("00020126580014br.gov.bcb.pix0136123e4567-e12b-12d1-a456-4266554400005204000053039865802BR"
+                + "5913Fulano de Tal6008BRASILIA62070503***63041D3D",
+            BrCodeKernel.encode("Fulano de Tal", "BRASILIA", "123e4567-e12b-12d1-a456-426655440000",
+                null, null, null, true));
+        expect("00020101021226490014br.gov.bcb.pix0114+55119999988880209Pedido 425204000053039865406150.75"
+                + "5802BR5912Loja Exemplo6009Sao Paulo622905253f2a9c1e7b4d4e0f8a6b2c1d96304475F",
+            BrCodeKernel.encode("Loja Exemplo", "São Paulo", "+5511999998888",
+                "Pedido 42", new BigDecimal("150.75"), "3f2a9c1e-7b4d-4e0f-8a6b-2c1d9e8f7a6b", false));
+        expect("00020126470014br.gov.bcb.pix0125pagamentos@padaria.com.br520400005303986540512.00"
+                + "5802BR5916Padaria Sao Joao6014Belo Horizonte62070503***6304DAA1",
+            BrCodeKernel.encode("Padaria São João", "Belo Horizonte", "pagamentos@padaria.com.br",
+                null, new BigDecimal("12"), null, true));
+    }
+
+    @Benchmark
+    public String chargeCode() {
+        return brCodeService.chargeCode(paymentId, pixKey, amount, description);
+    }
+
+    @Benchmark
+    public String staticCode() {
+        return brCodeService.staticCode(paymentId, pixKey, amount, description);
+    }
+
+    @Benchmark
+    public String chargeCodeLegacy() {
+        return String.format("PIX*%s*%s*%s",
+            paymentId,
+            amount.toString(),
+            LocalDateTime.now().toString()
+        );
+    }
+
+    private static void expect(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("BR Code mismatch: expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.service.BinInfo;
+import com.example.payment.service.BinLookupService;
+import com.example.payment.service.CardDataKernel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card hashing, validation and brand detection. The legacy variants are the
+ * implementations CardDataKernel and BinLookupService replaced, kept here as
+ * a baseline; run with {@code -prof gc} to compare allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardDataBenchmark {
+    private String cardNumber;
+    private String expirationDate;
+    private BinLookupService binLookupService;
+
+    @Setup
+    public void setUp() throws IOException {
+        cardNumber = BenchmarkData.CARD_NUMBER;
+        expirationDate = "12/30";
+        binLookupService = new BinLookupService(new SimpleMeterRegistry(), "");
+    }
+
+    @Benchmark
+    public String hashCardNumber() {
+        return CardDataKernel.sha256Hex(cardNumber);
+    }
+
+    @Benchmark
+    public String hashCardNumberLegacy() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = digest.digest(cardNumber.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) hexString.append('0');
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+
+    @Benchmark
+    public boolean validateCardNumber() {
+        return CardDataKernel.isValidCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public boolean validateCardNumberLegacy() {
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = cardNumber.length() - 1; i >= 0; i--) {
+            int n = Integer.parseInt(cardNumber.substring(i, i + 1));
+            if (alternate) {
+                n *= 2;
+                if (n > 9) {
+                    n = (n % 10) + 1;
+                }
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+
+    @Benchmark
+    public boolean validateExpiry() {
+        return CardDataKernel.isValidExpiry(expirationDate, 2024, 1);
+    }
+
+    @Benchmark
+    public boolean validateExpiryLegacy() {
+        YearMonth expiry = YearMonth.parse(expirationDate, DateTimeFormatter.ofPattern("MM/yy"));
+        return !expiry.isBefore(YearMonth.of(2024, 1));
+    }
+
+    @Benchmark
+    public BinInfo detectCardBrand() {
+        return binLookupService.lookup(cardNumber);
+    }
+
+    @Benchmark
+    public String detectCardBrandLegacy() {
+        if (cardNumber.startsWith("4")) return "VISA";
+        if (cardNumber.startsWith("5")) return "MASTERCARD";
+        if (cardNumber.startsWith("3")) return "AMEX";
+        return "UNKNOWN";
+    }
+}
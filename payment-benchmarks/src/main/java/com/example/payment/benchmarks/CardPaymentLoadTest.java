@@ -0,0 +1,122 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.service.PaymentService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of card payments against a small connection pool: runs
+ * {@code payments} card payments from {@code concurrency} client threads
+ * with the acquirer's simulated latency (100-1000 ms) switched on and the
+ * primary pool limited to {@code pool-size} connections. Reports the
+ * throughput next to the ceiling a pipeline holding its connection through
+ * the acquirer call would have (pool size / mean latency), and the most
+ * connections seen in use at once.
+ *
+ * <p>Admission control is switched off so that it does not cap the
+ * concurrency being measured.
+ *
+ * <pre>
+ * mvn -B verify -Pload-test -pl payment-benchmarks -am -Dload.class=CardPaymentLoadTest -Dload.args="2000 64 4"
+ * </pre>
+ */
+public final class CardPaymentLoadTest {
+    // Mean of the acquirer's uniform 100-1000 ms simulated latency
+    private static final double MEAN_ACQUIRER_SECONDS = 0.55;
+    private static final long TIMEOUT_SECONDS = 600;
+
+    private CardPaymentLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line arguments take precedence over the application.yml of payment-api
+                .run(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                    "--spring.jpa.show-sql=false",
+                    "--payment.scheduling.enabled=false",
+                    "--payment.acquirer.simulated-delay=true",
+                    "--payment.admission.enabled=false",
+                    "--payment.cluster.broadcast.enabled=false",
+                    "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                    "--logging.level.root=WARN"
+                );
+            try {
+                run(context, payments, concurrency, poolSize);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, int payments, int concurrency, int poolSize)
+        throws Exception {
+        PaymentService paymentService = context.getBean(PaymentService.class);
+        // Without replicas the application's DataSource is the primary pool itself
+        HikariPoolMXBean pool = context.getBean(DataSource.class).unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        PaymentRequest request = BenchmarkData.creditCardRequest();
+
+        AtomicInteger maxActive = new AtomicInteger();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                maxActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "LoadTestPoolSampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>(payments);
+        long start = System.nanoTime();
+        for (int i = 0; i < payments; i++) {
+            results.add(clients.submit(() -> {
+                if (paymentService.processPayment(request).getStatus() == PaymentStatus.COMPLETED) {
+                    completed.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+        sampler.interrupt();
+
+        System.out.printf("card payments: %d completed of %d in %.1f s with %d clients%n",
+            completed.get(), payments, seconds, concurrency);
+        System.out.printf("throughput: %.1f payments/s; a connection held through the acquirer call caps it at %.1f/s%n",
+            payments / seconds, poolSize / MEAN_ACQUIRER_SECONDS);
+        System.out.printf("pool: at most %d of %d connections in use%n", maxActive.get(), poolSize);
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.dto.PixCallbackRequest;
+import com.example.payment.service.PaymentService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load test of the payment event streams: opens {@code subscribers} idle
+ * streams spread over {@code payments} PIX charges, then completes the
+ * charges one by one and measures how long each status change takes to
+ * reach every subscriber of the charge. Reports the heap and threads held
+ * per open stream, and the fan-out latency from the callback call to the
+ * event arriving at the client.
+ *
+ * <p>The subscribers are raw non-blocking sockets on a single selector
+ * thread, in the same JVM as the application, so the heap per stream
+ * includes the client's end of the connection (a socket channel and a few
+ * counters). Each stream uses two file descriptors of this process; run
+ * with {@code ulimit -n} above twice the subscriber count.
+ *
+ * <pre>
+ * mvn -B verify -Pload-test -pl payment-benchmarks -am -Dload.args="50000 1000"
+ * </pre>
+ */
+public final class PaymentEventsLoadTest {
+    private static final String EVENT_MARKER = "event:status";
+    // Below the ephemeral port range of a single source address
+    private static final int CONNECTIONS_PER_SOURCE_ADDRESS = 20_000;
+    private static final int MAX_PENDING_CONNECTS = 64;
+    private static final long CALLBACK_INTERVAL_MICROS = 5_000;
+    private static final long TIMEOUT_SECONDS = 300;
+
+    private PaymentEventsLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int payments = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentApplication.class)
+                // Command-line arguments take precedence over the application.yml of payment-api
+                .run(
+                    "--server.port=0",
+                    "--server.tomcat.max-connections=" + (subscribers + 100),
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.show-sql=false",
+                    "--payment.scheduling.enabled=false",
+                    "--payment.acquirer.simulated-delay=false",
+                    "--payment.cluster.broadcast.enabled=false",
+                    "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                    "--payment.events.max-subscribers=" + subscribers,
+                    "--logging.level.root=WARN"
+                );
+            try {
+                run(context, subscribers, payments);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, int subscribers, int payments) throws Exception {
+        PaymentService paymentService = context.getBean(PaymentService.class);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        String[] paymentIds = new String[payments];
+        for (int i = 0; i < payments; i++) {
+            paymentIds[i] = paymentService.processPayment(BenchmarkData.pixRequest()).getId();
+        }
+
+        long heapBefore = usedHeapAfterGc();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        Clients clients = new Clients(port, paymentIds, subscribers);
+        Thread clientThread = new Thread(clients, "LoadTestClients");
+        clientThread.setDaemon(true);
+        long connectStart = System.nanoTime();
+        clientThread.start();
+        clients.awaitSubscribed();
+        long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+
+        long heapPerStream = (usedHeapAfterGc() - heapBefore) / subscribers;
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        long fanOutStart = System.nanoTime();
+        for (int i = 0; i < payments; i++) {
+            clients.callbackStarted(i, System.nanoTime());
+            paymentService.handlePixCallback(paymentIds[i], new PixCallbackRequest());
+            TimeUnit.MICROSECONDS.sleep(CALLBACK_INTERVAL_MICROS);
+        }
+        clients.awaitEvents();
+        long fanOutMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fanOutStart);
+
+        long[] latencies = clients.latencies();
+        Arrays.sort(latencies);
+        System.out.printf("streams: %d over %d payments, opened in %d ms%n", subscribers, payments, connectMillis);
+        System.out.printf("heap per stream: %d bytes (%d MB in total)%n",
+            heapPerStream, heapPerStream * subscribers / (1024 * 1024));
+        System.out.printf("threads: %d before, %d with the streams open (including the client thread)%n",
+            threadsBefore, threadsAfter);
+        System.out.printf("fan-out: %d events in %d ms; latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+            latencies.length, fanOutMillis,
+            millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+            millis(percentile(latencies, 0.999)), millis(latencies[latencies.length - 1]));
+
+        clients.close();
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Opens the streams and reads them on one selector. Each stream follows
+     * one payment, round robin; its first event is the current status and
+     * the second the completion, timed against the start of the callback.
+     */
+    private static final class Clients implements Runnable {
+        private static final byte[] MARKER = EVENT_MARKER.getBytes(StandardCharsets.US_ASCII);
+
+        private final int port;
+        private final String[] paymentIds;
+        private final int subscribers;
+        private final Selector selector;
+        private final AtomicLongArray callbackStarts;
+        private final long[] latencies;
+        private final AtomicInteger subscribed = new AtomicInteger();
+        private final AtomicInteger received = new AtomicInteger();
+        private volatile IOException failure;
+        private volatile boolean closed;
+
+        private Clients(int port, String[] paymentIds, int subscribers) throws IOException {
+            this.port = port;
+            this.paymentIds = paymentIds;
+            this.subscribers = subscribers;
+            this.selector = Selector.open();
+            this.callbackStarts = new AtomicLongArray(paymentIds.length);
+            this.latencies = new long[subscribers];
+        }
+
+        void callbackStarted(int payment, long nanos) {
+            callbackStarts.set(payment, nanos);
+        }
+
+        void awaitSubscribed() throws IOException, InterruptedException {
+            await(subscribed, "subscribed");
+        }
+
+        void awaitEvents() throws IOException, InterruptedException {
+            await(received, "events received");
+        }
+
+        // Read by the main thread only after awaitEvents
+        long[] latencies() {
+            return latencies.clone();
+        }
+
+        void close() throws IOException {
+            closed = true;
+            selector.wakeup();
+        }
+
+        private void await(AtomicInteger counter, String what) throws IOException, InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (counter.get() < subscribers) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Timed out with " + counter.get() + " of " + subscribers + " " + what);
+                }
+                Thread.sleep(10);
+            }
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            int opened = 0;
+            try {
+                while (!closed) {
+                    while (opened < subscribers && opened - subscribed.get() < MAX_PENDING_CONNECTS) {
+                        connect(opened++);
+                    }
+                    selector.select(100);
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isConnectable()) {
+                            finishConnect(key);
+                        } else if (key.isReadable()) {
+                            read(key, buffer);
+                        }
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void connect(int index) throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            // Distinct loopback source addresses get around the ephemeral port range
+            channel.bind(new InetSocketAddress("127.0.0." + (1 + index / CONNECTIONS_PER_SOURCE_ADDRESS), 0));
+            channel.connect(new InetSocketAddress("127.0.0.1", port));
+            channel.register(selector, SelectionKey.OP_CONNECT, new Stream(index % paymentIds.length, index));
+        }
+
+        private void finishConnect(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            channel.finishConnect();
+            Stream stream = (Stream) key.attachment();
+            String request = "GET /api/payments/" + paymentIds[stream.payment] + "/events HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Accept: text/event-stream\r\n\r\n";
+            // A fresh socket's send buffer takes the whole request
+            channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII)));
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void read(SelectionKey key, ByteBuffer buffer) throws IOException {
+            Stream stream = (Stream) key.attachment();
+            buffer.clear();
+            int read = ((SocketChannel) key.channel()).read(buffer);
+            long now = System.nanoTime();
+            if (read < 0) {
+                throw new IOException("Stream " + stream.index + " closed by the server");
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                stream.matched = b == MARKER[stream.matched] ? stream.matched + 1 : b == MARKER[0] ? 1 : 0;
+                if (stream.matched < MARKER.length) {
+                    continue;
+                }
+                stream.matched = 0;
+                if (++stream.events == 1) {
+                    subscribed.incrementAndGet();
+                } else if (stream.events == 2) {
+                    latencies[stream.index] = now - callbackStarts.get(stream.payment);
+                    received.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static final class Stream {
+        private final int payment;
+        private final int index;
+        private int matched;
+        private int events;
+
+        private Stream(int payment, int index) {
+            this.payment = payment;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.domain.model.Payment;
+import com.example.payment.dto.PaymentSearchResponse;
+import com.example.payment.repository.PaymentRepository;
+import com.example.payment.service.JobCoordinator;
+import com.example.payment.service.PaymentArchiveService;
+import com.example.payment.service.PaymentPersistenceService;
+import com.example.payment.service.PaymentQueryService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the queries run on every request or job tick, against an
+ * embedded PostgreSQL holding {@code historyMonths} months of terminal
+ * payments behind the same recent working set. With {@code archived} the
+ * archival job has run first, so the history sits in the archive partitions
+ * and the live side only holds the last months.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentHistoryBenchmark {
+    private static final int PAYMENTS_PER_MONTH = 20_000;
+
+    // Terminal payments spread evenly over the history, half of them card and half PIX
+    private static final String INSERT_HISTORY_SQL = """
+        INSERT INTO payments (id, payment_method, amount, currency, status, created_at, updated_at)
+        SELECT gen_random_uuid()::text,
+               CASE WHEN n % 2 = 0 THEN 'CREDIT_CARD' ELSE 'PIX' END,
+               100.00, 'BRL',
+               (ARRAY['COMPLETED', 'COMPLETED', 'REFUNDED', 'FAILED', 'EXPIRED'])[n % 5 + 1],
+               t, t
+        FROM (
+            SELECT n, localtimestamp - interval '1 day' - interval '1 month' * (? * n / CAST(? AS float)) AS t
+            FROM generate_series(1, ?) AS n
+        ) history
+        """;
+    private static final String INSERT_RECENT_SQL = """
+        INSERT INTO payments (id, payment_method, amount, currency, status, created_at, updated_at)
+        SELECT gen_random_uuid()::text, ?, 100.00, 'BRL', ?,
+               localtimestamp - interval '1 second' * n, localtimestamp - interval '1 second' * n
+        FROM generate_series(1, ?) AS n
+        """;
+    private static final String INSERT_CARDS_SQL = """
+        INSERT INTO credit_card_payments (id, payment_id, card_brand, last_four_digits, installments)
+        SELECT gen_random_uuid()::text, id, 'VISA', '1111', 1 FROM payments WHERE payment_method = 'CREDIT_CARD'
+        """;
+    private static final String INSERT_PIX_SQL = """
+        INSERT INTO pix_payments (id, payment_id, pix_key, expires_at, paid, expiry_partition)
+        SELECT gen_random_uuid()::text, id, 'email@example.com', created_at + interval '1 day', status = 'COMPLETED', 0
+        FROM payments WHERE payment_method = 'PIX'
+        """;
+
+    @Param({"0", "12", "36"})
+    public int historyMonths;
+
+    @Param({"false", "true"})
+    public boolean archived;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private PaymentQueryService queryService;
+    private PaymentPersistenceService persistenceService;
+    private PaymentRepository paymentRepository;
+    private String completedCardsCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        context = new SpringApplicationBuilder(PaymentApplication.class)
+            .web(WebApplicationType.NONE)
+            // Command-line arguments take precedence over the application.yml of payment-api
+            .run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--payment.scheduling.enabled=false",
+                "--payment.acquirer.simulated-delay=false",
+                "--payment.cluster.broadcast.enabled=false",
+                "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                "--logging.level.root=WARN"
+            );
+        queryService = context.getBean(PaymentQueryService.class);
+        persistenceService = context.getBean(PaymentPersistenceService.class);
+        paymentRepository = context.getBean(PaymentRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        PaymentArchiveService archiveService = context.getBean(PaymentArchiveService.class);
+        archiveService.ensurePartitions(YearMonth.now().minusMonths(historyMonths + 1), YearMonth.now());
+
+        if (historyMonths > 0) {
+            int total = historyMonths * PAYMENTS_PER_MONTH;
+            jdbcTemplate.update(INSERT_HISTORY_SQL, historyMonths, total, total);
+        }
+        jdbcTemplate.update(INSERT_RECENT_SQL, "CREDIT_CARD", "COMPLETED", 2_000);
+        jdbcTemplate.update(INSERT_RECENT_SQL, "CREDIT_CARD", "PROCESSING", 50);
+        jdbcTemplate.update(INSERT_RECENT_SQL, "PIX", "COMPLETED", 2_000);
+        jdbcTemplate.update(INSERT_RECENT_SQL, "PIX", "PENDING", 200);
+        jdbcTemplate.update(INSERT_CARDS_SQL);
+        jdbcTemplate.update(INSERT_PIX_SQL);
+
+        if (archived) {
+            // The scheduled job: archive, then drop the live partitions it emptied
+            context.getBean(JobCoordinator.class).heartbeat();
+            archiveService.archive();
+        }
+        jdbcTemplate.execute("VACUUM ANALYZE");
+
+        completedCardsCursor = searchCompletedCards(null).getNextCursor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public PaymentSearchResponse searchPendingPix() {
+        return queryService.searchPayments(PaymentStatus.PENDING, PaymentMethod.PIX, null, null, null, 20);
+    }
+
+    @Benchmark
+    public PaymentSearchResponse searchCompletedCardsNextPage() {
+        return searchCompletedCards(completedCardsCursor);
+    }
+
+    @Benchmark
+    public List<Payment> findPendingPix() {
+        return paymentRepository.findByStatusAndPaymentMethod(PaymentStatus.PENDING, PaymentMethod.PIX);
+    }
+
+    @Benchmark
+    public List<Payment> findStuckPayments() {
+        return persistenceService.findStuckPayments(LocalDateTime.now());
+    }
+
+    private PaymentSearchResponse searchCompletedCards(String cursor) {
+        return queryService.searchPayments(PaymentStatus.COMPLETED, PaymentMethod.CREDIT_CARD, null, null, cursor, 20);
+    }
+}
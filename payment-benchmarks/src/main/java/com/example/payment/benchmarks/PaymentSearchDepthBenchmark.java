@@ -0,0 +1,164 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.domain.enums.PaymentStatus;
+import com.example.payment.dto.PaymentSearchResponse;
+import com.example.payment.repository.PaymentCursor;
+import com.example.payment.service.PaymentArchiveService;
+import com.example.payment.service.PaymentQueryService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a payment search by page depth, against an embedded
+ * PostgreSQL holding {@value #PAGES} pages of {@value #PAGE_SIZE} completed
+ * card payments, among as many PIX ones. {@code filter} picks the search:
+ * on status and method, on status alone, or none, the default list view;
+ * each is served by its own index. The cursor of the requested page is
+ * taken in setup, as a client paging through would hold it; with keyset
+ * pagination page 10,000 should cost the same as page 1. offsetPage runs
+ * the same search with OFFSET at that depth, for scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentSearchDepthBenchmark {
+    private static final int PAGES = 10_000;
+    private static final int PAGE_SIZE = 20;
+
+    // One payment every 30 seconds back from now, alternating card and PIX
+    private static final String INSERT_PAYMENTS_SQL = """
+        INSERT INTO payments (id, payment_method, amount, currency, status, created_at, updated_at)
+        SELECT gen_random_uuid()::text,
+               CASE WHEN n % 2 = 0 THEN 'CREDIT_CARD' ELSE 'PIX' END,
+               100.00, 'BRL', 'COMPLETED',
+               localtimestamp - interval '30 seconds' * n, localtimestamp - interval '30 seconds' * n
+        FROM generate_series(1, ?) AS n
+        """;
+    private static final String INSERT_CARDS_SQL = """
+        INSERT INTO credit_card_payments (id, payment_id, card_brand, last_four_digits, installments)
+        SELECT gen_random_uuid()::text, id, 'VISA', '1111', 1 FROM payments WHERE payment_method = 'CREDIT_CARD'
+        """;
+    private static final String INSERT_PIX_SQL = """
+        INSERT INTO pix_payments (id, payment_id, pix_key, expires_at, paid, expiry_partition)
+        SELECT gen_random_uuid()::text, id, 'email@example.com', created_at + interval '1 day', true, 0
+        FROM payments WHERE payment_method = 'PIX'
+        """;
+    // Last payment of the page before the requested one; %s is the filter
+    private static final String CURSOR_SQL = """
+        SELECT created_at, id FROM payments %s
+        ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1
+        """;
+    private static final String OFFSET_PAGE_SQL = """
+        SELECT id FROM payments %s
+        ORDER BY created_at DESC, id DESC OFFSET ? LIMIT ?
+        """;
+
+    public enum Filter {
+        STATUS_AND_METHOD(PaymentStatus.COMPLETED, PaymentMethod.CREDIT_CARD,
+            "WHERE status = 'COMPLETED' AND payment_method = 'CREDIT_CARD'"),
+        STATUS(PaymentStatus.COMPLETED, null, "WHERE status = 'COMPLETED'"),
+        NONE(null, null, "");
+
+        private final PaymentStatus status;
+        private final PaymentMethod method;
+        private final String where;
+
+        Filter(PaymentStatus status, PaymentMethod method, String where) {
+            this.status = status;
+            this.method = method;
+            this.where = where;
+        }
+    }
+
+    @Param
+    public Filter filter;
+
+    @Param({"1", "10000"})
+    public int page;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private PaymentQueryService queryService;
+    private JdbcTemplate jdbcTemplate;
+    private String cursor;
+    private String offsetPageSql;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        context = new SpringApplicationBuilder(PaymentApplication.class)
+            .web(WebApplicationType.NONE)
+            // Command-line arguments take precedence over the application.yml of payment-api
+            .run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--payment.scheduling.enabled=false",
+                "--payment.acquirer.simulated-delay=false",
+                "--payment.cluster.broadcast.enabled=false",
+                "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                "--logging.level.root=WARN"
+            );
+        queryService = context.getBean(PaymentQueryService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        int payments = 2 * PAGES * PAGE_SIZE;
+        // Thirty seconds per payment reach back about five months
+        context.getBean(PaymentArchiveService.class).ensurePartitions(YearMonth.now().minusMonths(6), YearMonth.now());
+        jdbcTemplate.update(INSERT_PAYMENTS_SQL, payments);
+        jdbcTemplate.update(INSERT_CARDS_SQL);
+        jdbcTemplate.update(INSERT_PIX_SQL);
+        jdbcTemplate.execute("VACUUM ANALYZE");
+
+        offsetPageSql = OFFSET_PAGE_SQL.formatted(filter.where);
+        if (page > 1) {
+            cursor = jdbcTemplate.queryForObject(CURSOR_SQL.formatted(filter.where), (rs, row) -> new PaymentCursor(
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getString("id")
+            ), (page - 1) * PAGE_SIZE - 1).encode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public PaymentSearchResponse searchPage() {
+        return queryService.searchPayments(filter.status, filter.method, null, null, cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<String> offsetPage() {
+        return jdbcTemplate.queryForList(offsetPageSql, String.class, (page - 1) * PAGE_SIZE, PAGE_SIZE);
+    }
+}
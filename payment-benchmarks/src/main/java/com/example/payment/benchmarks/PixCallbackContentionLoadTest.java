@@ -0,0 +1,169 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PixCallbackRequest;
+import com.example.payment.service.PaymentPersistenceService;
+import com.example.payment.service.PaymentService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention test of the payment state machine: creates {@code payments}
+ * PIX charges and fires {@code callbacks} paid callbacks at each of them,
+ * together with one refund and one expiry per charge, in random order from
+ * {@code concurrency} threads. Every transition races the others on the
+ * same rows.
+ *
+ * <p>Reports the throughput and how the races ended, then checks that each
+ * charge took exactly one path: paid once (and refunded at most once) or
+ * expired, with the paid flag, the status and the acquirer's refunds
+ * agreeing. Exits with status 1 if they do not.
+ *
+ * <pre>
+ * mvn -B verify -Pload-test -pl payment-benchmarks -am -Dload.class=PixCallbackContentionLoadTest -Dload.args="200 25 64"
+ * </pre>
+ */
+public final class PixCallbackContentionLoadTest {
+    private static final long TIMEOUT_SECONDS = 600;
+
+    private PixCallbackContentionLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int callbacks = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        boolean consistent;
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line arguments take precedence over the application.yml of payment-api
+                .run(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.show-sql=false",
+                    "--payment.scheduling.enabled=false",
+                    "--payment.acquirer.simulated-delay=false",
+                    "--payment.admission.enabled=false",
+                    "--payment.cluster.broadcast.enabled=false",
+                    "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.example.payment=OFF"
+                );
+            try {
+                consistent = run(context, payments, callbacks, concurrency);
+            } finally {
+                context.close();
+            }
+        }
+        if (!consistent) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean run(ConfigurableApplicationContext context, int payments, int callbacks, int concurrency)
+        throws Exception {
+        PaymentService paymentService = context.getBean(PaymentService.class);
+        PaymentPersistenceService persistenceService = context.getBean(PaymentPersistenceService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        PaymentRequest request = BenchmarkData.pixRequest();
+        List<String> paymentIds = new ArrayList<>(payments);
+        for (int i = 0; i < payments; i++) {
+            paymentIds.add(paymentService.processPayment(request).getId());
+        }
+
+        AtomicInteger paid = new AtomicInteger();
+        AtomicInteger refunded = new AtomicInteger();
+        AtomicInteger expired = new AtomicInteger();
+        Map<String, LongAdder> lost = new ConcurrentHashMap<>();
+        List<Runnable> tasks = new ArrayList<>(payments * (callbacks + 2));
+        for (String paymentId : paymentIds) {
+            for (int i = 0; i < callbacks; i++) {
+                tasks.add(() -> {
+                    paymentService.handlePixCallback(paymentId, new PixCallbackRequest());
+                    paid.incrementAndGet();
+                });
+            }
+            tasks.add(() -> {
+                paymentService.refundPayment(paymentId);
+                refunded.incrementAndGet();
+            });
+            tasks.add(() -> {
+                // As the expiry job would once the charge is past its deadline
+                if (!persistenceService.expirePixPayments(List.of(paymentId), LocalDateTime.now().plusDays(2)).isEmpty()) {
+                    expired.incrementAndGet();
+                }
+            });
+        }
+        Collections.shuffle(tasks);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            results.add(workers.submit(() -> {
+                start.await();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // The transition was lost to another one
+                    lost.computeIfAbsent(e.getClass().getSimpleName(), name -> new LongAdder()).increment();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        workers.shutdown();
+
+        System.out.printf("%d transitions on %d PIX charges (%d callbacks, 1 refund and 1 expiry each) in %.1f s with %d threads: %.0f/s%n",
+            tasks.size(), payments, callbacks, seconds, concurrency, tasks.size() / seconds);
+        System.out.printf("won: %d paid, %d refunded, %d expired%n", paid.get(), refunded.get(), expired.get());
+        System.out.printf("lost: %s%n", new TreeMap<>(lost));
+
+        Map<String, Integer> statuses = new TreeMap<>();
+        jdbcTemplate.query("SELECT status, count(*) AS payments FROM payments GROUP BY status",
+            rs -> { statuses.put(rs.getString("status"), rs.getInt("payments")); });
+        int paidFlags = jdbcTemplate.queryForObject("SELECT count(*) FROM pix_payments WHERE paid", Integer.class);
+        int acquirerRefunds = jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM acquirer_ledger WHERE refunded_at IS NOT NULL", Integer.class);
+        System.out.printf("final: %s, %d paid flags, %d refunds at the acquirer%n", statuses, paidFlags, acquirerRefunds);
+
+        boolean consistent = paid.get() + expired.get() == payments
+            && paidFlags == paid.get()
+            && acquirerRefunds == refunded.get()
+            && statuses.getOrDefault("COMPLETED", 0) == paid.get() - refunded.get()
+            && statuses.getOrDefault("REFUNDED", 0) == refunded.get()
+            && statuses.getOrDefault("EXPIRED", 0) == expired.get()
+            && statuses.getOrDefault("PENDING", 0) == 0
+            && statuses.getOrDefault("REFUND_PENDING", 0) == 0;
+        System.out.println(consistent ? "consistent: every charge took exactly one path" : "INCONSISTENT");
+        return consistent;
+    }
+}
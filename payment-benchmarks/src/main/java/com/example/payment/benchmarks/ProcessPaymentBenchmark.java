@@ -0,0 +1,111 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PaymentResponse;
+import com.example.payment.service.CardVault;
+import com.example.payment.service.PaymentCard;
+import com.example.payment.service.PaymentService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaymentService.processPayment end to end against an embedded PostgreSQL,
+ * with the acquirer's simulated latency and all scheduled jobs switched off
+ * so that only the request path is measured. Card payments are measured
+ * with the card number and with the token of the same card saved, and
+ * resolveCard/resolveSavedCard isolate the card handling the token skips
+ * (hashing and BIN lookup; validation skips the Luhn check as well).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProcessPaymentBenchmark {
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private CardVault cardVault;
+    private PaymentRequest creditCardRequest;
+    private PaymentRequest savedCardRequest;
+    private PaymentRequest pixRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        context = new SpringApplicationBuilder(PaymentApplication.class)
+            .web(WebApplicationType.NONE)
+            // Command-line arguments take precedence over the application.yml of payment-api
+            .run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--payment.scheduling.enabled=false",
+                "--payment.acquirer.simulated-delay=false",
+                "--payment.cluster.broadcast.enabled=false",
+                "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                "--logging.level.root=WARN"
+            );
+        paymentService = context.getBean(PaymentService.class);
+        cardVault = context.getBean(CardVault.class);
+        creditCardRequest = BenchmarkData.creditCardRequest();
+        pixRequest = BenchmarkData.pixRequest();
+
+        PaymentRequest saveCard = BenchmarkData.creditCardRequest();
+        ((CreditCardRequest) saveCard.getPaymentDetails()).setSaveCard(true);
+        String cardToken = (String) paymentService.processPayment(saveCard).getAdditionalInfo().get("cardToken");
+        savedCardRequest = BenchmarkData.savedCardRequest(cardToken);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public PaymentResponse processCreditCardPayment() {
+        return paymentService.processPayment(creditCardRequest);
+    }
+
+    @Benchmark
+    public PaymentResponse processSavedCardPayment() {
+        return paymentService.processPayment(savedCardRequest);
+    }
+
+    @Benchmark
+    public PaymentCard resolveCard() {
+        return cardVault.resolve((CreditCardRequest) creditCardRequest.getPaymentDetails());
+    }
+
+    @Benchmark
+    public PaymentCard resolveSavedCard() {
+        return cardVault.resolve((CreditCardRequest) savedCardRequest.getPaymentDetails());
+    }
+
+    @Benchmark
+    public PaymentResponse processPixPayment() {
+        return paymentService.processPayment(pixRequest);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.domain.enums.PaymentMethod;
+import com.example.payment.dto.CreditCardRequest;
+import com.example.payment.dto.NotificationPreferences;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.dto.PixRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a request body into validated, typed payment details. The legacy
+ * variants reproduce the previous path: the details bound to a map, then
+ * converted to the typed request once for validation and once more for
+ * processing, without the constraints on the details being checked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParsingBenchmark {
+    private ObjectMapper objectMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private byte[] creditCardJson;
+    private byte[] pixJson;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.objectMapper();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        creditCardJson = BenchmarkData.creditCardRequestJson();
+        pixJson = BenchmarkData.pixRequestJson();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PaymentRequest>> parseCreditCardRequest() throws IOException {
+        return validator.validate(objectMapper.readValue(creditCardJson, PaymentRequest.class));
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PaymentRequest>> parsePixRequest() throws IOException {
+        return validator.validate(objectMapper.readValue(pixJson, PaymentRequest.class));
+    }
+
+    @Benchmark
+    public void parseCreditCardRequestLegacy(Blackhole blackhole) throws IOException {
+        LegacyPaymentRequest request = objectMapper.readValue(creditCardJson, LegacyPaymentRequest.class);
+        blackhole.consume(validator.validate(request));
+        blackhole.consume(objectMapper.convertValue(request.getPaymentDetails(), CreditCardRequest.class));
+        blackhole.consume(objectMapper.convertValue(request.getPaymentDetails(), CreditCardRequest.class));
+    }
+
+    @Benchmark
+    public void parsePixRequestLegacy(Blackhole blackhole) throws IOException {
+        LegacyPaymentRequest request = objectMapper.readValue(pixJson, LegacyPaymentRequest.class);
+        blackhole.consume(validator.validate(request));
+        blackhole.consume(objectMapper.convertValue(request.getPaymentDetails(), PixRequest.class));
+        blackhole.consume(objectMapper.convertValue(request.getPaymentDetails(), PixRequest.class));
+    }
+
+    // The request shape before the details were typed, constraints included
+    public static class LegacyPaymentRequest {
+        @NotNull
+        @DecimalMin("0.01")
+        private BigDecimal amount;
+
+        @NotBlank
+        private String currency;
+
+        @NotNull
+        private PaymentMethod paymentMethod;
+
+        @Valid
+        @NotNull
+        private Map<String, Object> paymentDetails;
+
+        @Valid
+        private NotificationPreferences notificationPreferences;
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        public void setCurrency(String currency) {
+            this.currency = currency;
+        }
+
+        public PaymentMethod getPaymentMethod() {
+            return paymentMethod;
+        }
+
+        public void setPaymentMethod(PaymentMethod paymentMethod) {
+            this.paymentMethod = paymentMethod;
+        }
+
+        public Map<String, Object> getPaymentDetails() {
+            return paymentDetails;
+        }
+
+        public void setPaymentDetails(Map<String, Object> paymentDetails) {
+            this.paymentDetails = paymentDetails;
+        }
+
+        public NotificationPreferences getNotificationPreferences() {
+            return notificationPreferences;
+        }
+
+        public void setNotificationPreferences(NotificationPreferences notificationPreferences) {
+            this.notificationPreferences = notificationPreferences;
+        }
+    }
+}
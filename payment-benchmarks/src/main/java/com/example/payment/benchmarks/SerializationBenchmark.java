@@ -0,0 +1,46 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.dto.PaymentResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private PaymentResponse creditCardResponse;
+    private PaymentResponse pixResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.objectMapper();
+        creditCardResponse = BenchmarkData.creditCardResponse();
+        pixResponse = BenchmarkData.pixResponse();
+    }
+
+    @Benchmark
+    public byte[] serializeCreditCardResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(creditCardResponse);
+    }
+
+    @Benchmark
+    public byte[] serializePixResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pixResponse);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.PaymentApplication;
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.service.NotificationDispatcher;
+import com.example.payment.service.PaymentService;
+import com.sun.net.httpserver.HttpServer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform against virtual threads on the two paths that spend most of
+ * their time blocked: card payments, which wait on the acquirer (its
+ * simulated 100-1000 ms latency is on), and webhook notifications, which
+ * wait on the merchant's endpoint (a local stub answering after
+ * {@value #WEBHOOK_LATENCY_MS} ms).
+ *
+ * <p>{@code threads} sets spring.threads.virtual.enabled, which moves the
+ * async executor the notification dispatcher delivers on. Card payments
+ * are submitted the way Tomcat would run them: {@value #CONCURRENT_PAYMENTS}
+ * at once, on a pool of Tomcat's default 200 threads or on one virtual
+ * thread each. Admission control is off so that it does not cap the
+ * concurrency being compared. The virtual mode needs a Java 21 runtime and
+ * fails its setup on older ones.
+ *
+ * <pre>
+ * mvn -B verify -Pbenchmarks -pl payment-benchmarks -am -Djmh.args="ThreadModel"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ThreadModelBenchmark {
+    private static final int CONCURRENT_PAYMENTS = 1_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int NOTIFICATIONS = 500;
+    private static final long WEBHOOK_LATENCY_MS = 50;
+
+    private static final String INSERT_NOTIFICATIONS_SQL = """
+        INSERT INTO notification_outbox
+            (id, payment_id, type, status, message, webhook_url, payload, attempts, created_at, next_attempt_at)
+        SELECT gen_random_uuid()::text, gen_random_uuid()::text, 'WEBHOOK', 'PENDING', 'Payment completed', ?,
+               '{"status":"COMPLETED"}', 0, localtimestamp, localtimestamp
+        FROM generate_series(1, ?)
+        """;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private EmbeddedPostgres postgres;
+    private HttpServer webhookServer;
+    private String webhookUrl;
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private NotificationDispatcher dispatcher;
+    private JdbcTemplate jdbcTemplate;
+    private AsyncTaskExecutor requestExecutor;
+    private PaymentRequest creditCardRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need a Java 21 runtime, running on " + Runtime.version());
+        }
+
+        webhookServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        webhookServer.createContext("/hook", exchange -> {
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(WEBHOOK_LATENCY_MS);
+                exchange.sendResponseHeaders(204, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        webhookServer.setExecutor(Executors.newCachedThreadPool());
+        webhookServer.start();
+        webhookUrl = "http://127.0.0.1:" + webhookServer.getAddress().getPort() + "/hook";
+
+        postgres = EmbeddedPostgres.start();
+        context = new SpringApplicationBuilder(PaymentApplication.class)
+            .web(WebApplicationType.NONE)
+            // Command-line arguments take precedence over the application.yml of payment-api
+            .run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--payment.scheduling.enabled=false",
+                "--payment.acquirer.simulated-delay=true",
+                "--payment.admission.enabled=false",
+                "--payment.cluster.broadcast.enabled=false",
+                "--payment.webhook.allow-private-addresses=true",
+                "--payment.vault.encryption-key=" + BenchmarkData.vaultKey(),
+                "--logging.level.root=WARN"
+            );
+        paymentService = context.getBean(PaymentService.class);
+        dispatcher = context.getBean(NotificationDispatcher.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        creditCardRequest = BenchmarkData.creditCardRequest();
+
+        if (virtual) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("request-");
+            executor.setVirtualThreads(true);
+            requestExecutor = executor;
+        } else {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(TOMCAT_MAX_THREADS);
+            executor.setMaxPoolSize(TOMCAT_MAX_THREADS);
+            executor.setThreadNamePrefix("request-");
+            executor.initialize();
+            requestExecutor = executor;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (requestExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+        context.close();
+        postgres.close();
+        webhookServer.stop(0);
+    }
+
+    @Benchmark
+    public void concurrentCardPayments() {
+        List<CompletableFuture<?>> payments = new ArrayList<>(CONCURRENT_PAYMENTS);
+        for (int i = 0; i < CONCURRENT_PAYMENTS; i++) {
+            payments.add(CompletableFuture.runAsync(() -> paymentService.processPayment(creditCardRequest), requestExecutor));
+        }
+        payments.forEach(CompletableFuture::join);
+    }
+
+    @Benchmark
+    public void deliverNotifications(Outbox outbox) {
+        dispatcher.dispatch();
+    }
+
+    /**
+     * Queues the notifications each dispatch delivers, apart from the card
+     * payments so that they do not pile up behind that benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class Outbox {
+        @Setup(Level.Invocation)
+        public void queueNotifications(ThreadModelBenchmark benchmark) {
+            benchmark.jdbcTemplate.update(INSERT_NOTIFICATIONS_SQL, benchmark.webhookUrl, NOTIFICATIONS);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.payment.benchmarks;
+
+import com.example.payment.dto.PaymentRequest;
+import com.example.payment.service.PaymentMetrics;
+import com.example.payment.service.PaymentValidationService;
+import com.example.payment.service.WebhookUrlPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private PaymentValidationService validationService;
+    private PaymentRequest creditCardRequest;
+    private PaymentRequest pixRequest;
+
+    @Setup
+    public void setUp() {
+        validationService = new PaymentValidationService(new PaymentMetrics(new SimpleMeterRegistry()), new WebhookUrlPolicy(false));
+        creditCardRequest = BenchmarkData.creditCardRequest();
+        pixRequest = BenchmarkData.pixRequest();
+    }
+
+    @Benchmark
+    public void validateCreditCardPayment() {
+        validationService.validatePaymentRequest(creditCardRequest);
+    }
+
+    @Benchmark
+    public void validatePixPayment() {
+        validationService.validatePaymentRequest(pixRequest);
+    }
+}
@@ -1,5 +0,0 @@
-package com.example.payment.domain.enums;
-
-public enum PaymentStatus {
-    PENDING, PROCESSING, COMPLETED, FAILED, REFUNDED, EXPIRED
-}
\ No newline at end of file